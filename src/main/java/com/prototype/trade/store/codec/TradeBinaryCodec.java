@@ -0,0 +1,155 @@
+package com.prototype.trade.store.codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import com.prototype.trade.store.model.Trade;
+
+/**
+ * Compact binary encoding of a {@link Trade}: a presence bit mask followed by
+ * the present fields as primitives, dates as epoch second + nano (wall clock,
+ * no zone). Used wherever trades are written to disk and as the binary wire
+ * format of the ingestion endpoints, where a batch is [count][trade]...
+ */
+public final class TradeBinaryCodec {
+
+	private static final int HAS_ID = 1;
+	private static final int HAS_TRADE_ID = 1 << 1;
+	private static final int HAS_TRADE_VERSION = 1 << 2;
+	private static final int HAS_COUNTERPARTY_ID = 1 << 3;
+	private static final int HAS_BOOK_ID = 1 << 4;
+	private static final int HAS_MATURITY_DATE = 1 << 5;
+	private static final int HAS_CREATED_DATE = 1 << 6;
+	private static final int HAS_EXPIRED = 1 << 7;
+	private static final int HAS_VERSION = 1 << 8;
+
+	private TradeBinaryCodec() {
+
+	}
+
+	public static void write(DataOutput out, Trade trade) throws IOException {
+
+		int flags = 0;
+		flags |= null != trade.getId() ? HAS_ID : 0;
+		flags |= null != trade.getTradeId() ? HAS_TRADE_ID : 0;
+		flags |= null != trade.getTradeVersion() ? HAS_TRADE_VERSION : 0;
+		flags |= null != trade.getCounterpartyId() ? HAS_COUNTERPARTY_ID : 0;
+		flags |= null != trade.getBookId() ? HAS_BOOK_ID : 0;
+		flags |= null != trade.getMaturityDate() ? HAS_MATURITY_DATE : 0;
+		flags |= null != trade.getCreatedDate() ? HAS_CREATED_DATE : 0;
+		flags |= null != trade.getExpired() ? HAS_EXPIRED : 0;
+		flags |= null != trade.getVersion() ? HAS_VERSION : 0;
+
+		out.writeShort(flags);
+		if ((flags & HAS_ID) != 0) {
+			out.writeInt(trade.getId());
+		}
+		if ((flags & HAS_TRADE_ID) != 0) {
+			out.writeInt(trade.getTradeId());
+		}
+		if ((flags & HAS_TRADE_VERSION) != 0) {
+			out.writeInt(trade.getTradeVersion());
+		}
+		if ((flags & HAS_COUNTERPARTY_ID) != 0) {
+			out.writeUTF(trade.getCounterpartyId());
+		}
+		if ((flags & HAS_BOOK_ID) != 0) {
+			out.writeUTF(trade.getBookId());
+		}
+		if ((flags & HAS_MATURITY_DATE) != 0) {
+			writeDateTime(out, trade.getMaturityDate());
+		}
+		if ((flags & HAS_CREATED_DATE) != 0) {
+			writeDateTime(out, trade.getCreatedDate());
+		}
+		if ((flags & HAS_EXPIRED) != 0) {
+			out.writeBoolean(trade.getExpired());
+		}
+		if ((flags & HAS_VERSION) != 0) {
+			out.writeInt(trade.getVersion());
+		}
+	}
+
+	public static void writeAll(DataOutput out, Collection<Trade> trades) throws IOException {
+
+		out.writeInt(trades.size());
+		for (Trade trade : trades) {
+			write(out, trade);
+		}
+	}
+
+	public static List<Trade> readAll(DataInput in) throws IOException {
+
+		int count = in.readInt();
+		if (count < 0) {
+			throw new IOException("Invalid trade count=" + count);
+		}
+
+		// the count is not trusted for sizing, a truncated body fails on read
+		List<Trade> trades = new ArrayList<>(Math.min(count, 1024));
+		for (int i = 0; i < count; i++) {
+			trades.add(read(in));
+		}
+		return trades;
+	}
+
+	public static Trade read(DataInput in) throws IOException {
+
+		int flags = in.readUnsignedShort();
+		Trade trade = new Trade();
+
+		if ((flags & HAS_ID) != 0) {
+			trade.setId(in.readInt());
+		}
+		if ((flags & HAS_TRADE_ID) != 0) {
+			trade.setTradeId(in.readInt());
+		}
+		if ((flags & HAS_TRADE_VERSION) != 0) {
+			trade.setTradeVersion(in.readInt());
+		}
+		if ((flags & HAS_COUNTERPARTY_ID) != 0) {
+			trade.setCounterpartyId(in.readUTF());
+		}
+		if ((flags & HAS_BOOK_ID) != 0) {
+			trade.setBookId(in.readUTF());
+		}
+		if ((flags & HAS_MATURITY_DATE) != 0) {
+			trade.setMaturityDate(readDateTime(in));
+		}
+		if ((flags & HAS_CREATED_DATE) != 0) {
+			trade.setCreatedDate(readDateTime(in));
+		}
+		if ((flags & HAS_EXPIRED) != 0) {
+			trade.setExpired(in.readBoolean());
+		}
+		if ((flags & HAS_VERSION) != 0) {
+			trade.setVersion(in.readInt());
+		}
+		return trade;
+	}
+
+	private static void writeDateTime(DataOutput out, LocalDateTime dateTime) throws IOException {
+
+		out.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+		out.writeInt(dateTime.getNano());
+	}
+
+	private static LocalDateTime readDateTime(DataInput in) throws IOException {
+
+		long epochSecond = in.readLong();
+		int nano = in.readInt();
+		try {
+			return LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+		} catch (DateTimeException e) {
+			throw new IOException("Invalid date time epochSecond=" + epochSecond + ", nano=" + nano, e);
+		}
+	}
+
+}
@@ -0,0 +1,96 @@
+package com.prototype.trade.store.codec;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.stereotype.Component;
+
+import com.prototype.trade.store.model.Trade;
+
+/**
+ * Reads request bodies of {@value #TRADE_BINARY} into a {@link Trade} or a
+ * List of trades using {@link TradeBinaryCodec}, so clients can post to the
+ * single & bulk endpoints without JSON parsing. Responses stay JSON: writing
+ * is not supported, otherwise requests without an Accept header would be
+ * answered in binary.
+ */
+@Component
+public class TradeBinaryHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+	public static final String TRADE_BINARY = "application/x-trade-binary";
+
+	public static final MediaType TRADE_BINARY_TYPE = MediaType.valueOf(TRADE_BINARY);
+
+	private static final int BUFFER_SIZE = 8192;
+
+	public TradeBinaryHttpMessageConverter() {
+		super(TRADE_BINARY_TYPE);
+	}
+
+	@Override
+	protected boolean supports(Class<?> clazz) {
+		return Trade.class == clazz || Collection.class.isAssignableFrom(clazz);
+	}
+
+	@Override
+	public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+		return (Trade.class == type || isTradeCollection(type)) && canRead(mediaType);
+	}
+
+	@Override
+	public boolean canRead(Class<?> clazz, MediaType mediaType) {
+		return Trade.class == clazz && canRead(mediaType);
+	}
+
+	@Override
+	public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+		return false;
+	}
+
+	@Override
+	public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+
+		DataInputStream in = new DataInputStream(new BufferedInputStream(inputMessage.getBody(), BUFFER_SIZE));
+		try {
+			return Trade.class == type ? TradeBinaryCodec.read(in) : TradeBinaryCodec.readAll(in);
+		} catch (IOException | RuntimeException e) {
+			// any malformed body is a bad request, not a server error
+			throw new HttpMessageNotReadableException("Invalid " + TRADE_BINARY + " body: " + e, e, inputMessage);
+		}
+	}
+
+	@Override
+	protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+		return read(clazz, null, inputMessage);
+	}
+
+	@Override
+	protected void writeInternal(Object t, Type type, HttpOutputMessage outputMessage) {
+		throw new HttpMessageNotWritableException(TRADE_BINARY + " is only accepted as request body");
+	}
+
+	private static boolean isTradeCollection(Type type) {
+
+		if (!(type instanceof ParameterizedType)) {
+			return false;
+		}
+
+		ParameterizedType parameterized = (ParameterizedType) type;
+		// readAll answers an ArrayList, so List & Collection parameters qualify
+		return parameterized.getRawType() instanceof Class
+				&& ((Class<?>) parameterized.getRawType()).isAssignableFrom(ArrayList.class)
+				&& Trade.class == parameterized.getActualTypeArguments()[0];
+	}
+
+}
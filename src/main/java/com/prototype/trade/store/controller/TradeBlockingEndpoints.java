@@ -0,0 +1,39 @@
+package com.prototype.trade.store.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.prototype.trade.store.model.Trade;
+
+/**
+ * POST /trade & GET /trade/{tradeId}/{tradeVersion} handled on the Tomcat
+ * thread, the default trade.web.execution mode. See TradeOffloadEndpoints.
+ */
+@RestController
+@ConditionalOnProperty(name = "trade.web.execution", havingValue = "BLOCKING", matchIfMissing = true)
+public class TradeBlockingEndpoints {
+
+	private TradeController tradeController;
+
+	@Autowired
+	public void setTradeController(TradeController tradeController) {
+		this.tradeController = tradeController;
+	}
+
+	@PostMapping("/trade")
+	public ResponseEntity<String> saveTrade(@RequestBody Trade trade) {
+		return tradeController.saveTrade(trade);
+	}
+
+	@GetMapping("/trade/{tradeId}/{tradeVersion}")
+	public ResponseEntity<Trade> getTrade(@PathVariable Integer tradeId, @PathVariable Integer tradeVersion) {
+		return tradeController.getTrade(tradeId, tradeVersion);
+	}
+
+}
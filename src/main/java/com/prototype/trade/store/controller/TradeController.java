@@ -1,45 +1,104 @@
 package com.prototype.trade.store.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.prototype.trade.store.exception.TradeStoreException;
+import com.prototype.trade.store.model.IngestTicket;
 import com.prototype.trade.store.model.Trade;
+import com.prototype.trade.store.model.TradeEventPage;
+import com.prototype.trade.store.model.TradePage;
+import com.prototype.trade.store.model.TradeResult;
 import com.prototype.trade.store.service.TradeService;
+import com.prototype.trade.store.service.impl.TradeEventFeed;
+import com.prototype.trade.store.service.impl.TradeIngestPipeline;
+import com.prototype.trade.store.service.impl.TradeMetrics;
 
 @RestController
 public class TradeController {
 
 	private static final Logger logger = LoggerFactory.getLogger(TradeController.class);
 
+	static final String NDJSON = "application/x-ndjson";
+
+	private static final int STREAM_FLUSH_EVERY = 1000;
+
+	private static final int MAX_PAGE_SIZE = 1000;
+
+	private static final long MAX_EVENT_WAIT_MILLIS = 60000;
+
 	private TradeService tradeService;
 
+	private TradeIngestPipeline tradeIngestPipeline;
+
+	private TradeMetrics tradeMetrics;
+
+	private TradeEventFeed tradeEventFeed;
+
+	private ObjectMapper objectMapper;
+
 	@Autowired
 	public void setTradeService(TradeService tradeService) {
 		this.tradeService = tradeService;
 	}
 
+	@Autowired(required = false)
+	public void setTradeMetrics(TradeMetrics tradeMetrics) {
+		this.tradeMetrics = tradeMetrics;
+	}
+
+	@Autowired(required = false)
+	public void setTradeEventFeed(TradeEventFeed tradeEventFeed) {
+		this.tradeEventFeed = tradeEventFeed;
+	}
+
+	@Autowired(required = false)
+	public void setObjectMapper(ObjectMapper objectMapper) {
+		this.objectMapper = objectMapper;
+	}
+
+	@Autowired(required = false)
+	public void setTradeIngestPipeline(TradeIngestPipeline tradeIngestPipeline) {
+		this.tradeIngestPipeline = tradeIngestPipeline;
+	}
+
 	@GetMapping("/trade")
 	public ResponseEntity<String> helloTrades() {
 
 		return new ResponseEntity<String>("Hello, Welcome to trade-store Service !!!", HttpStatus.OK);
 	}
 
-	@PostMapping("/trade")
-	public ResponseEntity<String> saveTrade(@RequestBody Trade trade) {
+	// mapped to POST /trade by TradeBlockingEndpoints or TradeOffloadEndpoints
+	public ResponseEntity<String> saveTrade(Trade trade) {
 
 		logger.info("Start processing & saving tradeId={}/tradeVersion={}", trade.getTradeVersion(),
 				trade.getTradeVersion());
@@ -61,8 +120,186 @@ public class TradeController {
 
 	}
 
-	@GetMapping("/trade/{tradeId}/{tradeVersion}")
-	public ResponseEntity<Trade> getTrade(@PathVariable Integer tradeId, @PathVariable Integer tradeVersion) {
+	@PostMapping("/trades")
+	public ResponseEntity<List<TradeResult>> saveTrades(@RequestBody List<Trade> trades) {
+
+		logger.info("Start processing & saving batch of {} trades", trades.size());
+
+		List<TradeResult> results;
+
+		try {
+
+			results = tradeService.processAndSaveTrades(trades);
+
+		} catch (Exception exp) {
+
+			logger.error("Error while processing/saving trade batch:{}", exp);
+			throw new TradeStoreException(exp.getMessage());
+
+		}
+
+		return ResponseEntity.ok(results);
+
+	}
+
+	@PostMapping("/trade/async")
+	public ResponseEntity<IngestTicket> submitTrade(@RequestBody Trade trade,
+			@RequestHeader(name = "X-Callback-Url", required = false) String callbackUrl) {
+
+		if (null == tradeIngestPipeline) {
+			throw new TradeStoreException("Asynchronous trade ingestion is disabled");
+		}
+
+		if (null != callbackUrl && !tradeIngestPipeline.isCallbackAllowed(callbackUrl)) {
+
+			logger.warn("Rejected X-Callback-Url={} outside the configured callback prefixes", callbackUrl);
+			return ResponseEntity.badRequest().build();
+		}
+
+		Optional<IngestTicket> ticket = tradeIngestPipeline.submit(trade, callbackUrl);
+		if (!ticket.isPresent()) {
+
+			logger.warn("Ingest queue full, rejected tradeId/tradeVersion={}/{}", trade.getTradeId(),
+					trade.getTradeVersion());
+			if (null != tradeMetrics) {
+				tradeMetrics.recordThrottled();
+			}
+			return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").build();
+		}
+
+		URI uri = ServletUriComponentsBuilder.fromCurrentContextPath().path("/tickets/{ticket}")
+				.buildAndExpand(ticket.get().getTicket()).toUri();
+
+		return ResponseEntity.accepted().location(uri).body(ticket.get());
+
+	}
+
+	@GetMapping("/tickets/{ticket}")
+	public ResponseEntity<IngestTicket> getTicket(@PathVariable Long ticket) {
+
+		Optional<IngestTicket> ingestTicket = null == tradeIngestPipeline ? Optional.empty()
+				: tradeIngestPipeline.getTicket(ticket);
+		if (!ingestTicket.isPresent()) {
+
+			String errorMessage = "Ticket does not exists for ticket=" + ticket;
+			logger.info(errorMessage);
+			throw new TradeStoreException(errorMessage);
+		}
+
+		return ResponseEntity.ok(ingestTicket.get());
+
+	}
+
+	/**
+	 * Streams the matching trades as newline delimited JSON while they are read,
+	 * neither side holds the full result in memory.
+	 */
+	@GetMapping(path = "/trades", produces = NDJSON)
+	public ResponseEntity<StreamingResponseBody> streamTrades(@RequestParam(required = false) String bookId,
+			@RequestParam(required = false) String counterpartyId,
+			@RequestParam(defaultValue = "true") boolean activeOnly) {
+
+		logger.info("Streaming trades for bookId={}, counterpartyId={}, activeOnly={}", bookId, counterpartyId,
+				activeOnly);
+
+		ObjectMapper mapper = null != objectMapper ? objectMapper
+				: Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+						.build();
+
+		StreamingResponseBody body = out -> {
+
+			try (JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+
+				generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+				generator.setRootValueSeparator(null);
+
+				int[] written = new int[1];
+				tradeService.streamTrades(emptyToNull(bookId), emptyToNull(counterpartyId), activeOnly, trade -> {
+
+					try {
+
+						generator.writeObject(trade);
+						generator.writeRaw('\n');
+
+						// first line goes out at once, then in blocks of the servlet buffer
+						if (++written[0] == 1 || written[0] % STREAM_FLUSH_EVERY == 0) {
+							generator.flush();
+						}
+
+					} catch (IOException exp) {
+						throw new UncheckedIOException(exp);
+					}
+				});
+			}
+		};
+
+		return ResponseEntity.ok().header(HttpHeaders.CONTENT_TYPE, NDJSON).body(body);
+
+	}
+
+	/**
+	 * Keyset paging in (tradeId, tradeVersion) order, pass the nextCursor of a page
+	 * to fetch the following one.
+	 */
+	@GetMapping("/trades/page")
+	public ResponseEntity<TradePage> getTrades(@RequestParam(required = false) String cursor,
+			@RequestParam(required = false) Boolean expired,
+			@RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate maturityFrom,
+			@RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate maturityTo,
+			@RequestParam(defaultValue = "100") int limit) {
+
+		if (limit < 1 || limit > MAX_PAGE_SIZE) {
+			throw new TradeStoreException("Page limit must be between 1 and " + MAX_PAGE_SIZE);
+		}
+
+		return ResponseEntity.ok(tradeService.getTrades(cursor, expired, maturityFrom, maturityTo, limit));
+
+	}
+
+	/**
+	 * Long poll of the trade event feed: answers the events following the after
+	 * sequence at once, or waits up to waitMillis for the next one. Pass the
+	 * lastSequence of a page as after= to resume.
+	 */
+	@GetMapping("/trade/events")
+	public DeferredResult<TradeEventPage> getTradeEvents(@RequestParam(defaultValue = "0") long after,
+			@RequestParam(defaultValue = "100") int limit, @RequestParam(defaultValue = "30000") long waitMillis) {
+
+		if (null == tradeEventFeed) {
+			throw new TradeStoreException("Trade event feed is disabled");
+		}
+		if (limit < 1 || limit > MAX_PAGE_SIZE) {
+			throw new TradeStoreException("Page limit must be between 1 and " + MAX_PAGE_SIZE);
+		}
+
+		// no Tomcat thread is held while waiting, a timeout answers the (empty) page as it is then
+		CompletableFuture<TradeEventPage> next = tradeEventFeed.poll(after, limit);
+		DeferredResult<TradeEventPage> result = new DeferredResult<>(
+				Math.max(1, Math.min(waitMillis, MAX_EVENT_WAIT_MILLIS)), () -> tradeEventFeed.read(after, limit));
+		result.onCompletion(() -> next.cancel(false));
+		next.thenAccept(result::setResult);
+
+		return result;
+
+	}
+
+	@GetMapping("/trade/{tradeId}/latest")
+	public ResponseEntity<Trade> getLatestTrade(@PathVariable Integer tradeId) {
+
+		Optional<Trade> trade = tradeService.getLatestTrade(tradeId);
+		if (!trade.isPresent()) {
+
+			String errorMessage = "Trade does not exists for tradeId=" + tradeId;
+			logger.info(errorMessage);
+			throw new TradeStoreException(errorMessage);
+		}
+
+		return ResponseEntity.ok(trade.get());
+
+	}
+
+	// mapped to GET /trade/{tradeId}/{tradeVersion} by TradeBlockingEndpoints or TradeOffloadEndpoints
+	public ResponseEntity<Trade> getTrade(Integer tradeId, Integer tradeVersion) {
 
 		logger.info("Fetcing trade for tradeId/tradeVersion={}/{},", tradeId, tradeVersion);
 
@@ -80,5 +317,9 @@ public class TradeController {
 		return ResponseEntity.created(uri).body(trade.get());
 
 	}
+
+	private static String emptyToNull(String value) {
+		return null == value || value.isEmpty() ? null : value;
+	}
 	
 }
@@ -0,0 +1,65 @@
+package com.prototype.trade.store.controller;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * The bounded pool, sized to the connection pool, running the Callables of
+ * TradeOffloadEndpoints. It serves every Callable & StreamingResponseBody of
+ * Spring MVC, GET /trades streaming holds a JDBC connection as well.
+ */
+@Configuration
+@ConditionalOnProperty(name = "trade.web.execution", havingValue = "OFFLOAD")
+public class TradeOffloadConfiguration implements WebMvcConfigurer {
+
+	private static final Logger logger = LoggerFactory.getLogger(TradeOffloadConfiguration.class);
+
+	private int poolSize = 20;
+
+	private int queueCapacity = 10000;
+
+	private ThreadPoolTaskExecutor executor;
+
+	@Value("${trade.web.offload.pool-size:20}")
+	public void setPoolSize(int poolSize) {
+		this.poolSize = poolSize;
+	}
+
+	@Value("${trade.web.offload.queue-capacity:10000}")
+	public void setQueueCapacity(int queueCapacity) {
+		this.queueCapacity = queueCapacity;
+	}
+
+	@PostConstruct
+	public void start() {
+
+		executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(poolSize);
+		executor.setMaxPoolSize(poolSize);
+		executor.setQueueCapacity(queueCapacity);
+		executor.setThreadNamePrefix("trade-offload-");
+		executor.initialize();
+		logger.info("POST /trade & GET /trade/{tradeId}/{tradeVersion} offloaded to {} threads, queue capacity={}",
+				poolSize, queueCapacity);
+	}
+
+	@PreDestroy
+	public void stop() {
+		executor.shutdown();
+	}
+
+	@Override
+	public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+		configurer.setTaskExecutor(executor);
+	}
+
+}
@@ -0,0 +1,73 @@
+package com.prototype.trade.store.controller;
+
+import java.util.concurrent.Callable;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.prototype.trade.store.model.Trade;
+import com.prototype.trade.store.service.impl.TradeMetrics;
+
+/**
+ * Offloaded execution of POST /trade & GET /trade/{tradeId}/{tradeVersion}: the
+ * handlers return a Callable, Spring MVC starts async processing and runs it on
+ * the pool of TradeOffloadConfiguration while the Tomcat thread is released.
+ * In-flight requests are then capped by the pool queue instead of Tomcat's
+ * threads, a full queue is answered with 429.
+ */
+@RestController
+@ConditionalOnProperty(name = "trade.web.execution", havingValue = "OFFLOAD")
+public class TradeOffloadEndpoints {
+
+	private TradeController tradeController;
+
+	private TradeMetrics tradeMetrics;
+
+	@Autowired
+	public void setTradeController(TradeController tradeController) {
+		this.tradeController = tradeController;
+	}
+
+	@Autowired(required = false)
+	public void setTradeMetrics(TradeMetrics tradeMetrics) {
+		this.tradeMetrics = tradeMetrics;
+	}
+
+	@PostMapping("/trade")
+	public Callable<ResponseEntity<String>> saveTrade(@RequestBody Trade trade) {
+		return () -> tradeController.saveTrade(trade);
+	}
+
+	@GetMapping("/trade/{tradeId}/{tradeVersion}")
+	public Callable<ResponseEntity<Trade>> getTrade(@PathVariable Integer tradeId,
+			@PathVariable Integer tradeVersion) {
+		return () -> tradeController.getTrade(tradeId, tradeVersion);
+	}
+
+	/**
+	 * A rejected Callable is handled twice, on the request thread and again on
+	 * the async dispatch Spring MVC starts with the rejection as result.
+	 */
+	@ExceptionHandler(TaskRejectedException.class)
+	public ResponseEntity<Void> throttled(HttpServletRequest request) {
+
+		if (null != tradeMetrics && DispatcherType.ASYNC != request.getDispatcherType()) {
+			tradeMetrics.recordThrottled();
+		}
+		return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").build();
+	}
+
+}
@@ -0,0 +1,92 @@
+package com.prototype.trade.store.date.util;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Business date in the configured zone, resolved once per day boundary and then
+ * served as a cached epoch day: a read is a clock millis call and a compare. The
+ * clock can be replaced, e.g. by a fixed one in tests.
+ */
+@Component
+public class BusinessClock {
+
+	private volatile Clock clock;
+
+	private volatile Day day;
+
+	public BusinessClock() {
+		this(Clock.systemDefaultZone());
+	}
+
+	public BusinessClock(Clock clock) {
+		setClock(clock);
+	}
+
+	@Value("${trade.clock.zone:}")
+	public void setZone(String zone) {
+
+		if (null != zone && !zone.isEmpty()) {
+			setClock(Clock.system(ZoneId.of(zone)));
+		}
+	}
+
+	public void setClock(Clock clock) {
+
+		this.clock = clock;
+		this.day = dayOf(clock, clock.millis());
+	}
+
+	public ZoneId getZone() {
+		return clock.getZone();
+	}
+
+	public long todayEpochDay() {
+
+		Clock c = clock;
+		Day d = day;
+		long now = c.millis();
+
+		// also rolls back, a test clock may travel backwards
+		if (now < d.startMillis || now >= d.endMillis) {
+			d = dayOf(c, now);
+			day = d;
+		}
+		return d.epochDay;
+	}
+
+	public LocalDate today() {
+
+		return LocalDate.ofEpochDay(todayEpochDay());
+	}
+
+	private static Day dayOf(Clock clock, long millis) {
+
+		ZoneId zone = clock.getZone();
+		LocalDate date = Instant.ofEpochMilli(millis).atZone(zone).toLocalDate();
+		long startMillis = date.atStartOfDay(zone).toInstant().toEpochMilli();
+		long endMillis = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+		return new Day(date.toEpochDay(), startMillis, endMillis);
+	}
+
+	private static final class Day {
+
+		private final long epochDay;
+
+		private final long startMillis;
+
+		private final long endMillis;
+
+		private Day(long epochDay, long startMillis, long endMillis) {
+			this.epochDay = epochDay;
+			this.startMillis = startMillis;
+			this.endMillis = endMillis;
+		}
+	}
+
+}
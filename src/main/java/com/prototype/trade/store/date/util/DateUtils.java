@@ -11,4 +11,20 @@ public interface DateUtils {
 
 	}
 
+	/**
+	 * Same answer as a negative {@link #differenceBetweenDates} against a base date
+	 * on the given epoch day, without allocating.
+	 */
+	public static boolean isBeforeDay(LocalDateTime date, long epochDay) {
+
+		return date.toLocalDate().toEpochDay() < epochDay;
+
+	}
+
+	public static boolean isBeforeToday(LocalDateTime date, BusinessClock businessClock) {
+
+		return isBeforeDay(date, businessClock.todayEpochDay());
+
+	}
+
 }
\ No newline at end of file
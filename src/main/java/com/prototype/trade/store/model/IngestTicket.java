@@ -0,0 +1,98 @@
+package com.prototype.trade.store.model;
+
+import java.io.Serializable;
+
+/**
+ * Receipt of an asynchronously ingested trade, polled by its ticket number or
+ * posted to the caller's callback once processed.
+ */
+public class IngestTicket implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	public enum Status {
+		QUEUED, PROCESSED, FAILED
+	}
+
+	private Long ticket;
+
+	private Integer tradeId;
+
+	private Integer tradeVersion;
+
+	private Status status;
+
+	private TradeResult result;
+
+	private String message;
+
+	public IngestTicket() {
+
+	}
+
+	public IngestTicket(Long ticket, Integer tradeId, Integer tradeVersion, Status status, TradeResult result,
+			String message) {
+		super();
+		this.ticket = ticket;
+		this.tradeId = tradeId;
+		this.tradeVersion = tradeVersion;
+		this.status = status;
+		this.result = result;
+		this.message = message;
+	}
+
+	public Long getTicket() {
+		return ticket;
+	}
+
+	public void setTicket(Long ticket) {
+		this.ticket = ticket;
+	}
+
+	public Integer getTradeId() {
+		return tradeId;
+	}
+
+	public void setTradeId(Integer tradeId) {
+		this.tradeId = tradeId;
+	}
+
+	public Integer getTradeVersion() {
+		return tradeVersion;
+	}
+
+	public void setTradeVersion(Integer tradeVersion) {
+		this.tradeVersion = tradeVersion;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public void setStatus(Status status) {
+		this.status = status;
+	}
+
+	public TradeResult getResult() {
+		return result;
+	}
+
+	public void setResult(TradeResult result) {
+		this.result = result;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public void setMessage(String message) {
+		this.message = message;
+	}
+
+	@Override
+	public String toString() {
+		return "IngestTicket [ticket=" + ticket + ", tradeId=" + tradeId + ", tradeVersion=" + tradeVersion
+				+ ", status=" + status + ", result=" + result + ", message=" + message + "]";
+	}
+
+}
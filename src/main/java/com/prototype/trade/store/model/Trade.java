@@ -8,14 +8,18 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
-import javax.persistence.SequenceGenerator;
+import javax.persistence.Index;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
 
 import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
 import org.springframework.data.annotation.Version;
 
 @Entity
-@Table(name = "TRADE")
+@Table(name = "TRADE", uniqueConstraints = {
+		@UniqueConstraint(name = "UX_TRADE_ID_VERSION", columnNames = { "TRADE_ID", "TRADE_VERSION" }) }, indexes = {
+				@Index(name = "IX_TRADE_ACTIVE_MATURITY", columnList = "EXPIRED, MATURITY_DATE") })
 //@DynamicUpdate
 public class Trade implements Serializable {
 
@@ -23,7 +27,8 @@ public class Trade implements Serializable {
 
 	@Id
 	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "trade_seq")
-	@SequenceGenerator(name = "trade_seq", sequenceName = "SEQ_TRADE_STORE", allocationSize = 1, initialValue = 1)
+	// pooled-lo blocks of trade.id.block-size ids on SEQ_TRADE_STORE, see TradeIdGenerator
+	@GenericGenerator(name = "trade_seq", strategy = "com.prototype.trade.store.repository.TradeIdGenerator")
 	@Column(name = "ID")
 	private Integer id;
 
@@ -0,0 +1,39 @@
+package com.prototype.trade.store.model;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Opaque continuation token of a keyset page: the last returned (tradeId,
+ * tradeVersion) as a {@link TradeKey}, url-safe base64 encoded.
+ */
+public interface TradeCursor {
+
+	/**
+	 * Key before the first trade, the start of a listing.
+	 */
+	public static final long START = TradeKey.of(Integer.MIN_VALUE, Integer.MIN_VALUE);
+
+	public static String encode(long tradeKey) {
+
+		return Base64.getUrlEncoder().withoutPadding()
+				.encodeToString(ByteBuffer.allocate(Long.BYTES).putLong(tradeKey).array());
+	}
+
+	/**
+	 * @throws IllegalArgumentException for a malformed token
+	 */
+	public static long decode(String cursor) {
+
+		if (null == cursor || cursor.isEmpty()) {
+			return START;
+		}
+
+		byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+		if (bytes.length != Long.BYTES) {
+			throw new IllegalArgumentException("Invalid cursor " + cursor);
+		}
+		return ByteBuffer.wrap(bytes).getLong();
+	}
+
+}
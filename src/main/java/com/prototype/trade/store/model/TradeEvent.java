@@ -0,0 +1,95 @@
+package com.prototype.trade.store.model;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+public class TradeEvent implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	public enum Type {
+		ACCEPTED, UPDATED, REJECTED, EXPIRED
+	}
+
+	// assigned when the event is appended to the feed, 1 for the first one after a start
+	private long sequence;
+
+	private Type type;
+
+	private Integer tradeId;
+
+	private Integer tradeVersion;
+
+	// reason of a rejection
+	private String message;
+
+	private LocalDateTime publishedAt;
+
+	public TradeEvent() {
+
+	}
+
+	public TradeEvent(Type type, Integer tradeId, Integer tradeVersion, String message, LocalDateTime publishedAt) {
+		super();
+		this.type = type;
+		this.tradeId = tradeId;
+		this.tradeVersion = tradeVersion;
+		this.message = message;
+		this.publishedAt = publishedAt;
+	}
+
+	public long getSequence() {
+		return sequence;
+	}
+
+	public void setSequence(long sequence) {
+		this.sequence = sequence;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public void setType(Type type) {
+		this.type = type;
+	}
+
+	public Integer getTradeId() {
+		return tradeId;
+	}
+
+	public void setTradeId(Integer tradeId) {
+		this.tradeId = tradeId;
+	}
+
+	public Integer getTradeVersion() {
+		return tradeVersion;
+	}
+
+	public void setTradeVersion(Integer tradeVersion) {
+		this.tradeVersion = tradeVersion;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public void setMessage(String message) {
+		this.message = message;
+	}
+
+	public LocalDateTime getPublishedAt() {
+		return publishedAt;
+	}
+
+	public void setPublishedAt(LocalDateTime publishedAt) {
+		this.publishedAt = publishedAt;
+	}
+
+	@Override
+	public String toString() {
+		return "TradeEvent [sequence=" + sequence + ", type=" + type + ", tradeId=" + tradeId + ", tradeVersion="
+				+ tradeVersion + ", message=" + message + ", publishedAt=" + publishedAt + "]";
+	}
+
+}
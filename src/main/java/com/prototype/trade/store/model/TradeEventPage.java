@@ -0,0 +1,59 @@
+package com.prototype.trade.store.model;
+
+import java.io.Serializable;
+import java.util.List;
+
+public class TradeEventPage implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private List<TradeEvent> events;
+
+	// pass as after= for the next page
+	private long lastSequence;
+
+	// events after the requested sequence were overwritten (or the feed restarted), the consumer has to re-sync
+	private boolean truncated;
+
+	public TradeEventPage() {
+
+	}
+
+	public TradeEventPage(List<TradeEvent> events, long lastSequence, boolean truncated) {
+		super();
+		this.events = events;
+		this.lastSequence = lastSequence;
+		this.truncated = truncated;
+	}
+
+	public List<TradeEvent> getEvents() {
+		return events;
+	}
+
+	public void setEvents(List<TradeEvent> events) {
+		this.events = events;
+	}
+
+	public long getLastSequence() {
+		return lastSequence;
+	}
+
+	public void setLastSequence(long lastSequence) {
+		this.lastSequence = lastSequence;
+	}
+
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+	public void setTruncated(boolean truncated) {
+		this.truncated = truncated;
+	}
+
+	@Override
+	public String toString() {
+		return "TradeEventPage [events=" + (null == events ? 0 : events.size()) + ", lastSequence=" + lastSequence
+				+ ", truncated=" + truncated + "]";
+	}
+
+}
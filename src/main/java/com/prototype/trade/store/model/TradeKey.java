@@ -0,0 +1,29 @@
+package com.prototype.trade.store.model;
+
+/**
+ * Packs the business key (tradeId, tradeVersion) into a single primitive long so
+ * it can be used as a map key without allocating a composite object.
+ */
+public interface TradeKey {
+
+	public static long of(int tradeId, int tradeVersion) {
+
+		return ((long) tradeId << 32) | (tradeVersion & 0xFFFFFFFFL);
+	}
+
+	public static long of(Trade trade) {
+
+		return of(trade.getTradeId(), trade.getTradeVersion());
+	}
+
+	public static int tradeId(long key) {
+
+		return (int) (key >>> 32);
+	}
+
+	public static int tradeVersion(long key) {
+
+		return (int) key;
+	}
+
+}
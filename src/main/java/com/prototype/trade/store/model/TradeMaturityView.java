@@ -0,0 +1,18 @@
+package com.prototype.trade.store.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Narrow read of a trade used by expiry, avoids hydrating full entities.
+ */
+public interface TradeMaturityView {
+
+	Integer getId();
+
+	Integer getTradeId();
+
+	Integer getTradeVersion();
+
+	LocalDateTime getMaturityDate();
+
+}
@@ -0,0 +1,46 @@
+package com.prototype.trade.store.model;
+
+import java.io.Serializable;
+import java.util.List;
+
+public class TradePage implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private List<Trade> trades;
+
+	// null on the last page
+	private String nextCursor;
+
+	public TradePage() {
+
+	}
+
+	public TradePage(List<Trade> trades, String nextCursor) {
+		super();
+		this.trades = trades;
+		this.nextCursor = nextCursor;
+	}
+
+	public List<Trade> getTrades() {
+		return trades;
+	}
+
+	public void setTrades(List<Trade> trades) {
+		this.trades = trades;
+	}
+
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	public void setNextCursor(String nextCursor) {
+		this.nextCursor = nextCursor;
+	}
+
+	@Override
+	public String toString() {
+		return "TradePage [trades=" + (null == trades ? 0 : trades.size()) + ", nextCursor=" + nextCursor + "]";
+	}
+
+}
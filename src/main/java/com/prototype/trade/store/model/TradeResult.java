@@ -0,0 +1,81 @@
+package com.prototype.trade.store.model;
+
+import java.io.Serializable;
+
+public class TradeResult implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	public enum Status {
+		ACCEPTED, UPDATED, REJECTED
+	}
+
+	private Integer tradeId;
+
+	private Integer tradeVersion;
+
+	private Status status;
+
+	private String message;
+
+	public TradeResult() {
+
+	}
+
+	public TradeResult(Integer tradeId, Integer tradeVersion, Status status, String message) {
+		super();
+		this.tradeId = tradeId;
+		this.tradeVersion = tradeVersion;
+		this.status = status;
+		this.message = message;
+	}
+
+	public Integer getTradeId() {
+		return tradeId;
+	}
+
+	public void setTradeId(Integer tradeId) {
+		this.tradeId = tradeId;
+	}
+
+	public Integer getTradeVersion() {
+		return tradeVersion;
+	}
+
+	public void setTradeVersion(Integer tradeVersion) {
+		this.tradeVersion = tradeVersion;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public void setStatus(Status status) {
+		this.status = status;
+	}
+
+	public String getMessage() {
+
+		// accepted & updated results carry the default message, built only when read
+		if (null == message && null != status && Status.REJECTED != status) {
+			message = successMessage(tradeId, tradeVersion);
+		}
+		return message;
+	}
+
+	public void setMessage(String message) {
+		this.message = message;
+	}
+
+	public static String successMessage(Integer tradeId, Integer tradeVersion) {
+
+		return "Successfully processed & saved tradeId=" + tradeId + ", tradeVersion=" + tradeVersion;
+	}
+
+	@Override
+	public String toString() {
+		return "TradeResult [tradeId=" + tradeId + ", tradeVersion=" + tradeVersion + ", status=" + status
+				+ ", message=" + getMessage() + "]";
+	}
+
+}
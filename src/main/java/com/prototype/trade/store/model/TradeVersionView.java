@@ -0,0 +1,12 @@
+package com.prototype.trade.store.model;
+
+/**
+ * Latest-version projection of a trade, served from the (TRADE_ID, TRADE_VERSION) index.
+ */
+public interface TradeVersionView {
+
+	Integer getTradeId();
+
+	Integer getTradeVersion();
+
+}
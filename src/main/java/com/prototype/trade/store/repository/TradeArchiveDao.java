@@ -0,0 +1,32 @@
+package com.prototype.trade.store.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import com.prototype.trade.store.model.Trade;
+
+/**
+ * TRADE_ARCHIVE holds expired trades moved out of TRADE once they are past the
+ * retention window, so the hot table & its indexes only hold recent trades.
+ */
+public interface TradeArchiveDao {
+
+	/**
+	 * Ids of up to limit expired trades matured before the cutoff. With
+	 * keepLatest the highest version of every tradeId is never returned, version
+	 * checks over TRADE then still see it.
+	 */
+	List<Integer> findArchivableIds(LocalDateTime cutoff, boolean keepLatest, int limit);
+
+	/**
+	 * Copies the trades to TRADE_ARCHIVE and deletes them from TRADE, must run
+	 * in a transaction.
+	 *
+	 * @return number of archived trades
+	 */
+	int archiveTrades(List<Integer> ids);
+
+	Optional<Trade> findArchivedTrade(Integer tradeId, Integer tradeVersion);
+
+}
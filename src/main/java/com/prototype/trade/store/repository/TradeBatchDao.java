@@ -0,0 +1,47 @@
+package com.prototype.trade.store.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Set;
+import java.util.function.LongConsumer;
+
+import com.prototype.trade.store.model.Trade;
+
+/**
+ * Set-oriented writes for bulk ingestion, executed as JDBC batches instead of
+ * one JPA flush per trade.
+ */
+public interface TradeBatchDao {
+
+	/**
+	 * Columns a received trade may change on its stored (tradeId, tradeVersion).
+	 */
+	enum Column {
+		COUNTERPARTY_ID, BOOK_ID, MATURITY_DATE, CREATED_DATE, EXPIRED
+	}
+
+	int[] insertTrades(Collection<Trade> trades);
+
+	int[] updateTrades(Collection<Trade> trades);
+
+	/**
+	 * Writes only the given columns of the stored (tradeId, tradeVersion) from the
+	 * trade and bumps its version, provided the version is still expectedVersion.
+	 *
+	 * @return 1 if updated, 0 if the row was changed meanwhile or is gone
+	 */
+	int updateTradeColumns(Trade trade, int expectedVersion, Set<Column> columns);
+
+	/**
+	 * Expires the given (tradeId, tradeVersion) keys, see {@link com.prototype.trade.store.model.TradeKey}.
+	 * Only still active trades matured before the cutoff are touched.
+	 */
+	int expireTrades(Collection<Long> tradeKeys, LocalDateTime cutoff);
+
+	/**
+	 * As {@link #expireTrades(Collection, LocalDateTime)}, the key of every trade
+	 * actually expired is passed to expiredKeys.
+	 */
+	int expireTrades(Collection<Long> tradeKeys, LocalDateTime cutoff, LongConsumer expiredKeys);
+
+}
@@ -1,18 +1,28 @@
 package com.prototype.trade.store.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.prototype.trade.store.model.Trade;
+import com.prototype.trade.store.model.TradeMaturityView;
+import com.prototype.trade.store.model.TradeVersionView;
 
 @Repository
-public interface TradeDao extends JpaRepository<Trade, Integer> {
+public interface TradeDao extends JpaRepository<Trade, Integer>, TradeStoreDao<Trade> {
 
 	//@Query("select t1 from Trade t1 where t1.tradeId = :tradeId and t1.tradeVersion=(select max(t2.tradeVersion) from Trade t2)")
 	//Optional<Trade> findMaxVersionTrade(@Param("tradeId") Integer tradeId);
@@ -20,9 +30,21 @@ public interface TradeDao extends JpaRepository<Trade, Integer> {
 	@Query("select t from Trade t where t.tradeId = :tradeId")
 	Optional<List<Trade>> findTradesByTradeId(@Param("tradeId") Integer tradeId);
 
+	@Query("select max(t.tradeVersion) from Trade t where t.tradeId = :tradeId")
+	Optional<Integer> findLatestTradeVersion(@Param("tradeId") Integer tradeId);
+
+	@Query("select t.tradeId as tradeId, max(t.tradeVersion) as tradeVersion from Trade t "
+			+ "where t.tradeId in :tradeIds group by t.tradeId")
+	List<TradeVersionView> findLatestTradeVersions(@Param("tradeIds") Collection<Integer> tradeIds);
+
 	@Query("select t from Trade t where t.expired=false")
 	Optional<List<Trade>> findAllActiveTrades();
 
+	// a range of IX_TRADE_ACTIVE_MATURITY, only the trades due are read whatever the number of active ones
+	@Query("select t from Trade t where t.expired=false and t.maturityDate < :cutoff")
+	Optional<List<Trade>> findActiveTradesMaturedBefore(@Param("cutoff") LocalDateTime cutoff);
+
+	@Transactional
 	@Modifying
 	@Query("update Trade t set t.expired=true where t.tradeId = :tradeId and t.tradeVersion = :tradeVersion")
 	void expireTrade(@Param("tradeId") Integer tradeId, @Param("tradeVersion") Integer tradeVersion);
@@ -30,4 +52,60 @@ public interface TradeDao extends JpaRepository<Trade, Integer> {
 	@Query("select t from Trade t where t.tradeId = :tradeId and t.tradeVersion = :tradeVersion")
 	Optional<Trade> findTradeByTradeIdTradeVersion(@Param("tradeId") Integer tradeId, @Param("tradeVersion") Integer tradeVersion);
 
+	@Query("select t.id as id, t.tradeId as tradeId, t.tradeVersion as tradeVersion, t.maturityDate as maturityDate "
+			+ "from Trade t where t.expired=false and t.maturityDate < :cutoff order by t.id")
+	List<TradeMaturityView> findMaturedActiveTrades(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+	@Query("select t.id as id, t.tradeId as tradeId, t.tradeVersion as tradeVersion, t.maturityDate as maturityDate "
+			+ "from Trade t where t.expired=false and t.id > :afterId order by t.id")
+	List<TradeMaturityView> findActiveTradeMaturities(@Param("afterId") Integer afterId, Pageable pageable);
+
+	@Modifying
+	@Query("update Trade t set t.expired=true where t.id in :ids and t.expired=false")
+	int expireTradesByIds(@Param("ids") Collection<Integer> ids);
+
+	/**
+	 * Keyset page in (tradeId, tradeVersion) order after the given key, seeks on
+	 * UX_TRADE_ID_VERSION so a deep page costs the same as the first one. Null
+	 * filters match any value, the maturity range is [from, to).
+	 */
+	@Query("select t from Trade t where t.tradeId >= :afterTradeId "
+			+ "and (t.tradeId > :afterTradeId or t.tradeVersion > :afterTradeVersion) "
+			+ "and (:expired is null or t.expired = :expired) "
+			+ "and (:maturityFrom is null or t.maturityDate >= :maturityFrom) "
+			+ "and (:maturityTo is null or t.maturityDate < :maturityTo) order by t.tradeId, t.tradeVersion")
+	List<Trade> findTradesAfterKey(@Param("afterTradeId") Integer afterTradeId,
+			@Param("afterTradeVersion") Integer afterTradeVersion, @Param("expired") Boolean expired,
+			@Param("maturityFrom") LocalDateTime maturityFrom, @Param("maturityTo") LocalDateTime maturityTo,
+			Pageable pageable);
+
+	@Query("select min(t.id) from Trade t")
+	Optional<Integer> findMinId();
+
+	@Query("select max(t.id) from Trade t")
+	Optional<Integer> findMaxId();
+
+	// one range of the partitioned expiry sweep, seeks the primary key
+	@Modifying
+	@Query("update Trade t set t.expired=true where t.id >= :fromId and t.id < :toId and t.expired=false "
+			+ "and t.maturityDate < :cutoff")
+	int expireMaturedTradesInRange(@Param("fromId") Integer fromId, @Param("toId") Integer toId,
+			@Param("cutoff") LocalDateTime cutoff);
+
+	// a page of one range of the partitioned expiry sweep when its expiries are published, afterId < id < toId
+	@Query("select t.id as id, t.tradeId as tradeId, t.tradeVersion as tradeVersion, t.maturityDate as maturityDate "
+			+ "from Trade t where t.id > :afterId and t.id < :toId and t.expired=false and t.maturityDate < :cutoff "
+			+ "order by t.id")
+	List<TradeMaturityView> findMaturedActiveTradesInRange(@Param("afterId") Integer afterId,
+			@Param("toId") Integer toId, @Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+	// forward-only cursor, consume within a transaction and close
+	@QueryHints({ @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"),
+			@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true") })
+	@Query("select t from Trade t where (:bookId is null or t.bookId = :bookId) "
+			+ "and (:counterpartyId is null or t.counterpartyId = :counterpartyId) "
+			+ "and (:activeOnly = false or t.expired = false) order by t.id")
+	Stream<Trade> streamTrades(@Param("bookId") String bookId, @Param("counterpartyId") String counterpartyId,
+			@Param("activeOnly") boolean activeOnly);
+
 }
@@ -0,0 +1,39 @@
+package com.prototype.trade.store.repository;
+
+import java.util.Properties;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+/**
+ * Pooled-lo sequence generator for Trade ids: every SEQ_TRADE_STORE call
+ * reserves a block of trade.id.block-size ids which are then handed out from
+ * memory. Shares the block semantics with {@link com.prototype.trade.store.repository.impl.TradeIdAllocator}
+ * used by the JDBC batch writer, so both can allocate from the same sequence.
+ */
+public class TradeIdGenerator extends SequenceStyleGenerator {
+
+	public static final String SEQUENCE_NAME = "SEQ_TRADE_STORE";
+
+	public static final String BLOCK_SIZE_SETTING = "trade.id.block-size";
+
+	public static final int DEFAULT_BLOCK_SIZE = 50;
+
+	@Override
+	public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+
+		Object blockSize = serviceRegistry.getService(ConfigurationService.class).getSettings()
+				.get(BLOCK_SIZE_SETTING);
+
+		params.setProperty(SEQUENCE_PARAM, SEQUENCE_NAME);
+		params.setProperty(INCREMENT_PARAM, null == blockSize ? String.valueOf(DEFAULT_BLOCK_SIZE) : blockSize.toString());
+		params.setProperty(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+
+		super.configure(type, params, serviceRegistry);
+	}
+
+}
@@ -0,0 +1,32 @@
+package com.prototype.trade.store.repository;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+import com.prototype.trade.store.model.Trade;
+
+/**
+ * Read model of the latest version per tradeId (TRADE_LATEST), maintained in
+ * the transaction that inserts a new version. Older versions stay in TRADE.
+ */
+public interface TradeLatestDao {
+
+	Optional<Integer> findLatestVersion(Integer tradeId);
+
+	/**
+	 * @return latest version per tradeId, tradeIds without trades are absent
+	 */
+	Map<Integer, Integer> findLatestVersions(Collection<Integer> tradeIds);
+
+	Optional<Trade> findLatestTrade(Integer tradeId);
+
+	/**
+	 * Points the tradeId at the given, already inserted, version. Callers only
+	 * pass versions higher than the stored one.
+	 */
+	void saveLatest(Trade trade);
+
+	int[] saveLatest(Collection<Trade> trades);
+
+}
@@ -0,0 +1,59 @@
+package com.prototype.trade.store.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Pageable;
+
+import com.prototype.trade.store.model.Trade;
+import com.prototype.trade.store.model.TradeMaturityView;
+import com.prototype.trade.store.model.TradeVersionView;
+
+/**
+ * The trade reads & writes the services depend on, implemented by the JPA
+ * {@link TradeDao} and by the columnar engine. Typed on the entity like
+ * {@link org.springframework.data.repository.CrudRepository} so TradeDao
+ * inherits saveAndFlush from JpaRepository unchanged.
+ */
+public interface TradeStoreDao<T> {
+
+	<S extends T> S saveAndFlush(S entity);
+
+	Optional<List<Trade>> findTradesByTradeId(Integer tradeId);
+
+	Optional<Integer> findLatestTradeVersion(Integer tradeId);
+
+	List<TradeVersionView> findLatestTradeVersions(Collection<Integer> tradeIds);
+
+	Optional<List<Trade>> findAllActiveTrades();
+
+	Optional<List<Trade>> findActiveTradesMaturedBefore(LocalDateTime cutoff);
+
+	void expireTrade(Integer tradeId, Integer tradeVersion);
+
+	Optional<Trade> findTradeByTradeIdTradeVersion(Integer tradeId, Integer tradeVersion);
+
+	List<TradeMaturityView> findMaturedActiveTrades(LocalDateTime cutoff, Pageable pageable);
+
+	List<TradeMaturityView> findActiveTradeMaturities(Integer afterId, Pageable pageable);
+
+	int expireTradesByIds(Collection<Integer> ids);
+
+	List<Trade> findTradesAfterKey(Integer afterTradeId, Integer afterTradeVersion, Boolean expired,
+			LocalDateTime maturityFrom, LocalDateTime maturityTo, Pageable pageable);
+
+	Optional<Integer> findMinId();
+
+	Optional<Integer> findMaxId();
+
+	int expireMaturedTradesInRange(Integer fromId, Integer toId, LocalDateTime cutoff);
+
+	List<TradeMaturityView> findMaturedActiveTradesInRange(Integer afterId, Integer toId, LocalDateTime cutoff,
+			Pageable pageable);
+
+	Stream<Trade> streamTrades(String bookId, String counterpartyId, boolean activeOnly);
+
+}
@@ -0,0 +1,218 @@
+package com.prototype.trade.store.repository.columnar;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.StringUtils;
+
+import com.prototype.trade.store.model.Trade;
+import com.prototype.trade.store.model.TradeMaturityView;
+import com.prototype.trade.store.model.TradeVersionView;
+import com.prototype.trade.store.repository.TradeBatchDao;
+import com.prototype.trade.store.repository.TradeStoreDao;
+
+/**
+ * {@link TradeStoreDao} & {@link TradeBatchDao} served by the {@link ColumnarTradeStore}
+ * instead of the database, selected with trade.store.engine=columnar.
+ * <p>
+ * Writes are applied to the store (and its log) when called, they take no part
+ * in the Spring transaction: a rollback of TradeService leaves the rows it had
+ * already written, e.g. the ones of a failed batch before the failing trade.
+ */
+@Primary
+@Repository
+@ConditionalOnProperty(name = "trade.store.engine", havingValue = "columnar")
+public class ColumnarTradeDao implements TradeStoreDao<Trade>, TradeBatchDao {
+
+	private ColumnarTradeStore store;
+
+	private int initialCapacity = 1 << 16;
+
+	private String logFile = "";
+
+	private boolean fsync = true;
+
+	@Value("${trade.store.columnar.initial-capacity:65536}")
+	public void setInitialCapacity(int initialCapacity) {
+		this.initialCapacity = initialCapacity;
+	}
+
+	@Value("${trade.store.columnar.log-file:}")
+	public void setLogFile(String logFile) {
+		this.logFile = logFile;
+	}
+
+	@Value("${trade.store.columnar.fsync:true}")
+	public void setFsync(boolean fsync) {
+		this.fsync = fsync;
+	}
+
+	@PostConstruct
+	public void open() throws IOException {
+
+		store = new ColumnarTradeStore(initialCapacity, StringUtils.hasText(logFile) ? Paths.get(logFile) : null, fsync);
+		store.open();
+	}
+
+	@PreDestroy
+	public void close() throws IOException {
+		store.close();
+	}
+
+	@Override
+	public Optional<List<Trade>> findTradesByTradeId(Integer tradeId) {
+		return Optional.of(store.findByTradeId(tradeId));
+	}
+
+	@Override
+	public Optional<Integer> findLatestTradeVersion(Integer tradeId) {
+
+		int latestVersion = store.latestVersion(tradeId);
+		return ColumnarTradeStore.NO_VERSION == latestVersion ? Optional.empty() : Optional.of(latestVersion);
+	}
+
+	@Override
+	public List<TradeVersionView> findLatestTradeVersions(Collection<Integer> tradeIds) {
+
+		List<TradeVersionView> views = new ArrayList<>(tradeIds.size());
+		for (Integer tradeId : tradeIds) {
+
+			int latestVersion = store.latestVersion(tradeId);
+			if (ColumnarTradeStore.NO_VERSION != latestVersion) {
+				views.add(new ColumnarTradeView(null, tradeId, latestVersion, null));
+			}
+		}
+		return views;
+	}
+
+	@Override
+	public Optional<List<Trade>> findAllActiveTrades() {
+		return Optional.of(store.findAll(true));
+	}
+
+	@Override
+	public Optional<List<Trade>> findActiveTradesMaturedBefore(LocalDateTime cutoff) {
+		return Optional.of(store.findMaturedActiveTrades(cutoff));
+	}
+
+	@Override
+	public void expireTrade(Integer tradeId, Integer tradeVersion) {
+		store.expire(tradeId, tradeVersion);
+	}
+
+	@Override
+	public Optional<Trade> findTradeByTradeIdTradeVersion(Integer tradeId, Integer tradeVersion) {
+		return Optional.ofNullable(store.find(tradeId, tradeVersion));
+	}
+
+	@Override
+	public List<TradeMaturityView> findMaturedActiveTrades(LocalDateTime cutoff, Pageable pageable) {
+		return store.findMaturedActive(cutoff, pageable.getPageSize());
+	}
+
+	@Override
+	public List<TradeMaturityView> findActiveTradeMaturities(Integer afterId, Pageable pageable) {
+		return store.findActiveAfterId(afterId, pageable.getPageSize());
+	}
+
+	@Override
+	public Optional<Integer> findMinId() {
+
+		int[] range = store.idRange();
+		return null == range ? Optional.empty() : Optional.of(range[0]);
+	}
+
+	@Override
+	public Optional<Integer> findMaxId() {
+
+		int[] range = store.idRange();
+		return null == range ? Optional.empty() : Optional.of(range[1]);
+	}
+
+	@Override
+	public int expireMaturedTradesInRange(Integer fromId, Integer toId, LocalDateTime cutoff) {
+		return store.expireMaturedInRange(fromId, toId, cutoff);
+	}
+
+	@Override
+	public List<TradeMaturityView> findMaturedActiveTradesInRange(Integer afterId, Integer toId,
+			LocalDateTime cutoff, Pageable pageable) {
+		return store.findMaturedActiveInRange(afterId, toId, cutoff, pageable.getPageSize());
+	}
+
+	@Override
+	public List<Trade> findTradesAfterKey(Integer afterTradeId, Integer afterTradeVersion, Boolean expired,
+			LocalDateTime maturityFrom, LocalDateTime maturityTo, Pageable pageable) {
+		return store.findAfterKey(afterTradeId, afterTradeVersion, expired, maturityFrom, maturityTo,
+				pageable.getPageSize());
+	}
+
+	@Override
+	public Stream<Trade> streamTrades(String bookId, String counterpartyId, boolean activeOnly) {
+
+		return Arrays.stream(store.findIds(bookId, counterpartyId, activeOnly)).mapToObj(store::findById);
+	}
+
+	@Override
+	public int expireTradesByIds(Collection<Integer> ids) {
+		return store.expireByIds(ids);
+	}
+
+	@Override
+	public int[] insertTrades(Collection<Trade> trades) {
+
+		trades.forEach(t -> t.setId(null));
+		store.saveAll(trades);
+
+		int[] counts = new int[trades.size()];
+		Arrays.fill(counts, 1);
+		return counts;
+	}
+
+	@Override
+	public int[] updateTrades(Collection<Trade> trades) {
+		return store.updateByKey(trades);
+	}
+
+	// whole rows are rewritten in memory, only the version check matters
+	@Override
+	public int updateTradeColumns(Trade trade, int expectedVersion, Set<Column> columns) {
+		return store.updateByKey(trade, expectedVersion);
+	}
+
+	@Override
+	public int expireTrades(Collection<Long> tradeKeys, LocalDateTime cutoff) {
+		return store.expireByKeys(tradeKeys, cutoff, null);
+	}
+
+	@Override
+	public int expireTrades(Collection<Long> tradeKeys, LocalDateTime cutoff, LongConsumer expiredKeys) {
+		return store.expireByKeys(tradeKeys, cutoff, expiredKeys);
+	}
+
+	// applied to the store at once, see the class comment
+	@Override
+	public <S extends Trade> S saveAndFlush(S entity) {
+
+		store.save(entity);
+		return entity;
+	}
+
+}
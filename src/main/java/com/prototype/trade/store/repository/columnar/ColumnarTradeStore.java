@@ -0,0 +1,894 @@
+package com.prototype.trade.store.repository.columnar;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+
+import com.prototype.trade.store.model.Trade;
+import com.prototype.trade.store.model.TradeKey;
+import com.prototype.trade.store.model.TradeMaturityView;
+
+/**
+ * Trades held column-wise in primitive arrays, one row per stored trade version.
+ * Book & counterparty ids are interned into dictionaries, maturity is kept as
+ * epoch day + second of day and the created date as epoch second (sub-second
+ * precision is dropped). Rows of a tradeId are chained from its latest row, ids
+ * ascend with the row index so an id is found by binary search.
+ *
+ * Every write is appended to the {@link TradeWriteAheadLog} (and synced) before
+ * it is applied in memory; the log is replayed on {@link #open()}.
+ */
+public class ColumnarTradeStore implements Closeable {
+
+	private static final Logger logger = LoggerFactory.getLogger(ColumnarTradeStore.class);
+
+	public static final int NO_VERSION = -1;
+
+	private static final int NO_ROW = IntIntHashMap.NO_VALUE;
+
+	private static final int NULL_INT = Integer.MIN_VALUE;
+
+	private static final long NULL_LONG = Long.MIN_VALUE;
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final TradeWriteAheadLog log;
+
+	private int size;
+
+	private int nextId = 1;
+
+	private int[] ids;
+
+	private int[] tradeIds;
+
+	private int[] tradeVersions;
+
+	private int[] counterpartyCodes;
+
+	private int[] bookCodes;
+
+	private int[] maturityDays;
+
+	private int[] maturitySeconds;
+
+	private long[] createdSeconds;
+
+	private int[] versions;
+
+	// previous row of the same tradeId, NO_ROW ends the chain
+	private int[] previousRows;
+
+	private final BitSet expired = new BitSet();
+
+	private final IntIntHashMap lastRowByTradeId;
+
+	private final StringDictionary counterparties = new StringDictionary();
+
+	private final StringDictionary books = new StringDictionary();
+
+	private final TradeWriteAheadLog.Replay replay = new TradeWriteAheadLog.Replay() {
+
+		@Override
+		public void upsert(Trade trade) {
+
+			int row = rowOf(trade.getId());
+			if (NO_ROW == row) {
+				append(trade);
+			} else {
+				write(row, trade);
+			}
+		}
+
+		@Override
+		public void expire(int id) {
+
+			int row = rowOf(id);
+			if (NO_ROW != row) {
+				expired.set(row);
+			}
+		}
+	};
+
+	/**
+	 * @param logPath write-ahead log file, null keeps the store in memory only
+	 */
+	public ColumnarTradeStore(int initialCapacity, Path logPath, boolean fsync) {
+
+		int capacity = Math.max(16, initialCapacity);
+		ids = new int[capacity];
+		tradeIds = new int[capacity];
+		tradeVersions = new int[capacity];
+		counterpartyCodes = new int[capacity];
+		bookCodes = new int[capacity];
+		maturityDays = new int[capacity];
+		maturitySeconds = new int[capacity];
+		createdSeconds = new long[capacity];
+		versions = new int[capacity];
+		previousRows = new int[capacity];
+		lastRowByTradeId = new IntIntHashMap(capacity);
+		log = null == logPath ? null : new TradeWriteAheadLog(logPath, fsync);
+	}
+
+	/**
+	 * Replays the log, a log that mostly holds superseded records is compacted
+	 * into a snapshot of the live rows.
+	 */
+	public void open() throws IOException {
+
+		if (null == log) {
+			return;
+		}
+
+		lock.writeLock().lock();
+		try {
+
+			int records = log.open(replay);
+			logger.info("Columnar trade store replayed {} log records into {} trades", records, size);
+
+			if (records > 2 * size) {
+				log.rewrite(liveTrades());
+			}
+
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+
+		if (null == log) {
+			return;
+		}
+
+		lock.writeLock().lock();
+		try {
+			log.close();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Inserts the trade under a new id, or overwrites the row of its id.
+	 */
+	public Trade save(Trade trade) {
+
+		saveAll(Arrays.asList(trade));
+		return trade;
+	}
+
+	public void saveAll(Collection<? extends Trade> trades) {
+
+		lock.writeLock().lock();
+		try {
+
+			int[] rows = new int[trades.size()];
+			int i = 0;
+			for (Trade t : trades) {
+				rows[i++] = resolveRow(t);
+			}
+
+			logged(() -> {
+				for (Trade t : trades) {
+					log.appendUpsert(t);
+				}
+			});
+
+			i = 0;
+			for (Trade t : trades) {
+
+				int row = rows[i++];
+				if (NO_ROW == row) {
+					append(t);
+				} else {
+					write(row, t);
+				}
+			}
+
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Overwrites the stored (tradeId, tradeVersion) rows and bumps their version.
+	 *
+	 * @return 1 per updated trade, 0 if it is not stored
+	 */
+	public int[] updateByKey(Collection<Trade> trades) {
+
+		lock.writeLock().lock();
+		try {
+
+			int[] counts = new int[trades.size()];
+			List<Trade> updates = new ArrayList<>(trades.size());
+			List<Integer> rows = new ArrayList<>(trades.size());
+			int i = 0;
+
+			for (Trade t : trades) {
+
+				int row = findRow(t.getTradeId(), t.getTradeVersion());
+				if (NO_ROW != row) {
+
+					Trade update = new Trade(t.getTradeId(), t.getTradeVersion(), t.getCounterpartyId(), t.getBookId(),
+							t.getCreatedDate(), t.getMaturityDate(), t.getExpired(),
+							NULL_INT == versions[row] ? 1 : versions[row] + 1);
+					update.setId(ids[row]);
+					updates.add(update);
+					rows.add(row);
+					counts[i] = 1;
+				}
+				i++;
+			}
+
+			logged(() -> {
+				for (Trade t : updates) {
+					log.appendUpsert(t);
+				}
+			});
+
+			for (int u = 0; u < updates.size(); u++) {
+				write(rows.get(u), updates.get(u));
+			}
+			return counts;
+
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Overwrites the stored (tradeId, tradeVersion) row and bumps its version,
+	 * provided the version is still expectedVersion.
+	 *
+	 * @return 1 if updated, 0 if the version moved on or it is not stored
+	 */
+	public int updateByKey(Trade t, int expectedVersion) {
+
+		lock.writeLock().lock();
+		try {
+
+			int row = findRow(t.getTradeId(), t.getTradeVersion());
+			int version = NO_ROW == row ? NULL_INT : NULL_INT == versions[row] ? 1 : versions[row];
+			if (NO_ROW == row || version != expectedVersion) {
+				return 0;
+			}
+
+			Trade update = new Trade(t.getTradeId(), t.getTradeVersion(), t.getCounterpartyId(), t.getBookId(),
+					t.getCreatedDate(), t.getMaturityDate(), t.getExpired(), version + 1);
+			update.setId(ids[row]);
+
+			logged(() -> log.appendUpsert(update));
+			write(row, update);
+			return 1;
+
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public int expire(int tradeId, int tradeVersion) {
+
+		lock.writeLock().lock();
+		try {
+
+			int row = findRow(tradeId, tradeVersion);
+			return NO_ROW == row ? 0 : expireRows(new int[] { row }, 1);
+
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Expires the still active rows of the given ids.
+	 */
+	public int expireByIds(Collection<Integer> tradeRowIds) {
+
+		lock.writeLock().lock();
+		try {
+
+			int[] rows = new int[tradeRowIds.size()];
+			int count = 0;
+			for (Integer id : tradeRowIds) {
+
+				int row = rowOf(id);
+				if (NO_ROW != row && !expired.get(row)) {
+					rows[count++] = row;
+				}
+			}
+			return expireRows(rows, count);
+
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Expires the still active (tradeId, tradeVersion) keys matured before the
+	 * cutoff, see {@link TradeKey}. The expired keys are passed to expiredKeys
+	 * unless it is null.
+	 */
+	public int expireByKeys(Collection<Long> tradeKeys, LocalDateTime cutoff, LongConsumer expiredKeys) {
+
+		lock.writeLock().lock();
+		try {
+
+			int[] rows = new int[tradeKeys.size()];
+			int count = 0;
+			for (Long key : tradeKeys) {
+
+				int row = findRow(TradeKey.tradeId(key), TradeKey.tradeVersion(key));
+				if (NO_ROW != row && !expired.get(row) && maturesBefore(row, cutoff)) {
+					rows[count++] = row;
+				}
+			}
+
+			int expiredCount = expireRows(rows, count);
+			for (int i = 0; i < count && null != expiredKeys; i++) {
+				expiredKeys.accept(TradeKey.of(tradeIds[rows[i]], tradeVersions[rows[i]]));
+			}
+			return expiredCount;
+
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Expires the active rows with fromId <= id < toId matured before the cutoff.
+	 */
+	public int expireMaturedInRange(int fromId, int toId, LocalDateTime cutoff) {
+
+		lock.writeLock().lock();
+		try {
+
+			int from = Arrays.binarySearch(ids, 0, size, fromId);
+			if (from < 0) {
+				from = -from - 1;
+			}
+
+			int[] rows = new int[16];
+			int count = 0;
+			for (int row = from; row < size && ids[row] < toId; row++) {
+
+				if (expired.get(row) || !maturesBefore(row, cutoff)) {
+					continue;
+				}
+				if (count == rows.length) {
+					rows = Arrays.copyOf(rows, count << 1);
+				}
+				rows[count++] = row;
+			}
+			return expireRows(rows, count);
+
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public Trade findById(int id) {
+
+		lock.readLock().lock();
+		try {
+
+			int row = rowOf(id);
+			return NO_ROW == row ? null : materialize(row);
+
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public Trade find(int tradeId, int tradeVersion) {
+
+		lock.readLock().lock();
+		try {
+
+			int row = findRow(tradeId, tradeVersion);
+			return NO_ROW == row ? null : materialize(row);
+
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public List<Trade> findByTradeId(int tradeId) {
+
+		lock.readLock().lock();
+		try {
+
+			List<Trade> trades = new ArrayList<>();
+			for (int row = lastRowByTradeId.get(tradeId); NO_ROW != row; row = previousRows[row]) {
+				trades.add(materialize(row));
+			}
+			return trades;
+
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return highest stored version of the trade or {@link #NO_VERSION}
+	 */
+	public int latestVersion(int tradeId) {
+
+		lock.readLock().lock();
+		try {
+
+			int latestVersion = NO_VERSION;
+			for (int row = lastRowByTradeId.get(tradeId); NO_ROW != row; row = previousRows[row]) {
+				latestVersion = Math.max(latestVersion, tradeVersions[row]);
+			}
+			return latestVersion;
+
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public List<Trade> findAll(boolean activeOnly) {
+
+		lock.readLock().lock();
+		try {
+
+			List<Trade> trades = new ArrayList<>();
+			for (int row = 0; row < size; row++) {
+				if (!(activeOnly && expired.get(row))) {
+					trades.add(materialize(row));
+				}
+			}
+			return trades;
+
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Up to limit trades after the (tradeId, tradeVersion) key in key order. Rows
+	 * are laid out by id, so a single pass keeps the smallest matching keys in a
+	 * bounded max-heap; the cost does not depend on how deep the page is. Null
+	 * filters match any value, the maturity range is [from, to).
+	 */
+	public List<Trade> findAfterKey(int afterTradeId, int afterTradeVersion, Boolean expiredOnly,
+			LocalDateTime maturityFrom, LocalDateTime maturityTo, int limit) {
+
+		lock.readLock().lock();
+		try {
+
+			long afterKey = sortKey(afterTradeId, afterTradeVersion);
+			long[] heapKeys = new long[Math.max(1, Math.min(limit, size))];
+			int[] heapRows = new int[heapKeys.length];
+			int count = 0;
+
+			for (int row = 0; row < size && limit > 0; row++) {
+
+				long key = sortKey(tradeIds[row], tradeVersions[row]);
+				if (key <= afterKey || (count == limit && key >= heapKeys[0])
+						|| (null != expiredOnly && expired.get(row) != expiredOnly)
+						|| (null != maturityFrom && (NULL_INT == maturityDays[row] || maturesBefore(row, maturityFrom)))
+						|| (null != maturityTo && !maturesBefore(row, maturityTo))) {
+					continue;
+				}
+
+				if (count < limit) {
+					siftUp(heapKeys, heapRows, count++, key, row);
+				} else {
+					siftDown(heapKeys, heapRows, count, key, row);
+				}
+			}
+
+			// drain the max-heap from the back to get ascending keys
+			Trade[] trades = new Trade[count];
+			for (int i = count - 1; i >= 0; i--) {
+
+				trades[i] = materialize(heapRows[0]);
+				if (i > 0) {
+					siftDown(heapKeys, heapRows, i, heapKeys[i], heapRows[i]);
+				}
+			}
+			return Arrays.asList(trades);
+
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Ids of the rows matching book & counterparty (null matches any), ascending.
+	 * Only the ids are collected so callers can materialize one trade at a time.
+	 */
+	public int[] findIds(String bookId, String counterpartyId, boolean activeOnly) {
+
+		lock.readLock().lock();
+		try {
+
+			int bookCode = null == bookId ? StringDictionary.NO_CODE : books.codeOf(bookId);
+			int counterpartyCode = null == counterpartyId ? StringDictionary.NO_CODE
+					: counterparties.codeOf(counterpartyId);
+			if ((null != bookId && StringDictionary.NO_CODE == bookCode)
+					|| (null != counterpartyId && StringDictionary.NO_CODE == counterpartyCode)) {
+				return new int[0];
+			}
+
+			int[] matches = new int[16];
+			int count = 0;
+			for (int row = 0; row < size; row++) {
+
+				if ((activeOnly && expired.get(row))
+						|| (null != bookId && bookCodes[row] != bookCode)
+						|| (null != counterpartyId && counterpartyCodes[row] != counterpartyCode)) {
+					continue;
+				}
+				if (count == matches.length) {
+					matches = Arrays.copyOf(matches, count << 1);
+				}
+				matches[count++] = ids[row];
+			}
+			return Arrays.copyOf(matches, count);
+
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return up to limit active rows matured before the cutoff, by id
+	 */
+	public List<TradeMaturityView> findMaturedActive(LocalDateTime cutoff, int limit) {
+
+		lock.readLock().lock();
+		try {
+
+			List<TradeMaturityView> views = new ArrayList<>();
+			for (int row = 0; row < size && views.size() < limit; row++) {
+				if (!expired.get(row) && maturesBefore(row, cutoff)) {
+					views.add(view(row));
+				}
+			}
+			return views;
+
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return up to limit active rows with afterId < id < toId matured before
+	 *         the cutoff, by id
+	 */
+	public List<TradeMaturityView> findMaturedActiveInRange(int afterId, int toId, LocalDateTime cutoff, int limit) {
+
+		lock.readLock().lock();
+		try {
+
+			int from = Arrays.binarySearch(ids, 0, size, afterId);
+			from = from < 0 ? -from - 1 : from + 1;
+
+			List<TradeMaturityView> views = new ArrayList<>();
+			for (int row = from; row < size && ids[row] < toId && views.size() < limit; row++) {
+				if (!expired.get(row) && maturesBefore(row, cutoff)) {
+					views.add(view(row));
+				}
+			}
+			return views;
+
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return active trades matured before the cutoff, only those rows are
+	 *         materialized
+	 */
+	public List<Trade> findMaturedActiveTrades(LocalDateTime cutoff) {
+
+		lock.readLock().lock();
+		try {
+
+			List<Trade> trades = new ArrayList<>();
+			for (int row = 0; row < size; row++) {
+				if (!expired.get(row) && maturesBefore(row, cutoff)) {
+					trades.add(materialize(row));
+				}
+			}
+			return trades;
+
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return up to limit active rows with an id above afterId, by id
+	 */
+	public List<TradeMaturityView> findActiveAfterId(int afterId, int limit) {
+
+		lock.readLock().lock();
+		try {
+
+			int from = Arrays.binarySearch(ids, 0, size, afterId);
+			from = from < 0 ? -from - 1 : from + 1;
+
+			List<TradeMaturityView> views = new ArrayList<>();
+			for (int row = from; row < size && views.size() < limit; row++) {
+				if (!expired.get(row)) {
+					views.add(view(row));
+				}
+			}
+			return views;
+
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return lowest & highest stored id, null when empty
+	 */
+	public int[] idRange() {
+
+		lock.readLock().lock();
+		try {
+			return 0 == size ? null : new int[] { ids[0], ids[size - 1] };
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public int count() {
+
+		lock.readLock().lock();
+		try {
+			return size;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private int resolveRow(Trade trade) {
+
+		if (null == trade.getTradeId() || null == trade.getTradeVersion()) {
+			throw new DataIntegrityViolationException("Trade without tradeId/tradeVersion cannot be stored");
+		}
+
+		int row = null == trade.getId() ? NO_ROW : rowOf(trade.getId());
+		if (NO_ROW != row) {
+
+			if (tradeIds[row] != trade.getTradeId() || tradeVersions[row] != trade.getTradeVersion()) {
+				throw new DataIntegrityViolationException("TradeId/tradeVersion of stored trade id=" + trade.getId()
+						+ " cannot change");
+			}
+			return row;
+		}
+
+		if (NO_ROW != findRow(trade.getTradeId(), trade.getTradeVersion())) {
+			throw new DuplicateKeyException("TradeId/tradeVersion=" + trade.getTradeId() + "/"
+					+ trade.getTradeVersion() + " is already stored");
+		}
+
+		// like the sequence, ids are never handed out twice and ascend with the rows
+		trade.setId(nextId++);
+		return NO_ROW;
+	}
+
+	private int rowOf(int id) {
+
+		int row = Arrays.binarySearch(ids, 0, size, id);
+		return row < 0 ? NO_ROW : row;
+	}
+
+	private int findRow(int tradeId, int tradeVersion) {
+
+		for (int row = lastRowByTradeId.get(tradeId); NO_ROW != row; row = previousRows[row]) {
+			if (tradeVersions[row] == tradeVersion) {
+				return row;
+			}
+		}
+		return NO_ROW;
+	}
+
+	private int expireRows(int[] rows, int count) {
+
+		if (0 == count) {
+			return 0;
+		}
+
+		logged(() -> {
+			for (int i = 0; i < count; i++) {
+				log.appendExpire(ids[rows[i]]);
+			}
+		});
+
+		for (int i = 0; i < count; i++) {
+			expired.set(rows[i]);
+		}
+		return count;
+	}
+
+	// orders like (tradeId, tradeVersion) compared as signed ints
+	private static long sortKey(int tradeId, int tradeVersion) {
+
+		return ((long) tradeId << 32) | ((tradeVersion ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+	}
+
+	private static void siftUp(long[] keys, int[] rows, int i, long key, int row) {
+
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (keys[parent] >= key) {
+				break;
+			}
+			keys[i] = keys[parent];
+			rows[i] = rows[parent];
+			i = parent;
+		}
+		keys[i] = key;
+		rows[i] = row;
+	}
+
+	// replaces the top of a max-heap of the given size
+	private static void siftDown(long[] keys, int[] rows, int size, long key, int row) {
+
+		int i = 0;
+		int half = size >>> 1;
+		while (i < half) {
+			int child = (i << 1) + 1;
+			if (child + 1 < size && keys[child + 1] > keys[child]) {
+				child++;
+			}
+			if (key >= keys[child]) {
+				break;
+			}
+			keys[i] = keys[child];
+			rows[i] = rows[child];
+			i = child;
+		}
+		keys[i] = key;
+		rows[i] = row;
+	}
+
+	private boolean maturesBefore(int row, LocalDateTime cutoff) {
+
+		if (NULL_INT == maturityDays[row]) {
+			return false;
+		}
+
+		long maturitySecond = maturityDays[row] * 86400L + maturitySeconds[row];
+		long cutoffSecond = cutoff.toEpochSecond(ZoneOffset.UTC);
+		return maturitySecond < cutoffSecond || (maturitySecond == cutoffSecond && cutoff.getNano() > 0);
+	}
+
+	private void append(Trade trade) {
+
+		if (size == ids.length) {
+			grow(size << 1);
+		}
+
+		int row = size++;
+		ids[row] = trade.getId();
+		tradeIds[row] = trade.getTradeId();
+		tradeVersions[row] = trade.getTradeVersion();
+		previousRows[row] = lastRowByTradeId.get(trade.getTradeId());
+		lastRowByTradeId.put(trade.getTradeId(), row);
+		nextId = Math.max(nextId, trade.getId() + 1);
+
+		write(row, trade);
+	}
+
+	private void write(int row, Trade trade) {
+
+		LocalDateTime maturityDate = trade.getMaturityDate();
+		LocalDateTime createdDate = trade.getCreatedDate();
+
+		counterpartyCodes[row] = counterparties.encode(trade.getCounterpartyId());
+		bookCodes[row] = books.encode(trade.getBookId());
+		maturityDays[row] = null == maturityDate ? NULL_INT : (int) maturityDate.toLocalDate().toEpochDay();
+		maturitySeconds[row] = null == maturityDate ? 0 : maturityDate.toLocalTime().toSecondOfDay();
+		createdSeconds[row] = null == createdDate ? NULL_LONG : createdDate.toEpochSecond(ZoneOffset.UTC);
+		versions[row] = null == trade.getVersion() ? NULL_INT : trade.getVersion();
+		expired.set(row, Boolean.TRUE.equals(trade.getExpired()));
+	}
+
+	private Trade materialize(int row) {
+
+		Trade trade = new Trade(tradeIds[row], tradeVersions[row], counterparties.decode(counterpartyCodes[row]),
+				books.decode(bookCodes[row]), createdDate(row), maturityDate(row), expired.get(row),
+				NULL_INT == versions[row] ? null : versions[row]);
+		trade.setId(ids[row]);
+		return trade;
+	}
+
+	private ColumnarTradeView view(int row) {
+
+		return new ColumnarTradeView(ids[row], tradeIds[row], tradeVersions[row], maturityDate(row));
+	}
+
+	private LocalDateTime maturityDate(int row) {
+
+		return NULL_INT == maturityDays[row] ? null
+				: LocalDateTime.of(LocalDate.ofEpochDay(maturityDays[row]), LocalTime.ofSecondOfDay(maturitySeconds[row]));
+	}
+
+	private LocalDateTime createdDate(int row) {
+
+		return NULL_LONG == createdSeconds[row] ? null
+				: LocalDateTime.ofEpochSecond(createdSeconds[row], 0, ZoneOffset.UTC);
+	}
+
+	private List<Trade> liveTrades() {
+
+		List<Trade> trades = new ArrayList<>(size);
+		for (int row = 0; row < size; row++) {
+			trades.add(materialize(row));
+		}
+		return trades;
+	}
+
+	private void grow(int capacity) {
+
+		ids = Arrays.copyOf(ids, capacity);
+		tradeIds = Arrays.copyOf(tradeIds, capacity);
+		tradeVersions = Arrays.copyOf(tradeVersions, capacity);
+		counterpartyCodes = Arrays.copyOf(counterpartyCodes, capacity);
+		bookCodes = Arrays.copyOf(bookCodes, capacity);
+		maturityDays = Arrays.copyOf(maturityDays, capacity);
+		maturitySeconds = Arrays.copyOf(maturitySeconds, capacity);
+		createdSeconds = Arrays.copyOf(createdSeconds, capacity);
+		versions = Arrays.copyOf(versions, capacity);
+		previousRows = Arrays.copyOf(previousRows, capacity);
+	}
+
+	private void logged(LogWrite write) {
+
+		if (null == log) {
+			return;
+		}
+
+		long position = 0;
+		try {
+
+			position = log.position();
+			write.run();
+			log.sync();
+
+		} catch (IOException e) {
+
+			try {
+				log.truncate(position);
+			} catch (IOException suppressed) {
+				e.addSuppressed(suppressed);
+			}
+			throw new DataAccessResourceFailureException("Could not append to the trade log", e);
+		}
+	}
+
+	@FunctionalInterface
+	private interface LogWrite {
+
+		void run() throws IOException;
+	}
+
+}
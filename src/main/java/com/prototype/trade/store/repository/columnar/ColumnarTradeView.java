@@ -0,0 +1,48 @@
+package com.prototype.trade.store.repository.columnar;
+
+import java.time.LocalDateTime;
+
+import com.prototype.trade.store.model.TradeMaturityView;
+import com.prototype.trade.store.model.TradeVersionView;
+
+/**
+ * Projection rows served by the columnar store.
+ */
+final class ColumnarTradeView implements TradeMaturityView, TradeVersionView {
+
+	private final Integer id;
+
+	private final Integer tradeId;
+
+	private final Integer tradeVersion;
+
+	private final LocalDateTime maturityDate;
+
+	ColumnarTradeView(Integer id, Integer tradeId, Integer tradeVersion, LocalDateTime maturityDate) {
+		this.id = id;
+		this.tradeId = tradeId;
+		this.tradeVersion = tradeVersion;
+		this.maturityDate = maturityDate;
+	}
+
+	@Override
+	public Integer getId() {
+		return id;
+	}
+
+	@Override
+	public Integer getTradeId() {
+		return tradeId;
+	}
+
+	@Override
+	public Integer getTradeVersion() {
+		return tradeVersion;
+	}
+
+	@Override
+	public LocalDateTime getMaturityDate() {
+		return maturityDate;
+	}
+
+}
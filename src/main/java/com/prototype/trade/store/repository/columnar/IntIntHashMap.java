@@ -0,0 +1,82 @@
+package com.prototype.trade.store.repository.columnar;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing int to int map with linear probing. Values must not be
+ * negative, {@link #NO_VALUE} marks a free slot and a missing key.
+ */
+final class IntIntHashMap {
+
+	static final int NO_VALUE = -1;
+
+	private int[] keys;
+
+	private int[] values;
+
+	private int size;
+
+	IntIntHashMap(int expectedSize) {
+
+		int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+		keys = new int[capacity];
+		values = new int[capacity];
+		Arrays.fill(values, NO_VALUE);
+	}
+
+	int get(int key) {
+
+		int mask = keys.length - 1;
+		for (int i = hash(key) & mask;; i = (i + 1) & mask) {
+			if (values[i] == NO_VALUE || keys[i] == key) {
+				return values[i];
+			}
+		}
+	}
+
+	void put(int key, int value) {
+
+		int mask = keys.length - 1;
+		int i = hash(key) & mask;
+		while (values[i] != NO_VALUE && keys[i] != key) {
+			i = (i + 1) & mask;
+		}
+		if (values[i] == NO_VALUE) {
+			size++;
+		}
+		keys[i] = key;
+		values[i] = value;
+
+		if (size * 2 > keys.length) {
+			rehash(keys.length << 1);
+		}
+	}
+
+	int size() {
+		return size;
+	}
+
+	private void rehash(int capacity) {
+
+		int[] oldKeys = keys;
+		int[] oldValues = values;
+
+		keys = new int[capacity];
+		values = new int[capacity];
+		Arrays.fill(values, NO_VALUE);
+		size = 0;
+
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldValues[i] != NO_VALUE) {
+				put(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+
+	private static int hash(int key) {
+
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+}
@@ -0,0 +1,61 @@
+package com.prototype.trade.store.repository.columnar;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Interns repeated strings (book & counterparty ids) into dense int codes, a row
+ * then only holds the code. Null is encoded as {@link #NULL_CODE}.
+ */
+final class StringDictionary {
+
+	static final int NULL_CODE = -1;
+
+	static final int NO_CODE = -2;
+
+	private final Map<String, Integer> codes = new HashMap<>();
+
+	private String[] values = new String[64];
+
+	int encode(String value) {
+
+		if (null == value) {
+			return NULL_CODE;
+		}
+
+		Integer code = codes.get(value);
+		if (null == code) {
+
+			code = codes.size();
+			if (code == values.length) {
+				values = Arrays.copyOf(values, code << 1);
+			}
+			values[code] = value;
+			codes.put(value, code);
+		}
+		return code;
+	}
+
+	/**
+	 * @return code of an already interned value, {@link #NO_CODE} if unknown
+	 */
+	int codeOf(String value) {
+
+		if (null == value) {
+			return NULL_CODE;
+		}
+		Integer code = codes.get(value);
+		return null == code ? NO_CODE : code;
+	}
+
+	String decode(int code) {
+
+		return NULL_CODE == code ? null : values[code];
+	}
+
+	int size() {
+		return codes.size();
+	}
+
+}
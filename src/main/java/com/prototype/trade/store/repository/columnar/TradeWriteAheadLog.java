@@ -0,0 +1,236 @@
+package com.prototype.trade.store.repository.columnar;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.prototype.trade.store.codec.TradeBinaryCodec;
+import com.prototype.trade.store.model.Trade;
+
+/**
+ * Append-only log of the columnar store mutations. A record is framed as
+ * [length][crc32][op][payload], replay stops at the first torn or corrupt record
+ * and cuts the file there. Appends are buffered by the OS until {@link #sync()},
+ * which callers invoke once per logical write before applying it in memory.
+ */
+final class TradeWriteAheadLog implements Closeable {
+
+	private static final Logger logger = LoggerFactory.getLogger(TradeWriteAheadLog.class);
+
+	static final byte UPSERT = 1;
+
+	static final byte EXPIRE = 2;
+
+	private static final int HEADER_SIZE = 8;
+
+	private static final int MAX_RECORD_SIZE = 1 << 20;
+
+	interface Replay {
+
+		void upsert(Trade trade);
+
+		void expire(int id);
+	}
+
+	private final Path path;
+
+	private final boolean fsync;
+
+	private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+
+	private final DataOutputStream bufferOut = new DataOutputStream(buffer);
+
+	private final CRC32 crc = new CRC32();
+
+	private FileChannel channel;
+
+	TradeWriteAheadLog(Path path, boolean fsync) {
+		this.path = path;
+		this.fsync = fsync;
+	}
+
+	/**
+	 * Replays all intact records and opens the log for appending.
+	 *
+	 * @return number of replayed records
+	 */
+	int open(Replay replay) throws IOException {
+
+		if (null != path.getParent()) {
+			Files.createDirectories(path.getParent());
+		}
+
+		long validLength = 0;
+		int records = 0;
+
+		if (Files.exists(path)) {
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+
+				byte[] payload;
+				while (null != (payload = readRecord(in))) {
+
+					apply(payload, replay);
+					validLength += HEADER_SIZE + payload.length;
+					records++;
+				}
+			}
+		}
+
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		if (channel.size() > validLength) {
+
+			logger.warn("Truncating torn tail of trade log {} at {} of {} bytes", path, validLength, channel.size());
+			channel.truncate(validLength);
+		}
+		channel.position(validLength);
+
+		return records;
+	}
+
+	void appendUpsert(Trade trade) throws IOException {
+
+		begin(UPSERT);
+		TradeBinaryCodec.write(bufferOut, trade);
+		write(channel);
+	}
+
+	void appendExpire(int id) throws IOException {
+
+		begin(EXPIRE);
+		bufferOut.writeInt(id);
+		write(channel);
+	}
+
+	long position() throws IOException {
+		return channel.position();
+	}
+
+	/**
+	 * Drops records appended after the given position, used to undo a write that
+	 * failed half way.
+	 */
+	void truncate(long position) throws IOException {
+
+		channel.truncate(position);
+		channel.position(position);
+	}
+
+	void sync() throws IOException {
+
+		if (fsync) {
+			channel.force(false);
+		}
+	}
+
+	/**
+	 * Replaces the log by a snapshot of the live trades, written aside and then
+	 * atomically moved over the old log.
+	 */
+	void rewrite(Iterable<Trade> trades) throws IOException {
+
+		Path snapshot = path.resolveSibling(path.getFileName() + ".snapshot");
+		try (FileChannel out = FileChannel.open(snapshot, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+
+			for (Trade trade : trades) {
+
+				begin(UPSERT);
+				TradeBinaryCodec.write(bufferOut, trade);
+				write(out);
+			}
+			out.force(true);
+		}
+
+		channel.close();
+		Files.move(snapshot, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		channel = FileChannel.open(path, StandardOpenOption.WRITE);
+		channel.position(channel.size());
+	}
+
+	@Override
+	public void close() throws IOException {
+
+		if (null != channel && channel.isOpen()) {
+
+			channel.force(false);
+			channel.close();
+		}
+	}
+
+	private void begin(byte op) throws IOException {
+
+		buffer.reset();
+		bufferOut.writeByte(op);
+	}
+
+	private void write(FileChannel out) throws IOException {
+
+		byte[] payload = buffer.toByteArray();
+		crc.reset();
+		crc.update(payload, 0, payload.length);
+
+		ByteBuffer frame = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+		frame.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+		while (frame.hasRemaining()) {
+			out.write(frame);
+		}
+	}
+
+	private static byte[] readRecord(DataInputStream in) throws IOException {
+
+		int length;
+		int checksum;
+		byte[] payload;
+
+		try {
+
+			length = in.readInt();
+			checksum = in.readInt();
+			if (length <= 0 || length > MAX_RECORD_SIZE) {
+				return null;
+			}
+			payload = new byte[length];
+			in.readFully(payload);
+
+		} catch (EOFException e) {
+			return null;
+		}
+
+		CRC32 recordCrc = new CRC32();
+		recordCrc.update(payload, 0, length);
+		return (int) recordCrc.getValue() == checksum ? payload : null;
+	}
+
+	private static void apply(byte[] payload, Replay replay) throws IOException {
+
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+		byte op = in.readByte();
+
+		switch (op) {
+		case UPSERT:
+			replay.upsert(TradeBinaryCodec.read(in));
+			break;
+		case EXPIRE:
+			replay.expire(in.readInt());
+			break;
+		default:
+			throw new IOException("Unknown trade log record type " + op);
+		}
+	}
+
+}
@@ -0,0 +1,57 @@
+package com.prototype.trade.store.repository.impl;
+
+import java.sql.Connection;
+import java.sql.Savepoint;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JDBC savepoints on the connection of the current transaction, Hibernate's
+ * JPA dialect does not support nested transactions. A failed JDBC write rolled
+ * back to its savepoint leaves the surrounding transaction usable.
+ */
+@Component
+@ConditionalOnExpression("'${trade.store.engine:jpa}' == 'jpa'")
+public class JdbcSavepoints {
+
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	public void setJdbcTemplate(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	/**
+	 * Runs the writes behind a savepoint, an exception rolls back to it and is
+	 * rethrown. Without a transaction the writes simply run.
+	 */
+	public void run(Runnable writes) {
+
+		if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+			writes.run();
+			return;
+		}
+
+		Savepoint savepoint = jdbcTemplate.execute((ConnectionCallback<Savepoint>) Connection::setSavepoint);
+		try {
+			writes.run();
+		} catch (RuntimeException exp) {
+
+			jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+				con.rollback(savepoint);
+				return null;
+			});
+			throw exp;
+		}
+		jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+			con.releaseSavepoint(savepoint);
+			return null;
+		});
+	}
+
+}
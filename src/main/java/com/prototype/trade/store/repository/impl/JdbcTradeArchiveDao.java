@@ -0,0 +1,76 @@
+package com.prototype.trade.store.repository.impl;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.prototype.trade.store.model.Trade;
+import com.prototype.trade.store.repository.TradeArchiveDao;
+
+@Repository
+@ConditionalOnExpression("${trade.archive.enabled:false} and '${trade.store.engine:jpa}' == 'jpa'")
+public class JdbcTradeArchiveDao implements TradeArchiveDao {
+
+	// served by IX_TRADE_ACTIVE_MATURITY, no ORDER BY so a batch stops at the limit
+	private static final String FIND_ARCHIVABLE_SQL = "SELECT T.ID FROM TRADE T WHERE T.EXPIRED = TRUE AND T.MATURITY_DATE < ?";
+
+	private static final String KEEP_LATEST_SQL = " AND T.TRADE_VERSION < "
+			+ "(SELECT MAX(M.TRADE_VERSION) FROM TRADE M WHERE M.TRADE_ID = T.TRADE_ID)";
+
+	// a same-version re-send of an archived trade is stored in TRADE again, its newer copy replaces the archived one
+	private static final String COPY_TRADES_SQL = "MERGE INTO TRADE_ARCHIVE (" + TradeRows.TRADE_COLUMNS
+			+ ", ARCHIVED_DATE) KEY (TRADE_ID, TRADE_VERSION) SELECT " + TradeRows.TRADE_COLUMNS
+			+ ", CURRENT_TIMESTAMP FROM TRADE WHERE ID IN ";
+
+	private static final String DELETE_TRADES_SQL = "DELETE FROM TRADE WHERE ID IN ";
+
+	private static final String FIND_ARCHIVED_SQL = "SELECT " + TradeRows.TRADE_COLUMNS
+			+ " FROM TRADE_ARCHIVE WHERE TRADE_ID = ? AND TRADE_VERSION = ?";
+
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	public void setJdbcTemplate(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	@Override
+	public List<Integer> findArchivableIds(LocalDateTime cutoff, boolean keepLatest, int limit) {
+
+		String sql = FIND_ARCHIVABLE_SQL + (keepLatest ? KEEP_LATEST_SQL : "") + " LIMIT ?";
+		return jdbcTemplate.queryForList(sql, Integer.class, Timestamp.valueOf(cutoff), limit);
+	}
+
+	@Override
+	public int archiveTrades(List<Integer> ids) {
+
+		if (ids.isEmpty()) {
+			return 0;
+		}
+
+		String in = TradeRows.inList(ids.size());
+		Object[] args = ids.toArray();
+
+		int copied = jdbcTemplate.update(COPY_TRADES_SQL + in, args);
+		int deleted = jdbcTemplate.update(DELETE_TRADES_SQL + in, args);
+		if (copied != deleted) {
+			// rolls the batch back, nothing may be deleted without its archive copy
+			throw new IllegalStateException("Archived " + copied + " trades but deleted " + deleted);
+		}
+		return deleted;
+	}
+
+	@Override
+	public Optional<Trade> findArchivedTrade(Integer tradeId, Integer tradeVersion) {
+
+		List<Trade> trades = jdbcTemplate.query(FIND_ARCHIVED_SQL, TradeRows::mapTrade, tradeId, tradeVersion);
+		return trades.isEmpty() ? Optional.empty() : Optional.of(trades.get(0));
+	}
+
+}
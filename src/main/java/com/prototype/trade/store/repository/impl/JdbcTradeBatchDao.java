@@ -0,0 +1,185 @@
+package com.prototype.trade.store.repository.impl;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongConsumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.prototype.trade.store.model.Trade;
+import com.prototype.trade.store.model.TradeKey;
+import com.prototype.trade.store.repository.TradeBatchDao;
+
+@Repository
+public class JdbcTradeBatchDao implements TradeBatchDao {
+
+	private static final String INSERT_TRADE_SQL = "INSERT INTO TRADE (ID, TRADE_ID, TRADE_VERSION, COUNTERPARTY_ID, BOOK_ID, "
+			+ "MATURITY_DATE, CREATED_DATE, EXPIRED, VERSION) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+	private static final String UPDATE_TRADE_SQL = "UPDATE TRADE SET COUNTERPARTY_ID = ?, BOOK_ID = ?, MATURITY_DATE = ?, "
+			+ "CREATED_DATE = ?, EXPIRED = ?, VERSION = VERSION + 1 WHERE TRADE_ID = ? AND TRADE_VERSION = ?";
+
+	private static final String EXPIRE_TRADE_SQL = "UPDATE TRADE SET EXPIRED = TRUE WHERE TRADE_ID = ? AND TRADE_VERSION = ? "
+			+ "AND EXPIRED = FALSE AND MATURITY_DATE < ?";
+
+	private static final String UPDATE_COLUMNS_WHERE_SQL = "VERSION = COALESCE(VERSION, 1) + 1 "
+			+ "WHERE TRADE_ID = ? AND TRADE_VERSION = ? AND COALESCE(VERSION, 1) = ?";
+
+	private JdbcTemplate jdbcTemplate;
+
+	private TradeIdAllocator tradeIdAllocator;
+
+	private int batchSize = 500;
+
+	@Autowired
+	public void setJdbcTemplate(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	@Autowired
+	public void setTradeIdAllocator(TradeIdAllocator tradeIdAllocator) {
+		this.tradeIdAllocator = tradeIdAllocator;
+	}
+
+	@Value("${trade.batch.size:500}")
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	@Override
+	public int[] insertTrades(Collection<Trade> trades) {
+
+		// ids come from the in-memory block, no sequence round trip per row
+		trades.forEach(t -> t.setId(tradeIdAllocator.nextId()));
+
+		int[][] counts = jdbcTemplate.batchUpdate(INSERT_TRADE_SQL, trades, batchSize, (ps, t) -> {
+
+			ps.setInt(1, t.getId());
+			ps.setInt(2, t.getTradeId());
+			ps.setInt(3, t.getTradeVersion());
+			ps.setString(4, t.getCounterpartyId());
+			ps.setString(5, t.getBookId());
+			ps.setTimestamp(6, Timestamp.valueOf(t.getMaturityDate()));
+			ps.setTimestamp(7, toTimestamp(t));
+			ps.setBoolean(8, Boolean.TRUE.equals(t.getExpired()));
+			ps.setInt(9, null == t.getVersion() ? 1 : t.getVersion());
+		});
+
+		return flatten(counts, trades.size());
+	}
+
+	@Override
+	public int[] updateTrades(Collection<Trade> trades) {
+
+		int[][] counts = jdbcTemplate.batchUpdate(UPDATE_TRADE_SQL, trades, batchSize, (ps, t) -> {
+
+			ps.setString(1, t.getCounterpartyId());
+			ps.setString(2, t.getBookId());
+			ps.setTimestamp(3, Timestamp.valueOf(t.getMaturityDate()));
+			ps.setTimestamp(4, toTimestamp(t));
+			ps.setBoolean(5, Boolean.TRUE.equals(t.getExpired()));
+			ps.setInt(6, t.getTradeId());
+			ps.setInt(7, t.getTradeVersion());
+		});
+
+		return flatten(counts, trades.size());
+	}
+
+	@Override
+	public int updateTradeColumns(Trade trade, int expectedVersion, Set<Column> columns) {
+
+		StringBuilder sql = new StringBuilder(128).append("UPDATE TRADE SET ");
+		List<Object> args = new ArrayList<>(columns.size() + 3);
+
+		for (Column column : columns) {
+
+			sql.append(column.name()).append(" = ?, ");
+			args.add(valueOf(column, trade));
+		}
+		sql.append(UPDATE_COLUMNS_WHERE_SQL);
+		args.add(trade.getTradeId());
+		args.add(trade.getTradeVersion());
+		args.add(expectedVersion);
+
+		return jdbcTemplate.update(sql.toString(), args.toArray());
+	}
+
+	@Transactional
+	@Override
+	public int expireTrades(Collection<Long> tradeKeys, LocalDateTime cutoff) {
+		return expireTrades(tradeKeys, cutoff, null);
+	}
+
+	@Transactional
+	@Override
+	public int expireTrades(Collection<Long> tradeKeys, LocalDateTime cutoff, LongConsumer expiredKeys) {
+
+		Timestamp cutoffTimestamp = Timestamp.valueOf(cutoff);
+		int[][] counts = jdbcTemplate.batchUpdate(EXPIRE_TRADE_SQL, tradeKeys, batchSize, (ps, key) -> {
+
+			ps.setInt(1, TradeKey.tradeId(key));
+			ps.setInt(2, TradeKey.tradeVersion(key));
+			ps.setTimestamp(3, cutoffTimestamp);
+		});
+
+		// counts follow the iteration order of the keys
+		int[] keyCounts = flatten(counts, tradeKeys.size());
+		int expired = 0;
+		int i = 0;
+		for (Long key : tradeKeys) {
+
+			int count = keyCounts[i++];
+			expired += Math.max(count, 0);
+			if (count > 0 && null != expiredKeys) {
+				expiredKeys.accept(key);
+			}
+		}
+		return expired;
+	}
+
+	private static Object valueOf(Column column, Trade trade) {
+
+		switch (column) {
+		case COUNTERPARTY_ID:
+			return trade.getCounterpartyId();
+		case BOOK_ID:
+			return trade.getBookId();
+		case MATURITY_DATE:
+			return Timestamp.valueOf(trade.getMaturityDate());
+		case CREATED_DATE:
+			return toTimestamp(trade);
+		case EXPIRED:
+			return Boolean.TRUE.equals(trade.getExpired());
+		default:
+			throw new IllegalArgumentException("Unknown column " + column);
+		}
+	}
+
+	private static Timestamp toTimestamp(Trade trade) {
+
+		// CREATED_DATE is NOT NULL, stamp it with the ingest time when the feed omits it
+		return null == trade.getCreatedDate() ? new Timestamp(System.currentTimeMillis())
+				: Timestamp.valueOf(trade.getCreatedDate());
+	}
+
+	private static int[] flatten(int[][] counts, int size) {
+
+		int[] result = new int[size];
+		int i = 0;
+		for (int[] batch : counts) {
+			for (int count : batch) {
+				result[i++] = count;
+			}
+		}
+		return result;
+	}
+
+}
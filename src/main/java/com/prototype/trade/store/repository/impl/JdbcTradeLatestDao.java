@@ -0,0 +1,108 @@
+package com.prototype.trade.store.repository.impl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.prototype.trade.store.model.Trade;
+import com.prototype.trade.store.repository.TradeLatestDao;
+
+/**
+ * TRADE_LATEST holds one (TRADE_ID, TRADE_VERSION, ID) row per tradeId, ID
+ * being the TRADE row of that version. Version checks read a single row by
+ * primary key and the latest trade is one join on TRADE's primary key, so the
+ * EXPIRED flag is never stale. The columnar engine has no TRADE table, it keeps
+ * its own latest version index.
+ */
+@Repository
+@ConditionalOnExpression("${trade.read-model.latest.enabled:false} and '${trade.store.engine:jpa}' == 'jpa'")
+public class JdbcTradeLatestDao implements TradeLatestDao {
+
+	private static final String FIND_VERSION_SQL = "SELECT TRADE_VERSION FROM TRADE_LATEST WHERE TRADE_ID = ?";
+
+	private static final String FIND_VERSIONS_SQL = "SELECT TRADE_ID, TRADE_VERSION FROM TRADE_LATEST WHERE TRADE_ID IN ";
+
+	private static final String FIND_TRADE_SQL = "SELECT T.* FROM TRADE_LATEST L JOIN TRADE T ON T.ID = L.ID "
+			+ "WHERE L.TRADE_ID = ?";
+
+	private static final String MERGE_LATEST_SQL = "MERGE INTO TRADE_LATEST (TRADE_ID, TRADE_VERSION, ID) KEY (TRADE_ID) "
+			+ "VALUES (?, ?, ?)";
+
+	private JdbcTemplate jdbcTemplate;
+
+	private int batchSize = 500;
+
+	@Autowired
+	public void setJdbcTemplate(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	@Value("${trade.batch.size:500}")
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	@Override
+	public Optional<Integer> findLatestVersion(Integer tradeId) {
+
+		List<Integer> versions = jdbcTemplate.queryForList(FIND_VERSION_SQL, Integer.class, tradeId);
+		return versions.isEmpty() ? Optional.empty() : Optional.of(versions.get(0));
+	}
+
+	@Override
+	public Map<Integer, Integer> findLatestVersions(Collection<Integer> tradeIds) {
+
+		if (tradeIds.isEmpty()) {
+			return Collections.emptyMap();
+		}
+
+		Map<Integer, Integer> latestVersions = new HashMap<>();
+		jdbcTemplate.query(FIND_VERSIONS_SQL + TradeRows.inList(tradeIds.size()), rs -> {
+			latestVersions.put(rs.getInt(1), rs.getInt(2));
+		}, tradeIds.toArray());
+		return latestVersions;
+	}
+
+	@Override
+	public Optional<Trade> findLatestTrade(Integer tradeId) {
+
+		List<Trade> trades = jdbcTemplate.query(FIND_TRADE_SQL, TradeRows::mapTrade, tradeId);
+		return trades.isEmpty() ? Optional.empty() : Optional.of(trades.get(0));
+	}
+
+	@Override
+	public void saveLatest(Trade trade) {
+
+		jdbcTemplate.update(MERGE_LATEST_SQL, trade.getTradeId(), trade.getTradeVersion(), trade.getId());
+	}
+
+	@Override
+	public int[] saveLatest(Collection<Trade> trades) {
+
+		int[][] counts = jdbcTemplate.batchUpdate(MERGE_LATEST_SQL, trades, batchSize, (ps, t) -> {
+
+			ps.setInt(1, t.getTradeId());
+			ps.setInt(2, t.getTradeVersion());
+			ps.setInt(3, t.getId());
+		});
+
+		int[] result = new int[trades.size()];
+		int i = 0;
+		for (int[] batch : counts) {
+			for (int count : batch) {
+				result[i++] = count;
+			}
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,61 @@
+package com.prototype.trade.store.repository.impl;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.prototype.trade.store.repository.TradeIdGenerator;
+
+/**
+ * Hands out Trade ids for JDBC batch inserts from blocks reserved with a single
+ * sequence call (pooled-lo, same as {@link TradeIdGenerator}). Ids left in a
+ * block on shutdown are simply skipped.
+ */
+@Component
+public class TradeIdAllocator {
+
+	private static final Logger logger = LoggerFactory.getLogger(TradeIdAllocator.class);
+
+	private JdbcTemplate jdbcTemplate;
+
+	private int blockSize = TradeIdGenerator.DEFAULT_BLOCK_SIZE;
+
+	private int nextId;
+
+	private int blockEnd;
+
+	@Autowired
+	public void setJdbcTemplate(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	@Value("${trade.id.block-size:50}")
+	public void setBlockSize(int blockSize) {
+		this.blockSize = blockSize;
+	}
+
+	// the sequence increment must match the block size or blocks would overlap
+	@PostConstruct
+	public void alignSequenceIncrement() {
+
+		jdbcTemplate.execute("ALTER SEQUENCE " + TradeIdGenerator.SEQUENCE_NAME + " INCREMENT BY " + blockSize);
+		logger.info("Trade ids allocated in blocks of {}", blockSize);
+	}
+
+	public synchronized int nextId() {
+
+		if (nextId == blockEnd) {
+
+			nextId = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + TradeIdGenerator.SEQUENCE_NAME,
+					Integer.class);
+			blockEnd = nextId + blockSize;
+		}
+		return nextId++;
+	}
+
+}
@@ -0,0 +1,43 @@
+package com.prototype.trade.store.repository.impl;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+import com.prototype.trade.store.model.Trade;
+
+/**
+ * Row mapping & IN list helpers shared by the JDBC daos.
+ */
+final class TradeRows {
+
+	static final String TRADE_COLUMNS = "ID, TRADE_ID, TRADE_VERSION, COUNTERPARTY_ID, BOOK_ID, MATURITY_DATE, "
+			+ "CREATED_DATE, EXPIRED, VERSION";
+
+	private TradeRows() {
+
+	}
+
+	static Trade mapTrade(ResultSet rs, int rowNum) throws SQLException {
+
+		Timestamp createdDate = rs.getTimestamp("CREATED_DATE");
+		Trade trade = new Trade(rs.getInt("TRADE_ID"), rs.getInt("TRADE_VERSION"), rs.getString("COUNTERPARTY_ID"),
+				rs.getString("BOOK_ID"), null == createdDate ? null : createdDate.toLocalDateTime(),
+				rs.getTimestamp("MATURITY_DATE").toLocalDateTime(), rs.getBoolean("EXPIRED"), rs.getInt("VERSION"));
+		trade.setId(rs.getInt("ID"));
+		return trade;
+	}
+
+	/**
+	 * @return "(?,?,...)" with one placeholder per value
+	 */
+	static String inList(int size) {
+
+		StringBuilder in = new StringBuilder(2 * size + 1).append('(');
+		for (int i = 0; i < size; i++) {
+			in.append(0 == i ? "?" : ",?");
+		}
+		return in.append(')').toString();
+	}
+
+}
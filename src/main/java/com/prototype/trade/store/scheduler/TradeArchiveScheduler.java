@@ -0,0 +1,36 @@
+package com.prototype.trade.store.scheduler;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.prototype.trade.store.date.util.BusinessClock;
+import com.prototype.trade.store.service.impl.TradeArchiver;
+
+@Component
+@ConditionalOnExpression("${trade.archive.enabled:false} and '${trade.store.engine:jpa}' == 'jpa'")
+public class TradeArchiveScheduler {
+
+	private TradeArchiver tradeArchiver;
+
+	private BusinessClock businessClock;
+
+	@Autowired
+	public void setTradeArchiver(TradeArchiver tradeArchiver) {
+		this.tradeArchiver = tradeArchiver;
+	}
+
+	@Autowired
+	public void setBusinessClock(BusinessClock businessClock) {
+		this.businessClock = businessClock;
+	}
+
+	// off the day boundary, expiry has flagged yesterday's maturities by then
+	@Scheduled(cron = "${trade.archive.cron:0 30 1 * * *}", zone = "${trade.clock.zone:}")
+	public void archiveExpiredTrades() {
+
+		tradeArchiver.archiveExpiredTrades(businessClock.today());
+	}
+
+}
@@ -9,6 +9,7 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import com.prototype.trade.store.service.TradeService;
+import com.prototype.trade.store.service.impl.TradeMetrics;
 
 @Component
 @EnableAsync
@@ -18,17 +19,29 @@ public class TradeExpireScheduler {
 
 	private TradeService tradeService;
 
+	private TradeMetrics tradeMetrics;
+
 	@Autowired
 	public void setTradeService(TradeService tradeService) {
 		this.tradeService = tradeService;
 	}
 
+	@Autowired(required = false)
+	public void setTradeMetrics(TradeMetrics tradeMetrics) {
+		this.tradeMetrics = tradeMetrics;
+	}
+
 	@Async
-	@Scheduled(fixedDelayString = "${fixedDelay.in.milliseconds}", initialDelay = 30000)
+	@Scheduled(fixedDelayString = "${fixedDelay.in.milliseconds}", initialDelayString = "${fixedDelay.initial.milliseconds:30000}")
 	public void checkForExipredTrades() {
 
 		logger.info("Start checkig for expired trade >>>>");
-		tradeService.markMaturedTradeExpired();
+		long start = System.nanoTime();
+		int expiredTrades = tradeService.markMaturedTradeExpired();
+		if (null != tradeMetrics) {
+			tradeMetrics.recordExpirySweep(false, start, expiredTrades);
+		}
+		logger.info("Expired {} matured trades <<<<", expiredTrades);
 
 	}
 
@@ -0,0 +1,63 @@
+package com.prototype.trade.store.scheduler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.prototype.trade.store.date.util.BusinessClock;
+import com.prototype.trade.store.service.impl.TradeMaturityIndex;
+import com.prototype.trade.store.service.impl.TradeMetrics;
+
+@Component
+@ConditionalOnProperty(name = "trade.expiry.index.enabled", havingValue = "true")
+public class TradeMaturityScheduler {
+
+	private static final Logger logger = LoggerFactory.getLogger(TradeMaturityScheduler.class);
+
+	private TradeMaturityIndex tradeMaturityIndex;
+
+	private TradeMetrics tradeMetrics;
+
+	private BusinessClock businessClock;
+
+	@Autowired
+	public void setBusinessClock(BusinessClock businessClock) {
+		this.businessClock = businessClock;
+	}
+
+	@Autowired
+	public void setTradeMaturityIndex(TradeMaturityIndex tradeMaturityIndex) {
+		this.tradeMaturityIndex = tradeMaturityIndex;
+	}
+
+	@Autowired(required = false)
+	public void setTradeMetrics(TradeMetrics tradeMetrics) {
+		this.tradeMetrics = tradeMetrics;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void loadMaturityIndex() {
+
+		tradeMaturityIndex.load();
+		expireDueTrades();
+	}
+
+	// fires right after the day boundary, trades matured yesterday are due
+	@Scheduled(cron = "${trade.expiry.index.cron:0 0 0 * * *}", zone = "${trade.clock.zone:}")
+	public void expireDueTrades() {
+
+		long start = System.nanoTime();
+		int expiredTrades = tradeMaturityIndex.expireDueTrades(businessClock.today());
+		if (null != tradeMetrics) {
+			tradeMetrics.recordExpirySweep(true, start, expiredTrades);
+		}
+		logger.info("Expired {} due trades from maturity index, {} entries left", expiredTrades,
+				tradeMaturityIndex.size());
+	}
+
+}
@@ -0,0 +1,14 @@
+package com.prototype.trade.store.service;
+
+public enum ExpiryMode {
+
+	// load every active trade & expire matured ones one update at a time
+	PER_ROW,
+
+	// expire everything matured before today with chunked bulk updates
+	SET_BASED,
+
+	// split the id space into ranges expired in parallel, one transaction per range
+	PARTITIONED
+
+}
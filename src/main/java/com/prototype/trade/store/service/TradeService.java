@@ -1,15 +1,39 @@
 package com.prototype.trade.store.service;
 
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import com.prototype.trade.store.model.Trade;
+import com.prototype.trade.store.model.TradePage;
+import com.prototype.trade.store.model.TradeResult;
 
 public interface TradeService {
 
 	String processAndSaveTrade(Trade trade);
+
+	List<TradeResult> processAndSaveTrades(List<Trade> trades);
 	
 	Optional<Trade> getTradeWithIdTradeVersion(Integer tradeId, Integer tradeVersion);
+
+	Optional<Trade> getLatestTrade(Integer tradeId);
 	
-	void markMaturedTradeExpired();
+	int markMaturedTradeExpired();
+
+	/**
+	 * Hands the matching trades one by one to the consumer, read forward-only
+	 * without collecting them. Null filters match any value.
+	 *
+	 * @return number of streamed trades
+	 */
+	int streamTrades(String bookId, String counterpartyId, boolean activeOnly, Consumer<Trade> consumer);
+
+	/**
+	 * Page of up to limit trades in (tradeId, tradeVersion) order following the
+	 * cursor of the previous page (null for the first one). Null filters match any
+	 * value, maturity dates are inclusive.
+	 */
+	TradePage getTrades(String cursor, Boolean expired, LocalDate maturityFrom, LocalDate maturityTo, int limit);
 		
 }
@@ -0,0 +1,11 @@
+package com.prototype.trade.store.service;
+
+public enum UpdateMode {
+
+	// copy the received fields onto the loaded entity and flush every column
+	ENTITY,
+
+	// one UPDATE of the changed columns guarded by VERSION, nothing written when unchanged
+	TARGETED
+
+}
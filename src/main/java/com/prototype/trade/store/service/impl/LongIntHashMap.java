@@ -0,0 +1,105 @@
+package com.prototype.trade.store.service.impl;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing long to int map with linear probing, removal shifts the
+ * following entries of the probe run back. Values must not be negative,
+ * {@link #NO_VALUE} marks a free slot and a missing key.
+ */
+final class LongIntHashMap {
+
+	static final int NO_VALUE = -1;
+
+	private long[] keys;
+
+	private int[] values;
+
+	private int size;
+
+	LongIntHashMap(int expectedSize) {
+
+		int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+		keys = new long[capacity];
+		values = new int[capacity];
+		Arrays.fill(values, NO_VALUE);
+	}
+
+	int get(long key) {
+
+		int mask = keys.length - 1;
+		for (int i = hash(key) & mask;; i = (i + 1) & mask) {
+			if (values[i] == NO_VALUE || keys[i] == key) {
+				return values[i];
+			}
+		}
+	}
+
+	void put(long key, int value) {
+
+		int mask = keys.length - 1;
+		int i = hash(key) & mask;
+		while (values[i] != NO_VALUE && keys[i] != key) {
+			i = (i + 1) & mask;
+		}
+		if (values[i] == NO_VALUE) {
+			size++;
+		}
+		keys[i] = key;
+		values[i] = value;
+
+		if (size * 2 > keys.length) {
+			rehash(keys.length << 1);
+		}
+	}
+
+	int remove(long key) {
+
+		int mask = keys.length - 1;
+		int i = hash(key) & mask;
+		while (values[i] != NO_VALUE && keys[i] != key) {
+			i = (i + 1) & mask;
+		}
+
+		int value = values[i];
+		if (value == NO_VALUE) {
+			return NO_VALUE;
+		}
+		size--;
+
+		// an entry further on the run moves into the gap unless its home slot lies after the gap
+		for (int j = (i + 1) & mask; values[j] != NO_VALUE; j = (j + 1) & mask) {
+			if (((j - hash(keys[j])) & mask) >= ((j - i) & mask)) {
+				keys[i] = keys[j];
+				values[i] = values[j];
+				i = j;
+			}
+		}
+		values[i] = NO_VALUE;
+		return value;
+	}
+
+	private void rehash(int capacity) {
+
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+
+		keys = new long[capacity];
+		values = new int[capacity];
+		Arrays.fill(values, NO_VALUE);
+		size = 0;
+
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldValues[i] != NO_VALUE) {
+				put(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+
+	private static int hash(long key) {
+
+		int h = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+}
@@ -0,0 +1,175 @@
+package com.prototype.trade.store.service.impl;
+
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import com.prototype.trade.store.model.Trade;
+import com.prototype.trade.store.model.TradePage;
+import com.prototype.trade.store.model.TradeResult;
+import com.prototype.trade.store.service.TradeService;
+
+/**
+ * Serializes writes per tradeId with a fixed set of lock stripes around the
+ * transactional {@link TradeServiceImpl}, so a lock is held until the write has
+ * committed. Different tradeIds mostly hash to different stripes and run in
+ * parallel; a batch takes the stripes of all its tradeIds in ascending order,
+ * which keeps concurrent batches free of deadlocks.
+ *
+ * With {@link TradeWriteBehind} enabled writes are only journaled here, under
+ * the same stripes, and applied in order by its flusher.
+ *
+ * With {@link TradeDedupWindow} enabled a single trade identical to the last
+ * one written for its tradeId is answered with the earlier response.
+ */
+@Primary
+@Service
+public class StripedLockTradeService implements TradeService {
+
+	private TradeService tradeService;
+
+	private ReentrantLock[] stripes = newStripes(1024);
+
+	private TradeWriteBehind tradeWriteBehind;
+
+	private TradeDedupWindow tradeDedupWindow;
+
+	@Autowired
+	public void setTradeService(@Qualifier("tradeServiceImpl") TradeService tradeService) {
+		this.tradeService = tradeService;
+	}
+
+	@Autowired(required = false)
+	public void setTradeWriteBehind(TradeWriteBehind tradeWriteBehind) {
+		this.tradeWriteBehind = tradeWriteBehind;
+	}
+
+	@Autowired(required = false)
+	public void setTradeDedupWindow(TradeDedupWindow tradeDedupWindow) {
+		this.tradeDedupWindow = tradeDedupWindow;
+	}
+
+	@Value("${trade.concurrency.lock-stripes:1024}")
+	public void setLockStripes(int lockStripes) {
+		this.stripes = newStripes(lockStripes);
+	}
+
+	@Override
+	public String processAndSaveTrade(Trade trade) {
+
+		// a retry racing the original waits for it here and then hits the window
+		ReentrantLock lock = stripes[stripeOf(trade.getTradeId())];
+		lock.lock();
+		try {
+			return null != tradeWriteBehind ? deduplicated(trade, tradeWriteBehind::accept)
+					: deduplicated(trade, tradeService::processAndSaveTrade);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public List<TradeResult> processAndSaveTrades(List<Trade> trades) {
+
+		BitSet batchStripes = new BitSet(stripes.length);
+		trades.forEach(t -> batchStripes.set(stripeOf(t.getTradeId())));
+
+		int locked = -1;
+		try {
+
+			for (int i = batchStripes.nextSetBit(0); i >= 0; i = batchStripes.nextSetBit(i + 1)) {
+				stripes[i].lock();
+				locked = i;
+			}
+			return null != tradeWriteBehind ? tradeWriteBehind.acceptAll(trades)
+					: tradeService.processAndSaveTrades(trades);
+
+		} finally {
+
+			// still under the stripes, no single write of these tradeIds can record in between
+			if (null != tradeDedupWindow) {
+				trades.forEach(t -> tradeDedupWindow.invalidate(t.getTradeId()));
+			}
+			for (int i = batchStripes.nextSetBit(0); i >= 0 && i <= locked; i = batchStripes.nextSetBit(i + 1)) {
+				stripes[i].unlock();
+			}
+		}
+	}
+
+	@Override
+	public Optional<Trade> getTradeWithIdTradeVersion(Integer tradeId, Integer tradeVersion) {
+		return tradeService.getTradeWithIdTradeVersion(tradeId, tradeVersion);
+	}
+
+	@Override
+	public Optional<Trade> getLatestTrade(Integer tradeId) {
+		return tradeService.getLatestTrade(tradeId);
+	}
+
+	@Override
+	public int markMaturedTradeExpired() {
+		return tradeService.markMaturedTradeExpired();
+	}
+
+	@Override
+	public TradePage getTrades(String cursor, Boolean expired, LocalDate maturityFrom, LocalDate maturityTo,
+			int limit) {
+		return tradeService.getTrades(cursor, expired, maturityFrom, maturityTo, limit);
+	}
+
+	@Override
+	public int streamTrades(String bookId, String counterpartyId, boolean activeOnly, Consumer<Trade> consumer) {
+		return tradeService.streamTrades(bookId, counterpartyId, activeOnly, consumer);
+	}
+
+	private String deduplicated(Trade trade, Function<Trade, String> write) {
+
+		if (null == tradeDedupWindow) {
+			return write.apply(trade);
+		}
+
+		String response = tradeDedupWindow.lookup(trade);
+		if (null == response) {
+
+			// the write sets the id & @Version of the entity, the window keeps the trade as received
+			Trade received = copyOf(trade);
+			response = write.apply(trade);
+			tradeDedupWindow.record(received, response);
+		}
+		return response;
+	}
+
+	private static Trade copyOf(Trade trade) {
+
+		return new Trade(trade.getTradeId(), trade.getTradeVersion(), trade.getCounterpartyId(), trade.getBookId(),
+				trade.getCreatedDate(), trade.getMaturityDate(), trade.getExpired(), trade.getVersion());
+	}
+
+	private int stripeOf(Integer tradeId) {
+
+		int h = null == tradeId ? 0 : tradeId * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & (stripes.length - 1);
+	}
+
+	private static ReentrantLock[] newStripes(int lockStripes) {
+
+		// power of two, so a stripe is picked by masking the hash
+		int size = lockStripes <= 1 ? 1 : Integer.highestOneBit(lockStripes - 1) << 1;
+		ReentrantLock[] locks = new ReentrantLock[size];
+		for (int i = 0; i < locks.length; i++) {
+			locks[i] = new ReentrantLock();
+		}
+		return locks;
+	}
+
+}
@@ -0,0 +1,88 @@
+package com.prototype.trade.store.service.impl;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.prototype.trade.store.repository.TradeArchiveDao;
+
+/**
+ * Moves expired trades matured more than the retention window ago from TRADE
+ * to TRADE_ARCHIVE in bounded batches, each batch in its own transaction.
+ *
+ * The highest version of every tradeId stays in TRADE, even with the latest
+ * version read model: a same-version re-send is written as an update of that
+ * row, single or in bulk, and must find it.
+ */
+@Component
+@ConditionalOnExpression("${trade.archive.enabled:false} and '${trade.store.engine:jpa}' == 'jpa'")
+public class TradeArchiver {
+
+	private static final Logger logger = LoggerFactory.getLogger(TradeArchiver.class);
+
+	private TradeArchiveDao tradeArchiveDao;
+
+	private TransactionTemplate transactionTemplate;
+
+	private int retentionDays = 30;
+
+	private int batchSize = 1000;
+
+	@Autowired
+	public void setTradeArchiveDao(TradeArchiveDao tradeArchiveDao) {
+		this.tradeArchiveDao = tradeArchiveDao;
+	}
+
+	@Autowired
+	public void setTransactionManager(PlatformTransactionManager transactionManager) {
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+	}
+
+	@Value("${trade.archive.retention-days:30}")
+	public void setRetentionDays(int retentionDays) {
+		this.retentionDays = retentionDays;
+	}
+
+	@Value("${trade.archive.batch-size:1000}")
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * @return number of trades moved to the archive
+	 */
+	public int archiveExpiredTrades(LocalDate today) {
+
+		LocalDateTime cutoff = today.minusDays(retentionDays).atStartOfDay();
+		int totalArchived = 0;
+		int batchArchived;
+
+		do {
+
+			batchArchived = transactionTemplate.execute(status -> archiveBatch(cutoff));
+			totalArchived += batchArchived;
+
+		} while (batchArchived == batchSize);
+
+		logger.info("Archived {} trades expired & matured before {}", totalArchived, cutoff.toLocalDate());
+		return totalArchived;
+	}
+
+	private int archiveBatch(LocalDateTime cutoff) {
+
+		List<Integer> ids = tradeArchiveDao.findArchivableIds(cutoff, true, batchSize);
+		return tradeArchiveDao.archiveTrades(ids);
+	}
+
+}
@@ -0,0 +1,193 @@
+package com.prototype.trade.store.service.impl;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.prototype.trade.store.model.Trade;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Window of the last successfully written trade per tradeId with its response,
+ * so an upstream retry carrying exactly the same content is acknowledged from
+ * memory. Entries live for the ttl in a direct-mapped table indexed by tradeId;
+ * a colliding tradeId simply replaces the entry, which only costs a dedup miss.
+ *
+ * Keyed by tradeId rather than (tradeId, tradeVersion): once a newer version is
+ * written a replay of the older one misses and is rejected by the normal path.
+ */
+@Component
+@ConditionalOnProperty(name = "trade.dedup.enabled", havingValue = "true")
+public class TradeDedupWindow implements MeterBinder {
+
+	private int maxSize = 100000;
+
+	private long ttlNanos = TimeUnit.MINUTES.toNanos(5);
+
+	private volatile AtomicReferenceArray<Entry> slots;
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	public TradeDedupWindow() {
+		resize();
+	}
+
+	@Value("${trade.dedup.max-size:100000}")
+	public void setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+		resize();
+	}
+
+	@Value("${trade.dedup.ttl-seconds:300}")
+	public void setTtlSeconds(long ttlSeconds) {
+		this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+	}
+
+	/**
+	 * @return response of the identical trade written within the ttl, or null
+	 */
+	public String lookup(Trade trade) {
+
+		if (null == trade.getTradeId()) {
+			return null;
+		}
+
+		AtomicReferenceArray<Entry> table = slots;
+		Entry entry = table.get(slotOf(trade.getTradeId(), table));
+		if (null != entry && System.nanoTime() - entry.writtenAt < ttlNanos && entry.matches(trade)) {
+
+			hits.increment();
+			return entry.response;
+		}
+
+		misses.increment();
+		return null;
+	}
+
+	public void record(Trade trade, String response) {
+
+		if (null == trade.getTradeId()) {
+			return;
+		}
+
+		AtomicReferenceArray<Entry> table = slots;
+		table.set(slotOf(trade.getTradeId(), table), new Entry(trade, response, System.nanoTime()));
+	}
+
+	/**
+	 * Drops the tradeId, for writes that do not go through {@link #record}.
+	 */
+	public void invalidate(Integer tradeId) {
+
+		if (null == tradeId) {
+			return;
+		}
+
+		AtomicReferenceArray<Entry> table = slots;
+		int slot = slotOf(tradeId, table);
+		Entry entry = table.get(slot);
+		if (null != entry && entry.tradeId == tradeId) {
+			table.compareAndSet(slot, entry, null);
+		}
+	}
+
+	public int size() {
+
+		AtomicReferenceArray<Entry> table = slots;
+		int size = 0;
+		for (int i = 0; i < table.length(); i++) {
+			if (null != table.get(i)) {
+				size++;
+			}
+		}
+		return size;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+
+		FunctionCounter.builder("trade.dedup.checks", hits, LongAdder::doubleValue).tags("result", "hit")
+				.description("Single trade writes acknowledged from the dedup window").register(registry);
+		FunctionCounter.builder("trade.dedup.checks", misses, LongAdder::doubleValue).tags("result", "miss")
+				.description("Single trade writes not found in the dedup window").register(registry);
+		Gauge.builder("trade.dedup.hit.ratio", this, TradeDedupWindow::hitRatio)
+				.description("Share of single trade writes that were replays").register(registry);
+		Gauge.builder("trade.dedup.size", this, TradeDedupWindow::size).register(registry);
+	}
+
+	private double hitRatio() {
+
+		double hitCount = hits.doubleValue();
+		double total = hitCount + misses.doubleValue();
+		return 0 == total ? 0 : hitCount / total;
+	}
+
+	private void resize() {
+
+		slots = new AtomicReferenceArray<>(Integer.highestOneBit(Math.max(1, maxSize - 1)) << 1);
+	}
+
+	private static int slotOf(int tradeId, AtomicReferenceArray<Entry> table) {
+
+		int h = tradeId * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & (table.length() - 1);
+	}
+
+	private static final class Entry {
+
+		private final int tradeId;
+
+		private final Integer tradeVersion;
+
+		private final String counterpartyId;
+
+		private final String bookId;
+
+		private final LocalDateTime maturityDate;
+
+		private final LocalDateTime createdDate;
+
+		private final Boolean expired;
+
+		private final Integer version;
+
+		private final String response;
+
+		private final long writtenAt;
+
+		private Entry(Trade trade, String response, long writtenAt) {
+			this.tradeId = trade.getTradeId();
+			this.tradeVersion = trade.getTradeVersion();
+			this.counterpartyId = trade.getCounterpartyId();
+			this.bookId = trade.getBookId();
+			this.maturityDate = trade.getMaturityDate();
+			this.createdDate = trade.getCreatedDate();
+			this.expired = trade.getExpired();
+			this.version = trade.getVersion();
+			this.response = response;
+			this.writtenAt = writtenAt;
+		}
+
+		private boolean matches(Trade trade) {
+
+			return tradeId == trade.getTradeId() && Objects.equals(tradeVersion, trade.getTradeVersion())
+					&& Objects.equals(counterpartyId, trade.getCounterpartyId())
+					&& Objects.equals(bookId, trade.getBookId()) && Objects.equals(maturityDate, trade.getMaturityDate())
+					&& Objects.equals(createdDate, trade.getCreatedDate()) && Objects.equals(expired, trade.getExpired())
+					&& Objects.equals(version, trade.getVersion());
+		}
+	}
+
+}
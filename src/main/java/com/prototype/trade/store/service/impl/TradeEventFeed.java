@@ -0,0 +1,151 @@
+package com.prototype.trade.store.service.impl;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.prototype.trade.store.model.TradeEvent;
+import com.prototype.trade.store.model.TradeEvent.Type;
+import com.prototype.trade.store.model.TradeEventPage;
+
+/**
+ * Bounded in-memory feed of trade accepted/updated/rejected/expired events.
+ * Events get consecutive sequence numbers and are kept in a ring of the last
+ * capacity events, a consumer resumes by passing the last sequence it read.
+ * A consumer that fell further behind than the ring gets a truncated page and
+ * has to re-sync from the store.
+ *
+ * Writes are published once their transaction commits, rejections right away.
+ * The feed is not persisted, sequences start over with the service.
+ */
+@Component
+@ConditionalOnProperty(name = "trade.events.enabled", havingValue = "true")
+public class TradeEventFeed {
+
+	private TradeEvent[] ring = new TradeEvent[65536];
+
+	// guarded by this, as are ring & waiters
+	private long lastSequence;
+
+	private final List<Waiter> waiters = new ArrayList<>();
+
+	@Value("${trade.events.capacity:65536}")
+	public synchronized void setCapacity(int capacity) {
+		this.ring = new TradeEvent[capacity];
+	}
+
+	public void publish(Type type, Integer tradeId, Integer tradeVersion, String message) {
+
+		append(new TradeEvent(type, tradeId, tradeVersion, message, LocalDateTime.now()));
+	}
+
+	/**
+	 * Publishes once the current transaction commits, nothing on a rollback.
+	 * Without a transaction the event is published at once.
+	 */
+	public void publishAfterCommit(Type type, Integer tradeId, Integer tradeVersion) {
+
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+
+			publish(type, tradeId, tradeVersion, null);
+			return;
+		}
+
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				publish(type, tradeId, tradeVersion, null);
+			}
+		});
+	}
+
+	/**
+	 * @return up to limit events following the after sequence, maybe none
+	 */
+	public synchronized TradeEventPage read(long after, int limit) {
+
+		long oldest = Math.max(1, lastSequence - ring.length + 1);
+		boolean truncated = after > lastSequence || after + 1 < oldest;
+		long from = truncated ? oldest : after + 1;
+
+		List<TradeEvent> events = new ArrayList<>((int) Math.min(limit, lastSequence - from + 1));
+		for (long sequence = from; sequence <= lastSequence && events.size() < limit; sequence++) {
+			events.add(ring[slotOf(sequence)]);
+		}
+
+		long last = events.isEmpty() ? (truncated ? lastSequence : after) : events.get(events.size() - 1).getSequence();
+		return new TradeEventPage(events, last, truncated);
+	}
+
+	/**
+	 * Completes with the next page as soon as an event follows the after
+	 * sequence. Cancel the future to stop waiting.
+	 */
+	public CompletableFuture<TradeEventPage> poll(long after, int limit) {
+
+		synchronized (this) {
+
+			if (after == lastSequence) {
+
+				CompletableFuture<TradeEventPage> next = new CompletableFuture<>();
+				waiters.removeIf(waiter -> waiter.next.isDone());
+				waiters.add(new Waiter(after, limit, next));
+				return next;
+			}
+		}
+		return CompletableFuture.completedFuture(read(after, limit));
+	}
+
+	public synchronized long lastSequence() {
+		return lastSequence;
+	}
+
+	private void append(TradeEvent event) {
+
+		List<Waiter> ready;
+		synchronized (this) {
+
+			event.setSequence(++lastSequence);
+			ring[slotOf(lastSequence)] = event;
+			if (waiters.isEmpty()) {
+				return;
+			}
+			ready = new ArrayList<>(waiters);
+			waiters.clear();
+		}
+
+		// completed outside the lock, the page is read again per waiter
+		for (Waiter waiter : ready) {
+			if (!waiter.next.isDone()) {
+				waiter.next.complete(read(waiter.after, waiter.limit));
+			}
+		}
+	}
+
+	private int slotOf(long sequence) {
+		return (int) (sequence % ring.length);
+	}
+
+	private static final class Waiter {
+
+		private final long after;
+
+		private final int limit;
+
+		private final CompletableFuture<TradeEventPage> next;
+
+		private Waiter(long after, int limit, CompletableFuture<TradeEventPage> next) {
+			this.after = after;
+			this.limit = limit;
+			this.next = next;
+		}
+	}
+
+}
@@ -0,0 +1,242 @@
+package com.prototype.trade.store.service.impl;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.prototype.trade.store.model.Trade;
+import com.prototype.trade.store.model.TradeEvent.Type;
+import com.prototype.trade.store.model.TradeKey;
+import com.prototype.trade.store.model.TradeMaturityView;
+import com.prototype.trade.store.repository.TradeBatchDao;
+import com.prototype.trade.store.repository.TradeStoreDao;
+
+/**
+ * Set-based expiry: expires trades matured before today in bounded chunks, each
+ * chunk committed in its own short transaction.
+ *
+ * Partitioned expiry splits the id space into fixed ranges that are expired in
+ * parallel, each in its own transaction; a failed range is logged and left to
+ * the next sweep without affecting the others.
+ *
+ * With the event feed both modes expire by (tradeId, tradeVersion) so only the
+ * rows a chunk or range actually flipped are published as EXPIRED.
+ */
+@Component
+public class TradeExpiryEngine {
+
+	private static final Logger logger = LoggerFactory.getLogger(TradeExpiryEngine.class);
+
+	private TradeStoreDao<Trade> tradeDao;
+
+	private TradeBatchDao tradeBatchDao;
+
+	private TransactionTemplate transactionTemplate;
+
+	private TradeEventFeed tradeEventFeed;
+
+	private int chunkSize = 1000;
+
+	private boolean auditLog = false;
+
+	private int partitionSize = 100000;
+
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+
+	private ForkJoinPool partitionPool;
+
+	@Autowired
+	public void setTradeDao(TradeStoreDao<Trade> tradeDao) {
+		this.tradeDao = tradeDao;
+	}
+
+	@Autowired
+	public void setTradeBatchDao(TradeBatchDao tradeBatchDao) {
+		this.tradeBatchDao = tradeBatchDao;
+	}
+
+	@Autowired
+	public void setTransactionManager(PlatformTransactionManager transactionManager) {
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+	}
+
+	@Autowired(required = false)
+	public void setTradeEventFeed(TradeEventFeed tradeEventFeed) {
+		this.tradeEventFeed = tradeEventFeed;
+	}
+
+	@Value("${trade.expiry.chunk-size:1000}")
+	public void setChunkSize(int chunkSize) {
+		this.chunkSize = chunkSize;
+	}
+
+	@Value("${trade.expiry.audit-log:false}")
+	public void setAuditLog(boolean auditLog) {
+		this.auditLog = auditLog;
+	}
+
+	@Value("${trade.expiry.partition.size:100000}")
+	public void setPartitionSize(int partitionSize) {
+		this.partitionSize = partitionSize;
+	}
+
+	// 0 uses one thread per core
+	@Value("${trade.expiry.partition.parallelism:0}")
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+	}
+
+	@PreDestroy
+	public synchronized void shutdown() {
+
+		if (null != partitionPool) {
+			partitionPool.shutdownNow();
+		}
+	}
+
+	public int expireMaturedTrades(LocalDate today) {
+
+		LocalDateTime cutoff = today.atStartOfDay();
+		int totalExpired = 0;
+		int chunkExpired;
+
+		do {
+
+			chunkExpired = transactionTemplate.execute(status -> expireChunk(cutoff));
+			totalExpired += chunkExpired;
+
+		} while (chunkExpired == chunkSize);
+
+		return totalExpired;
+	}
+
+	public int expireMaturedTradesPartitioned(LocalDate today) {
+
+		Optional<Integer> minId = tradeDao.findMinId();
+		Optional<Integer> maxId = tradeDao.findMaxId();
+		if (!minId.isPresent() || !maxId.isPresent()) {
+			return 0;
+		}
+
+		LocalDateTime cutoff = today.atStartOfDay();
+		List<Callable<Integer>> partitions = new ArrayList<>();
+
+		for (long from = minId.get(); from <= maxId.get(); from += partitionSize) {
+
+			int fromId = (int) from;
+			int toId = (int) Math.min(from + partitionSize, maxId.get() + 1L);
+			partitions.add(() -> transactionTemplate.execute(status -> expireRange(fromId, toId, cutoff)));
+		}
+
+		int totalExpired = 0;
+		int failedPartitions = 0;
+
+		for (Future<Integer> partition : partitionPool().invokeAll(partitions)) {
+
+			try {
+
+				totalExpired += partition.get();
+
+			} catch (ExecutionException exp) {
+
+				failedPartitions++;
+				logger.error("Expiry of a partition failed, its trades are retried by the next sweep", exp.getCause());
+
+			} catch (InterruptedException exp) {
+
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+
+		logger.debug("Expired {} trades in {} partitions, {} failed", totalExpired, partitions.size(),
+				failedPartitions);
+		return totalExpired;
+	}
+
+	private synchronized ForkJoinPool partitionPool() {
+
+		if (null == partitionPool) {
+			partitionPool = new ForkJoinPool(parallelism);
+		}
+		return partitionPool;
+	}
+
+	private int expireChunk(LocalDateTime cutoff) {
+
+		List<TradeMaturityView> maturedTrades = tradeDao.findMaturedActiveTrades(cutoff, PageRequest.of(0, chunkSize));
+		if (maturedTrades.isEmpty()) {
+			return 0;
+		}
+
+		List<Integer> ids = new ArrayList<>(maturedTrades.size());
+		for (TradeMaturityView t : maturedTrades) {
+
+			ids.add(t.getId());
+			if (auditLog) {
+				logger.info("TradeId={}, TradeVersion={} matured on {} has been set expired", t.getTradeId(),
+						t.getTradeVersion(), t.getMaturityDate().toLocalDate());
+			}
+		}
+
+		// a short chunk (e.g. rows expired concurrently) ends the sweep, the next run picks up any rest
+		int expired = null == tradeEventFeed ? tradeDao.expireTradesByIds(ids) : expireAndPublish(maturedTrades, cutoff);
+		logger.debug("Expired chunk of {} trades", expired);
+
+		return expired;
+	}
+
+	// fromId <= id < toId
+	private int expireRange(int fromId, int toId, LocalDateTime cutoff) {
+
+		if (null == tradeEventFeed) {
+			return tradeDao.expireMaturedTradesInRange(fromId, toId, cutoff);
+		}
+
+		// the range's matured rows are read in chunks by id, the range stays one transaction
+		int expired = 0;
+		int afterId = fromId - 1;
+		List<TradeMaturityView> maturedTrades;
+		do {
+
+			maturedTrades = tradeDao.findMaturedActiveTradesInRange(afterId, toId, cutoff, PageRequest.of(0, chunkSize));
+			if (maturedTrades.isEmpty()) {
+				break;
+			}
+			expired += expireAndPublish(maturedTrades, cutoff);
+			afterId = maturedTrades.get(maturedTrades.size() - 1).getId();
+
+		} while (maturedTrades.size() == chunkSize);
+
+		return expired;
+	}
+
+	// by key, so only the rows actually flipped are published
+	private int expireAndPublish(List<TradeMaturityView> maturedTrades, LocalDateTime cutoff) {
+
+		List<Long> keys = new ArrayList<>(maturedTrades.size());
+		maturedTrades.forEach(t -> keys.add(TradeKey.of(t.getTradeId(), t.getTradeVersion())));
+		return tradeBatchDao.expireTrades(keys, cutoff, key -> tradeEventFeed.publishAfterCommit(Type.EXPIRED,
+				TradeKey.tradeId(key), TradeKey.tradeVersion(key)));
+	}
+
+}
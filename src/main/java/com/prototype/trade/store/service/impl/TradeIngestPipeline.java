@@ -0,0 +1,413 @@
+package com.prototype.trade.store.service.impl;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestTemplate;
+
+import com.prototype.trade.store.date.util.BusinessClock;
+import com.prototype.trade.store.date.util.DateUtils;
+import com.prototype.trade.store.exception.TradeStoreException;
+import com.prototype.trade.store.model.IngestTicket;
+import com.prototype.trade.store.model.Trade;
+import com.prototype.trade.store.model.TradeResult;
+import com.prototype.trade.store.service.TradeService;
+
+/**
+ * Asynchronous ingestion: trades are validated, put on a bounded queue and
+ * answered with a ticket; worker threads drain the queue in micro-batches
+ * through {@link TradeService#processAndSaveTrades(List)}. A full queue is
+ * reported to the caller instead of blocking it.
+ *
+ * Queued trades live in memory only, a trade is durable once its ticket is
+ * PROCESSED. Completed tickets are kept for the ttl, at most max-tickets of
+ * them. Callbacks are only posted to the configured URL prefixes.
+ */
+@Component
+@ConditionalOnProperty(name = "trade.ingest.async.enabled", havingValue = "true")
+public class TradeIngestPipeline {
+
+	private static final Logger logger = LoggerFactory.getLogger(TradeIngestPipeline.class);
+
+	private TradeService tradeService;
+
+	private RestTemplate restTemplate;
+
+	private BusinessClock businessClock = new BusinessClock();
+
+	private int queueCapacity = 10000;
+
+	private int workers = 2;
+
+	private int maxBatchSize = 200;
+
+	private long ticketTtlNanos = TimeUnit.HOURS.toNanos(1);
+
+	private int maxTickets = 100000;
+
+	private List<URI> callbackPrefixes = Collections.emptyList();
+
+	private BlockingQueue<Pending> queue;
+
+	private final Map<Long, IngestTicket> tickets = new ConcurrentHashMap<>();
+
+	// completed tickets in completion order, purged after the ttl
+	private final Queue<Completed> completedTickets = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger completedCount = new AtomicInteger();
+
+	private final AtomicLong ticketSequence = new AtomicLong();
+
+	private final List<Thread> workerThreads = new ArrayList<>();
+
+	private ThreadPoolExecutor callbackExecutor;
+
+	private volatile boolean running;
+
+	@Autowired
+	public void setTradeService(TradeService tradeService) {
+		this.tradeService = tradeService;
+	}
+
+	@Autowired
+	public void setBusinessClock(BusinessClock businessClock) {
+		this.businessClock = businessClock;
+	}
+
+	@Autowired
+	public void setRestTemplateBuilder(RestTemplateBuilder restTemplateBuilder) {
+		this.restTemplate = restTemplateBuilder.setConnectTimeout(Duration.ofSeconds(2))
+				.setReadTimeout(Duration.ofSeconds(5)).build();
+	}
+
+	@Value("${trade.ingest.async.queue-capacity:10000}")
+	public void setQueueCapacity(int queueCapacity) {
+		this.queueCapacity = queueCapacity;
+	}
+
+	@Value("${trade.ingest.async.workers:2}")
+	public void setWorkers(int workers) {
+		this.workers = workers;
+	}
+
+	@Value("${trade.ingest.async.max-batch-size:200}")
+	public void setMaxBatchSize(int maxBatchSize) {
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	@Value("${trade.ingest.async.ticket-ttl-seconds:3600}")
+	public void setTicketTtlSeconds(long ticketTtlSeconds) {
+		this.ticketTtlNanos = TimeUnit.SECONDS.toNanos(ticketTtlSeconds);
+	}
+
+	@Value("${trade.ingest.async.max-tickets:100000}")
+	public void setMaxTickets(int maxTickets) {
+		this.maxTickets = maxTickets;
+	}
+
+	// none configured, no X-Callback-Url is accepted
+	@Value("${trade.ingest.async.callback-url-prefixes:}")
+	public void setCallbackUrlPrefixes(String[] callbackUrlPrefixes) {
+
+		List<URI> prefixes = new ArrayList<>();
+		for (String prefix : callbackUrlPrefixes) {
+			if (StringUtils.hasText(prefix)) {
+				prefixes.add(URI.create(prefix.trim()).normalize());
+			}
+		}
+		this.callbackPrefixes = prefixes;
+	}
+
+	@PostConstruct
+	public void start() {
+
+		queue = new ArrayBlockingQueue<>(queueCapacity);
+		callbackExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity),
+				r -> new Thread(r, "trade-ingest-callback"), (r, executor) -> logger.warn("Dropped ingest callback, queue full"));
+		running = true;
+
+		for (int i = 0; i < workers; i++) {
+
+			Thread worker = new Thread(this::drain, "trade-ingest-" + i);
+			worker.setDaemon(true);
+			worker.start();
+			workerThreads.add(worker);
+		}
+		logger.info("Async trade ingestion started with {} workers, queue capacity={}", workers, queueCapacity);
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+
+		running = false;
+		for (Thread worker : workerThreads) {
+			worker.interrupt();
+			worker.join(TimeUnit.SECONDS.toMillis(30));
+		}
+
+		// accepted tickets are still processed before the service goes down
+		List<Pending> rest = new ArrayList<>();
+		queue.drainTo(rest);
+		if (!rest.isEmpty()) {
+			process(rest);
+		}
+		callbackExecutor.shutdown();
+	}
+
+	/**
+	 * @return ticket of the queued trade, empty when the queue is full
+	 */
+	public Optional<IngestTicket> submit(Trade trade, String callbackUrl) {
+
+		validate(trade);
+		if (null != callbackUrl && !isCallbackAllowed(callbackUrl)) {
+			throw new TradeStoreException("Callback url is not allowed: " + callbackUrl);
+		}
+
+		long ticketId = ticketSequence.incrementAndGet();
+		IngestTicket ticket = new IngestTicket(ticketId, trade.getTradeId(), trade.getTradeVersion(),
+				IngestTicket.Status.QUEUED, null, null);
+		tickets.put(ticketId, ticket);
+
+		if (!queue.offer(new Pending(ticketId, trade, callbackUrl))) {
+
+			tickets.remove(ticketId);
+			return Optional.empty();
+		}
+		return Optional.of(ticket);
+	}
+
+	public Optional<IngestTicket> getTicket(long ticket) {
+
+		return Optional.ofNullable(tickets.get(ticket));
+	}
+
+	/**
+	 * @return whether the url is an http(s) url on the scheme, host & port of a
+	 *         configured prefix and at or below its path, segment by segment
+	 */
+	public boolean isCallbackAllowed(String callbackUrl) {
+
+		URI uri;
+		try {
+			uri = URI.create(callbackUrl).normalize();
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+
+		if (!uri.isAbsolute() || null == uri.getHost() || null != uri.getRawUserInfo()
+				|| !("http".equalsIgnoreCase(uri.getScheme()) || "https".equalsIgnoreCase(uri.getScheme()))) {
+			return false;
+		}
+
+		// normalize() leaves encoded dot segments such as %2e%2e, decoded they would climb out of the prefix
+		if (null != uri.getPath() && hasDotSegment(uri.getPath())) {
+			return false;
+		}
+
+		String path = null == uri.getRawPath() ? "" : uri.getRawPath();
+		for (URI prefix : callbackPrefixes) {
+
+			String prefixPath = null == prefix.getRawPath() ? "" : prefix.getRawPath();
+			if (uri.getScheme().equalsIgnoreCase(prefix.getScheme()) && uri.getHost().equalsIgnoreCase(prefix.getHost())
+					&& portOf(uri) == portOf(prefix) && isAtOrBelow(path, prefixPath)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public int queued() {
+
+		return queue.size();
+	}
+
+	private void validate(Trade trade) {
+
+		if (null == trade.getTradeId() || null == trade.getTradeVersion() || null == trade.getMaturityDate()) {
+			throw new TradeStoreException("Rejected trade with missing tradeId/tradeVersion/maturityDate");
+		}
+
+		if (DateUtils.isBeforeToday(trade.getMaturityDate(), businessClock)) {
+			throw new TradeStoreException(TradeServiceImpl.maturityDateRejectedMessage(trade.getMaturityDate()));
+		}
+	}
+
+	private void drain() {
+
+		List<Pending> batch = new ArrayList<>(maxBatchSize);
+
+		while (running) {
+
+			try {
+
+				batch.add(queue.take());
+				queue.drainTo(batch, maxBatchSize - 1);
+				process(batch);
+
+			} catch (InterruptedException e) {
+
+				Thread.currentThread().interrupt();
+				return;
+
+			} finally {
+				batch.clear();
+			}
+			purgeExpiredTickets();
+		}
+	}
+
+	private void process(List<Pending> batch) {
+
+		List<Trade> trades = new ArrayList<>(batch.size());
+		batch.forEach(p -> trades.add(p.trade));
+
+		try {
+
+			List<TradeResult> results = tradeService.processAndSaveTrades(trades);
+			for (int i = 0; i < batch.size(); i++) {
+				complete(batch.get(i), IngestTicket.Status.PROCESSED, results.get(i), null);
+			}
+
+		} catch (RuntimeException e) {
+
+			if (batch.size() == 1) {
+
+				logger.error("Error while processing queued tradeId/tradeVersion={}/{}", batch.get(0).trade.getTradeId(),
+						batch.get(0).trade.getTradeVersion(), e);
+				complete(batch.get(0), IngestTicket.Status.FAILED, null, e.getMessage());
+				return;
+			}
+
+			// one bad trade must not fail the whole micro-batch, retry each on its own
+			logger.warn("Micro-batch of {} trades failed, processing them one by one: {}", batch.size(), e.getMessage());
+			batch.forEach(p -> process(Collections.singletonList(p)));
+		}
+	}
+
+	private void complete(Pending pending, IngestTicket.Status status, TradeResult result, String message) {
+
+		IngestTicket ticket = new IngestTicket(pending.ticket, pending.trade.getTradeId(),
+				pending.trade.getTradeVersion(), status, result, message);
+		tickets.put(pending.ticket, ticket);
+		completedTickets.add(new Completed(pending.ticket, System.nanoTime()));
+
+		// a burst must not outgrow the ttl, the oldest completed tickets go first
+		if (completedCount.incrementAndGet() > maxTickets) {
+			removeOldestTicket();
+		}
+
+		if (StringUtils.hasText(pending.callbackUrl)) {
+			callbackExecutor.execute(() -> callback(pending.callbackUrl, ticket));
+		}
+	}
+
+	private void callback(String callbackUrl, IngestTicket ticket) {
+
+		try {
+			restTemplate.postForLocation(callbackUrl, ticket);
+		} catch (RuntimeException e) {
+			logger.warn("Callback of ticket={} to {} failed: {}", ticket.getTicket(), callbackUrl, e.getMessage());
+		}
+	}
+
+	private void purgeExpiredTickets() {
+
+		long now = System.nanoTime();
+		Completed head;
+		while (null != (head = completedTickets.peek()) && now - head.completedAt > ticketTtlNanos) {
+
+			if (completedTickets.remove(head)) {
+				completedCount.decrementAndGet();
+				tickets.remove(head.ticket);
+			}
+		}
+	}
+
+	private void removeOldestTicket() {
+
+		Completed oldest = completedTickets.poll();
+		if (null != oldest) {
+			completedCount.decrementAndGet();
+			tickets.remove(oldest.ticket);
+		}
+	}
+
+	// a prefix path of /hooks covers /hooks and /hooks/..., not /hooks-evil
+	private static boolean isAtOrBelow(String path, String prefixPath) {
+
+		String base = prefixPath.endsWith("/") ? prefixPath.substring(0, prefixPath.length() - 1) : prefixPath;
+		return path.equals(base) || path.startsWith(base + "/");
+	}
+
+	private static boolean hasDotSegment(String path) {
+
+		for (String segment : path.split("/", -1)) {
+			if (".".equals(segment) || "..".equals(segment)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static int portOf(URI uri) {
+
+		if (-1 != uri.getPort()) {
+			return uri.getPort();
+		}
+		return "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+	}
+
+	private static final class Pending {
+
+		private final long ticket;
+
+		private final Trade trade;
+
+		private final String callbackUrl;
+
+		private Pending(long ticket, Trade trade, String callbackUrl) {
+			this.ticket = ticket;
+			this.trade = trade;
+			this.callbackUrl = callbackUrl;
+		}
+	}
+
+	private static final class Completed {
+
+		private final long ticket;
+
+		private final long completedAt;
+
+		private Completed(long ticket, long completedAt) {
+			this.ticket = ticket;
+			this.completedAt = completedAt;
+		}
+	}
+
+}
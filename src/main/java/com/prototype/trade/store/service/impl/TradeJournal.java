@@ -0,0 +1,300 @@
+package com.prototype.trade.store.service.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.prototype.trade.store.codec.TradeBinaryCodec;
+import com.prototype.trade.store.model.Trade;
+
+/**
+ * Memory-mapped ring journal of accepted trades. The file starts with
+ * [magic][applied position], followed by records framed as [length][crc32][trade]
+ * and a zero length terminator after the last one. Records between the applied
+ * and the write position are not yet in the database. Appends that no longer
+ * fit before the end of the file continue at its start, reusing the space of
+ * applied records, and leave a wrap marker (length -1) for the reader; once
+ * everything is applied the journal rewinds to its start.
+ */
+final class TradeJournal implements Closeable {
+
+	private static final Logger logger = LoggerFactory.getLogger(TradeJournal.class);
+
+	private static final int MAGIC = 0x54524a31;
+
+	private static final int APPLIED_OFFSET = 4;
+
+	static final int FILE_HEADER_SIZE = 12;
+
+	private static final int RECORD_HEADER_SIZE = 8;
+
+	private static final int TERMINATOR_SIZE = 4;
+
+	private static final int WRAP = -1;
+
+	private final Path path;
+
+	private final int capacity;
+
+	private final ByteArrayOutputStream encoded = new ByteArrayOutputStream(4096);
+
+	private final DataOutputStream encodedOut = new DataOutputStream(encoded);
+
+	private final CRC32 crc = new CRC32();
+
+	private FileChannel channel;
+
+	private MappedByteBuffer buffer;
+
+	private int writePosition;
+
+	private int appliedPosition;
+
+	TradeJournal(Path path, int capacity) {
+		this.path = path;
+		this.capacity = capacity;
+	}
+
+	synchronized void open() throws IOException {
+
+		if (null != path.getParent()) {
+			Files.createDirectories(path.getParent());
+		}
+
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(capacity, channel.size()));
+
+		if (MAGIC != buffer.getInt(0)) {
+
+			buffer.putInt(0, MAGIC);
+			rewind();
+		}
+
+		appliedPosition = (int) buffer.getLong(APPLIED_OFFSET);
+		writePosition = scan(appliedPosition);
+		if (writePosition == appliedPosition) {
+			rewind();
+		} else if (writePosition + TERMINATOR_SIZE <= buffer.capacity()) {
+			buffer.putInt(writePosition, 0);
+		}
+
+		logger.info("Opened trade journal {}, {} bytes not yet applied", path, backlog());
+	}
+
+	/**
+	 * Appends the trades with a single force to disk, two when they wrap around.
+	 * While the journal is full this waits up to the timeout for the flusher to
+	 * apply enough records.
+	 *
+	 * @return false if the journal stayed full
+	 */
+	synchronized boolean append(Collection<Trade> trades, long timeoutMillis) throws IOException {
+
+		encoded.reset();
+		int[] starts = new int[trades.size()];
+		int count = 0;
+		for (Trade trade : trades) {
+
+			starts[count++] = encoded.size();
+			encodedOut.writeLong(0); // length & crc, filled in by frame
+			TradeBinaryCodec.write(encodedOut, trade);
+		}
+		encodedOut.flush();
+		byte[] records = encoded.toByteArray();
+		frame(records, starts);
+
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		int position;
+		while ((position = reserve(records.length)) < 0) {
+
+			long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+			if (remaining <= 0) {
+				return false;
+			}
+			try {
+				wait(remaining);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+
+		ByteBuffer target = buffer.duplicate();
+		target.position(position);
+		target.put(records).putInt(0);
+		if (position != writePosition) {
+
+			// the records are on disk before the marker leading the reader to them
+			buffer.force();
+			buffer.putInt(writePosition, WRAP);
+		}
+		buffer.force();
+		writePosition = position + records.length;
+
+		return true;
+	}
+
+	synchronized int appliedPosition() {
+		return appliedPosition;
+	}
+
+	synchronized int writePosition() {
+		return writePosition;
+	}
+
+	/**
+	 * @return bytes not yet applied, with a wrapped journal including the unused
+	 *         end of the file
+	 */
+	synchronized int backlog() {
+
+		return writePosition >= appliedPosition ? writePosition - appliedPosition
+				: buffer.capacity() - appliedPosition + writePosition - FILE_HEADER_SIZE;
+	}
+
+	/**
+	 * Decodes up to maxTrades trades between from and end, the range must have
+	 * been read from {@link #writePosition()} and not yet marked applied.
+	 *
+	 * @return position after the last decoded trade
+	 */
+	int read(int from, int end, int maxTrades, List<Trade> trades) throws IOException {
+
+		ByteBuffer source = buffer.duplicate();
+		int position = from;
+
+		while (position != end && trades.size() < maxTrades) {
+
+			int length = source.getInt(position);
+			if (WRAP == length) {
+
+				position = FILE_HEADER_SIZE;
+				continue;
+			}
+			byte[] payload = new byte[length];
+			source.position(position + RECORD_HEADER_SIZE);
+			source.get(payload);
+
+			trades.add(TradeBinaryCodec.read(new DataInputStream(new ByteArrayInputStream(payload))));
+			position += RECORD_HEADER_SIZE + length;
+		}
+		return position;
+	}
+
+	/**
+	 * Records everything up to the position as applied, its space can be reused
+	 * by appends. Rewinds once the journal is fully applied.
+	 */
+	synchronized void markApplied(int position) {
+
+		if (position == writePosition) {
+			rewind();
+		} else {
+
+			appliedPosition = position;
+			buffer.putLong(APPLIED_OFFSET, position);
+			buffer.force();
+		}
+		notifyAll();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+
+		if (null != channel && channel.isOpen()) {
+
+			buffer.force();
+			channel.close();
+		}
+	}
+
+	private void rewind() {
+
+		appliedPosition = FILE_HEADER_SIZE;
+		writePosition = FILE_HEADER_SIZE;
+		buffer.putLong(APPLIED_OFFSET, FILE_HEADER_SIZE);
+		buffer.putInt(FILE_HEADER_SIZE, 0);
+		buffer.force();
+	}
+
+	// where records of the length fit without overwriting unapplied ones, -1 while the journal is full
+	private int reserve(int length) {
+
+		int required = length + TERMINATOR_SIZE;
+
+		// wrapped, the free space ends at the oldest unapplied record
+		if (writePosition < appliedPosition) {
+			return writePosition + required <= appliedPosition ? writePosition : -1;
+		}
+		if (writePosition + required <= buffer.capacity()) {
+			return writePosition;
+		}
+		return FILE_HEADER_SIZE + required <= appliedPosition ? FILE_HEADER_SIZE : -1;
+	}
+
+	// fills in length & crc of the records encoded by append
+	private void frame(byte[] records, int[] starts) {
+
+		ByteBuffer frames = ByteBuffer.wrap(records);
+		for (int i = 0; i < starts.length; i++) {
+
+			int payloadStart = starts[i] + RECORD_HEADER_SIZE;
+			int length = (i + 1 < starts.length ? starts[i + 1] : records.length) - payloadStart;
+
+			crc.reset();
+			crc.update(records, payloadStart, length);
+			frames.putInt(starts[i], length);
+			frames.putInt(starts[i] + 4, (int) crc.getValue());
+		}
+	}
+
+	// walks intact records from the position across one wrap, a torn or corrupt record ends the journal
+	private int scan(int position) {
+
+		CRC32 recordCrc = new CRC32();
+		ByteBuffer source = buffer.duplicate();
+		boolean wrapped = false;
+
+		while (position + TERMINATOR_SIZE <= buffer.capacity()) {
+
+			int length = buffer.getInt(position);
+			if (WRAP == length && !wrapped) {
+
+				wrapped = true;
+				position = FILE_HEADER_SIZE;
+				continue;
+			}
+			if (length <= 0 || position + RECORD_HEADER_SIZE + length > buffer.capacity()) {
+				break;
+			}
+
+			source.limit(position + RECORD_HEADER_SIZE + length).position(position + RECORD_HEADER_SIZE);
+			recordCrc.reset();
+			recordCrc.update(source);
+			source.limit(source.capacity());
+
+			if ((int) recordCrc.getValue() != buffer.getInt(position + 4)) {
+				break;
+			}
+			position += RECORD_HEADER_SIZE + length;
+		}
+		return position;
+	}
+
+}
@@ -0,0 +1,240 @@
+package com.prototype.trade.store.service.impl;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import com.prototype.trade.store.model.Trade;
+import com.prototype.trade.store.model.TradeEvent.Type;
+import com.prototype.trade.store.model.TradeKey;
+import com.prototype.trade.store.model.TradeMaturityView;
+import com.prototype.trade.store.repository.TradeBatchDao;
+import com.prototype.trade.store.repository.TradeStoreDao;
+
+/**
+ * In-process min-heap of active trades keyed by maturity day. It is filled once
+ * at startup, fed by every saved trade and drained at each day boundary, so a
+ * run only touches the trades that are actually due.
+ *
+ * A trade has at most one entry, an amended maturity moves it. Entries of
+ * superseded versions stay until due: expiry re-checks EXPIRED and
+ * MATURITY_DATE in the database, which makes them harmless.
+ */
+@Component
+@ConditionalOnProperty(name = "trade.expiry.index.enabled", havingValue = "true")
+public class TradeMaturityIndex {
+
+	private static final Logger logger = LoggerFactory.getLogger(TradeMaturityIndex.class);
+
+	private TradeStoreDao<Trade> tradeDao;
+
+	private TradeBatchDao tradeBatchDao;
+
+	private TradeVersionCache tradeVersionCache;
+
+	private TradeEventFeed tradeEventFeed;
+
+	private int chunkSize = 1000;
+
+	private final MaturityHeap heap = new MaturityHeap(1024);
+
+	@Autowired
+	public void setTradeDao(TradeStoreDao<Trade> tradeDao) {
+		this.tradeDao = tradeDao;
+	}
+
+	@Autowired
+	public void setTradeBatchDao(TradeBatchDao tradeBatchDao) {
+		this.tradeBatchDao = tradeBatchDao;
+	}
+
+	@Autowired(required = false)
+	public void setTradeVersionCache(TradeVersionCache tradeVersionCache) {
+		this.tradeVersionCache = tradeVersionCache;
+	}
+
+	@Autowired(required = false)
+	public void setTradeEventFeed(TradeEventFeed tradeEventFeed) {
+		this.tradeEventFeed = tradeEventFeed;
+	}
+
+	@Value("${trade.expiry.chunk-size:1000}")
+	public void setChunkSize(int chunkSize) {
+		this.chunkSize = chunkSize;
+	}
+
+	public void load() {
+
+		int afterId = 0;
+		int loaded = 0;
+		List<TradeMaturityView> page;
+
+		do {
+
+			page = tradeDao.findActiveTradeMaturities(afterId, PageRequest.of(0, chunkSize));
+			for (TradeMaturityView t : page) {
+
+				add(t.getTradeId(), t.getTradeVersion(), t.getMaturityDate());
+				afterId = t.getId();
+			}
+			loaded += page.size();
+
+		} while (page.size() == chunkSize);
+
+		logger.info("Maturity index loaded with {} active trades", loaded);
+	}
+
+	public void add(int tradeId, int tradeVersion, LocalDateTime maturityDate) {
+
+		long maturityDay = maturityDate.toLocalDate().toEpochDay();
+		synchronized (heap) {
+			heap.push((int) maturityDay, TradeKey.of(tradeId, tradeVersion));
+		}
+	}
+
+	public int size() {
+
+		synchronized (heap) {
+			return heap.size;
+		}
+	}
+
+	/**
+	 * Expires all indexed trades matured before today. Entries of a failed chunk
+	 * are left to the reconciliation sweep.
+	 */
+	public int expireDueTrades(LocalDate today) {
+
+		int todayEpochDay = (int) today.toEpochDay();
+		LocalDateTime cutoff = today.atStartOfDay();
+		int expiredTrades = 0;
+		List<Long> dueKeys;
+
+		do {
+
+			dueKeys = new ArrayList<>();
+			synchronized (heap) {
+				while (heap.size > 0 && heap.peekDay() < todayEpochDay && dueKeys.size() < chunkSize) {
+					dueKeys.add(heap.pop());
+				}
+			}
+
+			if (!dueKeys.isEmpty()) {
+
+				expiredTrades += null == tradeEventFeed ? tradeBatchDao.expireTrades(dueKeys, cutoff)
+						: tradeBatchDao.expireTrades(dueKeys, cutoff, key -> tradeEventFeed
+								.publishAfterCommit(Type.EXPIRED, TradeKey.tradeId(key), TradeKey.tradeVersion(key)));
+				if (null != tradeVersionCache) {
+					dueKeys.forEach(key -> tradeVersionCache.invalidate(TradeKey.tradeId(key)));
+				}
+			}
+
+		} while (dueKeys.size() == chunkSize);
+
+		return expiredTrades;
+	}
+
+	/**
+	 * Binary min-heap over parallel primitive arrays, ordered by maturity day,
+	 * with the position of each key so a pushed key already held is moved.
+	 */
+	private static final class MaturityHeap {
+
+		private int[] days;
+
+		private long[] keys;
+
+		private int size;
+
+		private final LongIntHashMap positions;
+
+		private MaturityHeap(int initialCapacity) {
+			this.days = new int[initialCapacity];
+			this.keys = new long[initialCapacity];
+			this.positions = new LongIntHashMap(initialCapacity);
+		}
+
+		private int peekDay() {
+			return days[0];
+		}
+
+		private void push(int day, long key) {
+
+			int position = positions.get(key);
+			if (LongIntHashMap.NO_VALUE != position) {
+
+				int previousDay = days[position];
+				if (day < previousDay) {
+					siftUp(position, day, key);
+				} else if (day > previousDay) {
+					siftDown(position, day, key);
+				}
+				return;
+			}
+
+			if (size == days.length) {
+				days = Arrays.copyOf(days, size << 1);
+				keys = Arrays.copyOf(keys, size << 1);
+			}
+			siftUp(size++, day, key);
+		}
+
+		private long pop() {
+
+			long top = keys[0];
+			positions.remove(top);
+			if (--size > 0) {
+				siftDown(0, days[size], keys[size]);
+			}
+			return top;
+		}
+
+		private void siftUp(int i, int day, long key) {
+
+			while (i > 0) {
+				int parent = (i - 1) >>> 1;
+				if (days[parent] <= day) {
+					break;
+				}
+				set(i, days[parent], keys[parent]);
+				i = parent;
+			}
+			set(i, day, key);
+		}
+
+		private void siftDown(int i, int day, long key) {
+
+			int half = size >>> 1;
+			while (i < half) {
+				int child = (i << 1) + 1;
+				if (child + 1 < size && days[child + 1] < days[child]) {
+					child++;
+				}
+				if (day <= days[child]) {
+					break;
+				}
+				set(i, days[child], keys[child]);
+				i = child;
+			}
+			set(i, day, key);
+		}
+
+		private void set(int i, int day, long key) {
+
+			days[i] = day;
+			keys[i] = key;
+			positions.put(key, i);
+		}
+	}
+
+}
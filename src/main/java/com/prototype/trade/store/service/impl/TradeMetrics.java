@@ -0,0 +1,137 @@
+package com.prototype.trade.store.service.impl;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.prototype.trade.store.model.TradeResult.Status;
+import com.prototype.trade.store.service.ExpiryMode;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Meters of the trade hot paths. All meters are registered up front and held in
+ * fields, recording is a nanoTime delta plus a lock-free add without any tag or
+ * registry lookup.
+ */
+@Component
+public class TradeMetrics {
+
+	public enum Reason {
+		NONE, LOWER_VERSION, MATURED, INVALID, STORE_FAILURE
+	}
+
+	private static final int REASONS = Reason.values().length;
+
+	private MeterRegistry meterRegistry;
+
+	private ExpiryMode expiryMode = ExpiryMode.PER_ROW;
+
+	private Timer processSingleTimer;
+
+	private Timer processBatchTimer;
+
+	private Timer lookupTimer;
+
+	private Timer reconciliationSweepTimer;
+
+	private Timer indexSweepTimer;
+
+	private Counter expiredTrades;
+
+	private Counter throttledTrades;
+
+	private Counter deadLetteredTrades;
+
+	// indexed by Status ordinal * Reason count + Reason ordinal, null for impossible pairs
+	private final Counter[] results = new Counter[Status.values().length * REASONS];
+
+	@Autowired
+	public void setMeterRegistry(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Value("${trade.expiry.mode:PER_ROW}")
+	public void setExpiryMode(ExpiryMode expiryMode) {
+		this.expiryMode = expiryMode;
+	}
+
+	@PostConstruct
+	public void register() {
+
+		processSingleTimer = timer("trade.process", "Validation & write of received trades", "op", "single");
+		processBatchTimer = timer("trade.process", "Validation & write of received trades", "op", "batch");
+		lookupTimer = timer("trade.lookup", "Lookup of a trade by tradeId & tradeVersion");
+		reconciliationSweepTimer = timer("trade.expiry.sweep", "Expiry runs", "trigger", "reconciliation", "mode",
+				expiryMode.name().toLowerCase());
+		indexSweepTimer = timer("trade.expiry.sweep", "Expiry runs", "trigger", "index", "mode", "index");
+
+		expiredTrades = Counter.builder("trade.expiry.expired").description("Trades set expired").register(meterRegistry);
+		throttledTrades = Counter.builder("trade.ingest.throttled").description("Async submits rejected on a full queue")
+				.register(meterRegistry);
+		deadLetteredTrades = Counter.builder("trade.write-behind.dead-lettered")
+				.description("Journaled trades that could not be applied, see the dead-letter file").register(meterRegistry);
+
+		result(Status.ACCEPTED, Reason.NONE);
+		result(Status.UPDATED, Reason.NONE);
+		result(Status.REJECTED, Reason.LOWER_VERSION);
+		result(Status.REJECTED, Reason.MATURED);
+		result(Status.REJECTED, Reason.INVALID);
+		result(Status.REJECTED, Reason.STORE_FAILURE);
+	}
+
+	public void recordResult(Status status, Reason reason) {
+
+		Counter counter = results[status.ordinal() * REASONS + reason.ordinal()];
+		if (null != counter) {
+			counter.increment();
+		}
+	}
+
+	public void recordProcess(boolean batch, long startNanos) {
+
+		(batch ? processBatchTimer : processSingleTimer).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+	}
+
+	public void recordLookup(long startNanos) {
+
+		lookupTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+	}
+
+	public void recordExpirySweep(boolean index, long startNanos, int expired) {
+
+		(index ? indexSweepTimer : reconciliationSweepTimer).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+		expiredTrades.increment(expired);
+	}
+
+	public void recordThrottled() {
+
+		throttledTrades.increment();
+	}
+
+	public void recordDeadLettered() {
+
+		deadLetteredTrades.increment();
+	}
+
+	private void result(Status status, Reason reason) {
+
+		results[status.ordinal() * REASONS + reason.ordinal()] = Counter.builder("trade.results")
+				.description("Processed trades by outcome").tags("status", status.name().toLowerCase(), "reason",
+						reason.name().toLowerCase())
+				.register(meterRegistry);
+	}
+
+	private Timer timer(String name, String description, String... tags) {
+
+		return Timer.builder(name).description(description).tags(tags).publishPercentileHistogram()
+				.register(meterRegistry);
+	}
+
+}
@@ -1,155 +1,849 @@
 package com.prototype.trade.store.service.impl;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.Period;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import com.prototype.trade.store.date.util.BusinessClock;
 import com.prototype.trade.store.date.util.DateUtils;
 import com.prototype.trade.store.exception.TradeStoreException;
 import com.prototype.trade.store.model.Trade;
-import com.prototype.trade.store.repository.TradeDao;
+import com.prototype.trade.store.model.TradeCursor;
+import com.prototype.trade.store.model.TradeEvent.Type;
+import com.prototype.trade.store.model.TradeKey;
+import com.prototype.trade.store.model.TradePage;
+import com.prototype.trade.store.model.TradeResult;
+import com.prototype.trade.store.model.TradeResult.Status;
+import com.prototype.trade.store.model.TradeVersionView;
+import com.prototype.trade.store.repository.TradeArchiveDao;
+import com.prototype.trade.store.repository.TradeBatchDao;
+import com.prototype.trade.store.repository.TradeBatchDao.Column;
+import com.prototype.trade.store.repository.TradeLatestDao;
+import com.prototype.trade.store.repository.TradeStoreDao;
+import com.prototype.trade.store.repository.impl.JdbcSavepoints;
+import com.prototype.trade.store.service.ExpiryMode;
 import com.prototype.trade.store.service.TradeService;
+import com.prototype.trade.store.service.UpdateMode;
+import com.prototype.trade.store.service.impl.TradeMetrics.Reason;
 
 @Service
 public class TradeServiceImpl implements TradeService {
 
 	private static final Logger logger = LoggerFactory.getLogger(TradeServiceImpl.class);
 
-	private TradeDao tradeDao;
+	private TradeStoreDao<Trade> tradeDao;
+
+	private TradeBatchDao tradeBatchDao;
+
+	private TradeLatestDao tradeLatestDao;
+
+	private TradeArchiveDao tradeArchiveDao;
+
+	private TradeExpiryEngine tradeExpiryEngine;
+
+	private TradeMaturityIndex tradeMaturityIndex;
+
+	private TradeVersionCache tradeVersionCache;
+
+	private TradeMetrics tradeMetrics;
+
+	private TradeEventFeed tradeEventFeed;
+
+	private JdbcSavepoints jdbcSavepoints;
+
+	private EntityManager entityManager;
+
+	private BusinessClock businessClock = new BusinessClock();
+
+	private int batchSize = 500;
+
+	private ExpiryMode expiryMode = ExpiryMode.PER_ROW;
+
+	private UpdateMode updateMode = UpdateMode.ENTITY;
 
 	@Autowired
-	public void setTradeDao(TradeDao tradeDao) {
+	public void setTradeDao(TradeStoreDao<Trade> tradeDao) {
 		this.tradeDao = tradeDao;
 	}
 
+	@Autowired
+	public void setTradeBatchDao(TradeBatchDao tradeBatchDao) {
+		this.tradeBatchDao = tradeBatchDao;
+	}
+
+	@Autowired(required = false)
+	public void setTradeLatestDao(TradeLatestDao tradeLatestDao) {
+		this.tradeLatestDao = tradeLatestDao;
+	}
+
+	@Autowired(required = false)
+	public void setTradeArchiveDao(TradeArchiveDao tradeArchiveDao) {
+		this.tradeArchiveDao = tradeArchiveDao;
+	}
+
+	@Autowired
+	public void setTradeExpiryEngine(TradeExpiryEngine tradeExpiryEngine) {
+		this.tradeExpiryEngine = tradeExpiryEngine;
+	}
+
+	@Autowired(required = false)
+	public void setTradeMaturityIndex(TradeMaturityIndex tradeMaturityIndex) {
+		this.tradeMaturityIndex = tradeMaturityIndex;
+	}
+
+	@Autowired(required = false)
+	public void setTradeVersionCache(TradeVersionCache tradeVersionCache) {
+		this.tradeVersionCache = tradeVersionCache;
+	}
+
+	@Autowired(required = false)
+	public void setTradeMetrics(TradeMetrics tradeMetrics) {
+		this.tradeMetrics = tradeMetrics;
+	}
+
+	@Autowired(required = false)
+	public void setTradeEventFeed(TradeEventFeed tradeEventFeed) {
+		this.tradeEventFeed = tradeEventFeed;
+	}
+
+	@Autowired(required = false)
+	public void setJdbcSavepoints(JdbcSavepoints jdbcSavepoints) {
+		this.jdbcSavepoints = jdbcSavepoints;
+	}
+
+	@Autowired
+	public void setBusinessClock(BusinessClock businessClock) {
+		this.businessClock = businessClock;
+	}
+
+	@PersistenceContext
+	public void setEntityManager(EntityManager entityManager) {
+		this.entityManager = entityManager;
+	}
+
+	@Value("${trade.batch.size:500}")
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	@Value("${trade.expiry.mode:PER_ROW}")
+	public void setExpiryMode(ExpiryMode expiryMode) {
+		this.expiryMode = expiryMode;
+	}
+
+	@Value("${trade.update.mode:ENTITY}")
+	public void setUpdateMode(UpdateMode updateMode) {
+		this.updateMode = updateMode;
+	}
+
 	@Override
 	public Optional<Trade> getTradeWithIdTradeVersion(Integer tradeId, Integer tradeVersion) {
 
-		return tradeDao.findTradeByTradeIdTradeVersion(tradeId, tradeVersion);
+		long start = System.nanoTime();
+		try {
+
+			Optional<Trade> trade = null != tradeVersionCache
+					? Optional.ofNullable(tradeVersionCache.getTrade(tradeId, tradeVersion))
+					: tradeDao.findTradeByTradeIdTradeVersion(tradeId, tradeVersion);
+			return trade.isPresent() ? trade : findArchivedTrade(tradeId, tradeVersion);
+
+		} finally {
+			if (null != tradeMetrics) {
+				tradeMetrics.recordLookup(start);
+			}
+		}
+	}
+
+	@Override
+	public Optional<Trade> getLatestTrade(Integer tradeId) {
+
+		long start = System.nanoTime();
+		try {
+
+			if (null != tradeLatestDao) {
+
+				Optional<Trade> trade = tradeLatestDao.findLatestTrade(tradeId);
+				if (trade.isPresent() || null == tradeArchiveDao) {
+					return trade;
+				}
+
+				// a latest version archived before TradeArchiver kept it in TRADE
+				Optional<Integer> latestVersion = tradeLatestDao.findLatestVersion(tradeId);
+				return latestVersion.isPresent() ? findArchivedTrade(tradeId, latestVersion.get()) : trade;
+			}
+
+			int latestVersion = findLatestTradeVersion(tradeId);
+			return TradeVersionCache.NO_VERSION == latestVersion ? Optional.empty()
+					: tradeDao.findTradeByTradeIdTradeVersion(tradeId, latestVersion);
+
+		} finally {
+			if (null != tradeMetrics) {
+				tradeMetrics.recordLookup(start);
+			}
+		}
 	}
 
 	@Transactional(propagation = Propagation.REQUIRES_NEW)
 	@Override
 	public String processAndSaveTrade(Trade trade) {
 
-		// check if trade to be persisted has future maturity date
-		tradeWithFutureMaturtyDate(trade.getMaturityDate());
+		long start = System.nanoTime();
+		try {
 
-		Optional<List<Trade>> savedTrades = tradeDao.findTradesByTradeId(trade.getTradeId());
-		
-		if (savedTrades.isPresent()) { 	// when trades already exists in trade-store
+			// check if trade to be persisted has future maturity date
+			tradeWithFutureMaturtyDate(trade.getMaturityDate());
 
-			validateTradeVersionAndUpdateTrade(trade, savedTrades.get());
+			// only the highest stored version is needed to validate the received one
+			int latestVersion = findLatestTradeVersion(trade.getTradeId());
 
-		} else { // when fresh trade is received-trade not exists in trade-store
+			// when trade already exists in trade-store, same version is updated in place
+			boolean updated = TradeVersionCache.NO_VERSION != latestVersion
+					&& validateTradeVersionAndUpdateTrade(trade, latestVersion);
 
-			trade = tradeDao.saveAndFlush(trade);
-			logger.info("Saved tradeId={}, Tradeversion={}", trade.getTradeId(), trade.getTradeVersion());
+			if (!updated) { // when fresh trade or new trade version is received
+
+				trade = tradeDao.saveAndFlush(trade);
+				if (null != tradeLatestDao) {
+					tradeLatestDao.saveLatest(trade);
+				}
+				indexMaturity(trade);
+				logger.debug("Saved tradeId={}, Tradeversion={}", trade.getTradeId(), trade.getTradeVersion());
+			}
+			if (null != tradeVersionCache) {
+				invalidateCachedVersions(Collections.singleton(trade.getTradeId()));
+			}
+			if (null != tradeMetrics) {
+				recordResultsAfterCommit(Collections.singletonList(updated ? Status.UPDATED : Status.ACCEPTED));
+			}
+			if (null != tradeEventFeed) {
+				tradeEventFeed.publishAfterCommit(updated ? Type.UPDATED : Type.ACCEPTED, trade.getTradeId(),
+						trade.getTradeVersion());
+			}
+
+			return successMessage(trade);
+
+		} catch (TradeStoreException exp) {
+
+			if (null != tradeEventFeed) {
+				tradeEventFeed.publish(Type.REJECTED, trade.getTradeId(), trade.getTradeVersion(), exp.getMessage());
+			}
+			throw exp;
+
+		} finally {
+			if (null != tradeMetrics) {
+				tradeMetrics.recordProcess(false, start);
+			}
+		}
+	}
+
+	@Transactional(propagation = Propagation.REQUIRES_NEW)
+	@Override
+	public List<TradeResult> processAndSaveTrades(List<Trade> trades) {
+
+		long start = System.nanoTime();
+		try {
+			return saveTrades(trades);
+		} finally {
+			if (null != tradeMetrics) {
+				tradeMetrics.recordProcess(true, start);
+			}
+		}
+	}
+
+	private List<TradeResult> saveTrades(List<Trade> trades) {
+
+		List<TradeResult> results = new ArrayList<>(trades.size());
+
+		// highest stored version per tradeId, loaded once for the whole batch
+		Map<Integer, Integer> latestVersions = findLatestVersions(trades);
+
+		Map<Long, Trade> tradesToInsert = new LinkedHashMap<>();
+		Map<Long, Trade> tradesToUpdate = new LinkedHashMap<>();
+
+		long todayEpochDay = businessClock.todayEpochDay();
+
+		for (Trade trade : trades) {
+
+			Integer latestVersion = latestVersions.get(trade.getTradeId());
+			Reason rejection = validate(trade, latestVersion, todayEpochDay);
+			if (Reason.NONE != rejection) {
+
+				results.add(result(trade, Status.REJECTED, rejection, rejectedMessage(trade, rejection)));
+				continue;
+			}
+
+			long key = TradeKey.of(trade);
+
+			if (null == latestVersion || trade.getTradeVersion() > latestVersion) { // fresh trade or new version
+
+				tradesToInsert.put(key, trade);
+				latestVersions.put(trade.getTradeId(), trade.getTradeVersion());
+				results.add(result(trade, Status.ACCEPTED, Reason.NONE, null));
+
+			} else { // same version, the latest one wins within the batch
+
+				if (tradesToInsert.containsKey(key)) {
+					tradesToInsert.put(key, trade);
+				} else {
+					tradesToUpdate.put(key, trade);
+				}
+				results.add(result(trade, Status.UPDATED, Reason.NONE, null));
+			}
 		}
 
-		return "Successfully processed & saved tradeId=" + trade.getTradeId() + ", tradeVersion=" + trade.getTradeVersion();
+		Map<Long, Trade> failedTrades = new HashMap<>();
+		try {
+			inSavepoint(() -> writeTrades(tradesToInsert.values(), tradesToUpdate.values())
+					.forEach(trade -> failedTrades.put(TradeKey.of(trade), trade)));
+		} catch (DataAccessException exp) {
+
+			// e.g. one row breaking a constraint, only the rows the store refuses are rejected
+			logger.warn("Batch write of {} trades failed, writing them one by one: {}",
+					tradesToInsert.size() + tradesToUpdate.size(), exp.getMessage());
+			failedTrades.clear();
+			failedTrades.putAll(writeTradesOneByOne(tradesToInsert, tradesToUpdate));
+		}
+		tradesToInsert.keySet().removeAll(failedTrades.keySet());
+		tradesToUpdate.keySet().removeAll(failedTrades.keySet());
+
+		tradesToInsert.values().forEach(this::indexMaturity);
+		tradesToUpdate.values().forEach(this::indexMaturity);
+		if (!tradesToInsert.isEmpty() || !tradesToUpdate.isEmpty()) {
+			invalidateCachedVersions(latestVersions.keySet());
+		}
+		settleResults(results, failedTrades);
 
+		logger.info("Processed batch of {} trades, inserted={}, updated={}, failed={}", trades.size(),
+				tradesToInsert.size(), tradesToUpdate.size(), failedTrades.size());
+		if (null != tradeMetrics) {
+			recordResultsAfterCommit(results.stream().map(TradeResult::getStatus).filter(s -> Status.REJECTED != s)
+					.collect(Collectors.toList()));
+		}
+
+		return results;
 	}
 	
-	@Transactional(propagation = Propagation.REQUIRES_NEW)
-	public void markMaturedTradeExpired() {
+	@Override
+	public int markMaturedTradeExpired() {
 
-		Optional<List<Trade>> activeTradesList = tradeDao.findAllActiveTrades();
+		if (ExpiryMode.SET_BASED == expiryMode) {
 
-		if (activeTradesList.isPresent()) {
+			int expiredTrades = tradeExpiryEngine.expireMaturedTrades(businessClock.today());
+			logger.info("Set-based expiry sweep expired {} trades", expiredTrades);
+			invalidateAllCachedVersions(expiredTrades);
+			return expiredTrades;
+		}
+
+		if (ExpiryMode.PARTITIONED == expiryMode) {
+
+			int expiredTrades = tradeExpiryEngine.expireMaturedTradesPartitioned(businessClock.today());
+			logger.info("Partitioned expiry sweep expired {} trades", expiredTrades);
+			invalidateAllCachedVersions(expiredTrades);
+			return expiredTrades;
+		}
 
-			List<Trade> activeTrades = activeTradesList.get();
-			logger.info("Total unexpired trades={}", activeTrades.size());
+		int expiredTrades = 0;
 
-			activeTrades.stream().forEach(t -> {
+		// one business date for the whole sweep, even if it runs past midnight
+		LocalDate today = businessClock.today();
+		Optional<List<Trade>> maturedTradesList = tradeDao.findActiveTradesMaturedBefore(today.atStartOfDay());
 
-				Period p = DateUtils.differenceBetweenDates(LocalDateTime.now(), t.getMaturityDate());
-				if (p.isNegative()) {
+		if (maturedTradesList.isPresent()) {
 
+			List<Trade> maturedTrades = maturedTradesList.get();
+			logger.info("Total matured unexpired trades={}", maturedTrades.size());
+
+			long todayEpochDay = today.toEpochDay();
+			for (Trade t : maturedTrades) {
+
+				if (DateUtils.isBeforeDay(t.getMaturityDate(), todayEpochDay)) {
+
+					// each update commits on its own, see TradeDao.expireTrade
 					tradeDao.expireTrade(t.getTradeId(), t.getTradeVersion());
-					
+					expiredTrades++;
+					if (null != tradeEventFeed) {
+						tradeEventFeed.publishAfterCommit(Type.EXPIRED, t.getTradeId(), t.getTradeVersion());
+					}
+
 					logger.info("TradeId={}, TradeVersion={} has been set expired={}", t.getTradeId(),
 							t.getTradeVersion(), t.getExpired());
 				}
-			});
+			}
 		}
+		invalidateAllCachedVersions(expiredTrades);
+		return expiredTrades;
 	}
 
-	private void validateTradeVersionAndUpdateTrade(final Trade trade, final List<Trade> existingTradesList) {
+	@Override
+	public TradePage getTrades(String cursor, Boolean expired, LocalDate maturityFrom, LocalDate maturityTo,
+			int limit) {
+
+		long afterKey;
+		try {
+			afterKey = TradeCursor.decode(cursor);
+		} catch (IllegalArgumentException exp) {
+			throw new TradeStoreException("Invalid cursor=" + cursor);
+		}
+
+		// one row beyond the page tells whether another page follows
+		List<Trade> trades = tradeDao.findTradesAfterKey(TradeKey.tradeId(afterKey), TradeKey.tradeVersion(afterKey),
+				expired, null == maturityFrom ? null : maturityFrom.atStartOfDay(),
+				null == maturityTo ? null : maturityTo.plusDays(1).atStartOfDay(), PageRequest.of(0, limit + 1));
+
+		if (trades.size() <= limit) {
+			return new TradePage(trades, null);
+		}
+
+		List<Trade> page = new ArrayList<>(trades.subList(0, limit));
+		return new TradePage(page, TradeCursor.encode(TradeKey.of(page.get(limit - 1))));
+	}
+
+	@Transactional(readOnly = true)
+	@Override
+	public int streamTrades(String bookId, String counterpartyId, boolean activeOnly, Consumer<Trade> consumer) {
+
+		int streamed = 0;
+		try (Stream<Trade> trades = tradeDao.streamTrades(bookId, counterpartyId, activeOnly)) {
+
+			Iterator<Trade> iterator = trades.iterator();
+			while (iterator.hasNext()) {
+
+				Trade trade = iterator.next();
+
+				// written out once, must not pile up in the persistence context
+				if (null != entityManager && entityManager.contains(trade)) {
+					entityManager.detach(trade);
+				}
+				consumer.accept(trade);
+				streamed++;
+			}
+		}
+		logger.info("Streamed {} trades for bookId={}, counterpartyId={}, activeOnly={}", streamed, bookId,
+				counterpartyId, activeOnly);
+
+		return streamed;
+	}
+
+	private boolean validateTradeVersionAndUpdateTrade(final Trade trade, final int latestVersion) {
 
 		// reject to process/save if lower trade version received
-		if (tradeWithLowerVersion(trade, existingTradesList)) {
+		if (tradeWithLowerVersion(trade, latestVersion)) {
 
-			String message = "Rejected tradeId/tradeVerssion=" + trade.getTradeId() + "/" + trade.getTradeVersion()
-					+ " as lower trade version is received";
+			String message = lowerVersionRejectedMessage(trade);
 			logger.info(message);
+			recordResult(Status.REJECTED, Reason.LOWER_VERSION);
 			throw new TradeStoreException(message);
 		}
 
 		// if trade with same exiting version is received then update existing trade
-		Trade existingTrade =  tradeWithSameVersion(trade, existingTradesList); 
+		Trade existingTrade = tradeWithSameVersion(trade, latestVersion);
+		if (null != existingTrade && UpdateMode.TARGETED == updateMode) {
+
+			updateChangedColumns(trade, existingTrade);
+			return true;
+		}
+
 		if (null != existingTrade) {
 
 			// update existing trade
+			boolean maturityChanged = !Objects.equals(trade.getMaturityDate(), existingTrade.getMaturityDate());
 			existingTrade.setBookId(trade.getBookId());
 			existingTrade.setCounterpartyId(trade.getCounterpartyId());
 			existingTrade.setCreatedDate(trade.getCreatedDate());
 			existingTrade.setMaturityDate(trade.getMaturityDate());
 			existingTrade.setExpired(trade.getExpired());
 			existingTrade.setVersion(existingTrade.getVersion() + 1);
-			tradeDao.saveAndFlush(trade);
+			tradeDao.saveAndFlush(existingTrade);
+			if (maturityChanged) {
+				indexMaturity(existingTrade);
+			}
 
-			logger.info("Updated tradeId={}, tradeversion={}", existingTrade.getTradeId(),
+			logger.debug("Updated tradeId={}, tradeversion={}", existingTrade.getTradeId(),
 					existingTrade.getTradeVersion());
+			return true;
+		}
+		return false;
+	}
+
+	private void updateChangedColumns(Trade trade, Trade existingTrade) {
+
+		// the row is written by the targeted update, the entity must not be flushed
+		if (null != entityManager && entityManager.contains(existingTrade)) {
+			entityManager.detach(existingTrade);
+		}
+
+		Set<Column> changed = EnumSet.noneOf(Column.class);
+		if (!Objects.equals(trade.getCounterpartyId(), existingTrade.getCounterpartyId())) {
+			changed.add(Column.COUNTERPARTY_ID);
+		}
+		if (!Objects.equals(trade.getBookId(), existingTrade.getBookId())) {
+			changed.add(Column.BOOK_ID);
+		}
+		if (!Objects.equals(trade.getMaturityDate(), existingTrade.getMaturityDate())) {
+			changed.add(Column.MATURITY_DATE);
+		}
+		if (!Objects.equals(trade.getCreatedDate(), existingTrade.getCreatedDate())) {
+			changed.add(Column.CREATED_DATE);
+		}
+		if (!Objects.equals(trade.getExpired(), existingTrade.getExpired())) {
+			changed.add(Column.EXPIRED);
+		}
+
+		if (changed.isEmpty()) {
+
+			logger.debug("Unchanged tradeId={}, tradeversion={}, nothing written", trade.getTradeId(),
+					trade.getTradeVersion());
+			return;
+		}
+
+		int expectedVersion = null == existingTrade.getVersion() ? 1 : existingTrade.getVersion();
+		if (0 == tradeBatchDao.updateTradeColumns(trade, expectedVersion, changed)) {
+
+			String message = "Concurrent update of tradeId=" + trade.getTradeId() + ", tradeVersion="
+					+ trade.getTradeVersion() + ", retry";
+			logger.info(message);
+			throw new TradeStoreException(message);
 		}
+
+		if (changed.contains(Column.MATURITY_DATE)) {
+			indexMaturity(trade);
+		}
+		logger.debug("Updated {} of tradeId={}, tradeversion={}", changed, trade.getTradeId(), trade.getTradeVersion());
 	}
 
 	private void tradeWithFutureMaturtyDate(LocalDateTime tradeMaturityDate) {
 
-		if (isMaturityDateBeforeToday(tradeMaturityDate)) {
+		if (DateUtils.isBeforeToday(tradeMaturityDate, businessClock)) {
 
-			String message = "Trade maturiry date=" + tradeMaturityDate.toLocalDate() + " is before today date";
+			String message = maturityDateRejectedMessage(tradeMaturityDate);
 			logger.info(message);
+			recordResult(Status.REJECTED, Reason.MATURED);
 			throw new TradeStoreException(message);
 		}
 	}
 
-	private boolean isMaturityDateBeforeToday(LocalDateTime maturityDate) {
+	/**
+	 * Checks a trade of a batch against the highest stored version of its
+	 * tradeId (null if none).
+	 *
+	 * @return why the trade is rejected, NONE if it is to be written
+	 */
+	static Reason validate(Trade trade, Integer latestVersion, long todayEpochDay) {
 
-		return DateUtils.differenceBetweenDates(LocalDateTime.now(), maturityDate).isNegative() ? true : false;
+		if (null == trade.getTradeId() || null == trade.getTradeVersion() || null == trade.getMaturityDate()) {
+			return Reason.INVALID;
+		}
+		if (DateUtils.isBeforeDay(trade.getMaturityDate(), todayEpochDay)) {
+			return Reason.MATURED;
+		}
+		if (null != latestVersion && trade.getTradeVersion() < latestVersion) {
+			return Reason.LOWER_VERSION;
+		}
+		return Reason.NONE;
 	}
 
-	private boolean tradeWithLowerVersion(Trade newTrade, List<Trade> existingTradesList) {
+	/**
+	 * @return the trades no row was written for, e.g. an update whose row is gone
+	 */
+	private List<Trade> writeTrades(Collection<Trade> tradesToInsert, Collection<Trade> tradesToUpdate) {
 
-		Trade higherVersionTrade = existingTradesList.stream()
-				.filter(t -> t.getTradeVersion() > newTrade.getTradeVersion())
-				.findAny()
-				.orElse(null);
+		List<Trade> unwritten = new ArrayList<>(0);
+		if (!tradesToInsert.isEmpty()) {
+
+			addUnwritten(tradesToInsert, tradeBatchDao.insertTrades(tradesToInsert), unwritten);
+			if (null != tradeLatestDao) {
+				tradeLatestDao.saveLatest(unwritten.isEmpty() ? tradesToInsert
+						: tradesToInsert.stream().filter(t -> !unwritten.contains(t)).collect(Collectors.toList()));
+			}
+		}
+		if (!tradesToUpdate.isEmpty()) {
+			addUnwritten(tradesToUpdate, tradeBatchDao.updateTrades(tradesToUpdate), unwritten);
+		}
+		return unwritten;
+	}
+
+	// counts follow the iteration order of the trades, SUCCESS_NO_INFO (-2) is a written row
+	private static void addUnwritten(Collection<Trade> trades, int[] counts, List<Trade> unwritten) {
+
+		int i = 0;
+		for (Trade trade : trades) {
+			if (0 == counts[i++]) {
+				unwritten.add(trade);
+			}
+		}
+	}
+
+	/**
+	 * @return the trades the store refused, by {@link TradeKey}
+	 */
+	private Map<Long, Trade> writeTradesOneByOne(Map<Long, Trade> tradesToInsert, Map<Long, Trade> tradesToUpdate) {
+
+		Map<Long, Trade> failedTrades = new HashMap<>();
+		tradesToInsert.forEach((key, trade) -> {
+			if (!writeTrade(trade, true)) {
+				failedTrades.put(key, trade);
+			}
+		});
+		tradesToUpdate.forEach((key, trade) -> {
+			if (!writeTrade(trade, false)) {
+				failedTrades.put(key, trade);
+			}
+		});
+		return failedTrades;
+	}
+
+	private boolean writeTrade(Trade trade, boolean insert) {
+
+		List<Trade> single = Collections.singletonList(trade);
+		List<Trade> unwritten = new ArrayList<>(1);
+		try {
+			inSavepoint(() -> unwritten.addAll(writeTrades(insert ? single : Collections.emptyList(),
+					insert ? Collections.emptyList() : single)));
+			if (!unwritten.isEmpty()) {
+				logger.warn("Store wrote no row for tradeId={}, tradeVersion={}", trade.getTradeId(),
+						trade.getTradeVersion());
+			}
+			return unwritten.isEmpty();
+		} catch (DataAccessException exp) {
+
+			logger.warn("Store refused tradeId={}, tradeVersion={}: {}", trade.getTradeId(), trade.getTradeVersion(),
+					exp.getMessage());
+			return false;
+		}
+	}
+
+	private void inSavepoint(Runnable writes) {
+
+		if (null != jdbcSavepoints) {
+			jdbcSavepoints.run(writes);
+		} else {
+			writes.run();
+		}
+	}
 
-		if (null != higherVersionTrade) {
-			
-			logger.info("Higher version={} found for tradeId={}", higherVersionTrade.getTradeVersion(),
-					higherVersionTrade.getTradeId());
+	// accepted & updated results become rejected when their row was refused, the others are published
+	private void settleResults(List<TradeResult> results, Map<Long, Trade> failedTrades) {
+
+		for (ListIterator<TradeResult> it = results.listIterator(); it.hasNext();) {
+
+			TradeResult result = it.next();
+			if (Status.REJECTED == result.getStatus()) {
+				continue;
+			}
+
+			Trade failedTrade = failedTrades.get(TradeKey.of(result.getTradeId(), result.getTradeVersion()));
+			if (null != failedTrade) {
+				it.set(result(failedTrade, Status.REJECTED, Reason.STORE_FAILURE, storeRejectedMessage(failedTrade)));
+			} else if (null != tradeEventFeed) {
+				tradeEventFeed.publishAfterCommit(Status.UPDATED == result.getStatus() ? Type.UPDATED : Type.ACCEPTED,
+						result.getTradeId(), result.getTradeVersion());
+			}
+		}
+	}
+
+	// rejections are counted & published at once, accepted & updated trades only once written, see settleResults
+	private TradeResult result(Trade trade, Status status, Reason reason, String message) {
+
+		if (Status.REJECTED == status) {
+			recordResult(status, reason);
+			if (null != tradeEventFeed) {
+				tradeEventFeed.publish(Type.REJECTED, trade.getTradeId(), trade.getTradeVersion(), message);
+			}
+		}
+		return new TradeResult(trade.getTradeId(), trade.getTradeVersion(), status, message);
+	}
+
+	private void recordResult(Status status, Reason reason) {
+
+		if (null != tradeMetrics) {
+			tradeMetrics.recordResult(status, reason);
+		}
+	}
+
+	private void recordResultsAfterCommit(List<Status> statuses) {
+
+		if (null == tradeMetrics || statuses.isEmpty()) {
+			return;
+		}
+		Runnable record = () -> statuses.forEach(status -> tradeMetrics.recordResult(status, Reason.NONE));
+
+		// a rolled back trade was not accepted
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					record.run();
+				}
+			});
+		} else {
+			record.run();
+		}
+	}
+
+	private void indexMaturity(Trade trade) {
+
+		if (null != tradeMaturityIndex) {
+			tradeMaturityIndex.add(trade.getTradeId(), trade.getTradeVersion(), trade.getMaturityDate());
+		}
+	}
+
+	private Optional<Trade> findArchivedTrade(Integer tradeId, Integer tradeVersion) {
+
+		return null != tradeArchiveDao ? tradeArchiveDao.findArchivedTrade(tradeId, tradeVersion) : Optional.empty();
+	}
+
+	private int findLatestTradeVersion(Integer tradeId) {
+
+		// one row by primary key, the cache would load every stored version on a miss
+		if (null != tradeLatestDao) {
+			return tradeLatestDao.findLatestVersion(tradeId).orElse(TradeVersionCache.NO_VERSION);
+		}
+		if (null != tradeVersionCache) {
+			return tradeVersionCache.getLatestVersion(tradeId);
+		}
+		return tradeDao.findLatestTradeVersion(tradeId).orElse(TradeVersionCache.NO_VERSION);
+	}
+
+	private void invalidateCachedVersions(Collection<Integer> tradeIds) {
+
+		if (null == tradeVersionCache) {
+			return;
+		}
+		tradeIds.forEach(tradeVersionCache::invalidate);
+
+		// drop them again once committed, a concurrent read may have cached the old versions meanwhile
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					tradeIds.forEach(tradeVersionCache::invalidate);
+				}
+			});
+		}
+	}
+
+	private void invalidateAllCachedVersions(int expiredTrades) {
+
+		// expiry flips the EXPIRED flag of cached trades
+		if (null != tradeVersionCache && expiredTrades > 0) {
+			tradeVersionCache.invalidateAll();
+		}
+	}
+
+	private Map<Integer, Integer> findLatestVersions(List<Trade> trades) {
+
+		Set<Integer> tradeIds = new LinkedHashSet<>();
+		trades.forEach(t -> {
+			if (null != t.getTradeId()) {
+				tradeIds.add(t.getTradeId());
+			}
+		});
+
+		Map<Integer, Integer> latestVersions = new HashMap<>();
+		List<Integer> ids = new ArrayList<>(tradeIds);
+
+		// keep the IN list bounded for large end-of-day batches
+		for (int from = 0; from < ids.size(); from += batchSize) {
+
+			List<Integer> chunk = ids.subList(from, Math.min(from + batchSize, ids.size()));
+			if (null != tradeLatestDao) {
+
+				latestVersions.putAll(tradeLatestDao.findLatestVersions(chunk));
+				continue;
+			}
+
+			List<TradeVersionView> versions = tradeDao
+					.findLatestTradeVersions(chunk);
+			versions.forEach(v -> latestVersions.put(v.getTradeId(), v.getTradeVersion()));
+		}
+		return latestVersions;
+	}
+
+	private static String successMessage(Trade trade) {
+
+		return TradeResult.successMessage(trade.getTradeId(), trade.getTradeVersion());
+	}
+
+	private static String lowerVersionRejectedMessage(Trade trade) {
+
+		return "Rejected tradeId/tradeVerssion=" + trade.getTradeId() + "/" + trade.getTradeVersion()
+				+ " as lower trade version is received";
+	}
+
+	private static String rejectedMessage(Trade trade, Reason reason) {
+
+		switch (reason) {
+		case INVALID:
+			return "Rejected trade with missing tradeId/tradeVersion/maturityDate";
+		case MATURED:
+			return maturityDateRejectedMessage(trade.getMaturityDate());
+		case LOWER_VERSION:
+			return lowerVersionRejectedMessage(trade);
+		default:
+			throw new IllegalArgumentException("No validation rejects with " + reason);
+		}
+	}
+
+	private static String storeRejectedMessage(Trade trade) {
+
+		return "Rejected tradeId/tradeVersion=" + trade.getTradeId() + "/" + trade.getTradeVersion()
+				+ " as the trade store refused it";
+	}
+
+	static String maturityDateRejectedMessage(LocalDateTime tradeMaturityDate) {
+
+		return "Trade maturiry date=" + tradeMaturityDate.toLocalDate() + " is before today date";
+	}
+
+	private boolean tradeWithLowerVersion(Trade newTrade, int latestVersion) {
+
+		if (latestVersion > newTrade.getTradeVersion()) {
+
+			logger.info("Higher version={} found for tradeId={}", latestVersion, newTrade.getTradeId());
 
 			return true;
 		}
 		return false;
 	}
-	
-	private Trade tradeWithSameVersion(Trade newTrade, List<Trade> existingTrades) {
 
-		return existingTrades.stream()
-					.filter(t -> t.getTradeVersion() == newTrade.getTradeVersion())
-					.findAny()
-					.orElse(null);
+	private Trade tradeWithSameVersion(Trade newTrade, int latestVersion) {
+
+		if (latestVersion != newTrade.getTradeVersion()) {
+			return null;
+		}
+		return tradeDao.findTradeByTradeIdTradeVersion(newTrade.getTradeId(), newTrade.getTradeVersion())
+				.orElse(null);
 	}
 	
 	
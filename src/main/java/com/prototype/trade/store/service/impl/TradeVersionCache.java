@@ -0,0 +1,288 @@
+package com.prototype.trade.store.service.impl;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.prototype.trade.store.model.Trade;
+import com.prototype.trade.store.repository.TradeStoreDao;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Read-through cache of all stored versions of a tradeId together with its
+ * highest version. Keys are primitive ints in a 4-way set associative table, so
+ * lookups neither box nor allocate; within a set the least recently used entry
+ * is evicted and entries older than the ttl are reloaded.
+ *
+ * Entries hold detached copies and are invalidated by TradeService on write.
+ */
+@Component
+@ConditionalOnProperty(name = "trade.cache.enabled", havingValue = "true")
+public class TradeVersionCache implements MeterBinder {
+
+	public static final int NO_VERSION = -1;
+
+	private static final int WAYS = 4;
+
+	private static final int LOCK_STRIPES = 64;
+
+	private static final int STAMPS = 1024;
+
+	private TradeStoreDao<Trade> tradeDao;
+
+	private int maxSize = 100000;
+
+	private long ttlNanos = TimeUnit.MINUTES.toNanos(10);
+
+	private volatile AtomicReferenceArray<Entry> slots;
+
+	private final Object[] locks = new Object[LOCK_STRIPES];
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder evictions = new LongAdder();
+
+	// bumped by every invalidation of a tradeId hashing to the stamp, a load that
+	// raced with one is not cached; invalidateAll swaps the table instead
+	private final AtomicLongArray stamps = new AtomicLongArray(STAMPS);
+
+	public TradeVersionCache() {
+
+		for (int i = 0; i < LOCK_STRIPES; i++) {
+			locks[i] = new Object();
+		}
+		resize();
+	}
+
+	@Autowired
+	public void setTradeDao(TradeStoreDao<Trade> tradeDao) {
+		this.tradeDao = tradeDao;
+	}
+
+	@Value("${trade.cache.max-size:100000}")
+	public void setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+		resize();
+	}
+
+	@Value("${trade.cache.ttl-seconds:600}")
+	public void setTtlSeconds(long ttlSeconds) {
+		this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+	}
+
+	/**
+	 * @return highest stored version of the trade or {@link #NO_VERSION}
+	 */
+	public int getLatestVersion(int tradeId) {
+
+		return get(tradeId).latestVersion;
+	}
+
+	/**
+	 * @return stored trade version or null
+	 */
+	public Trade getTrade(int tradeId, int tradeVersion) {
+
+		Entry entry = get(tradeId);
+		for (int i = 0; i < entry.versions.length; i++) {
+			if (entry.versions[i] == tradeVersion) {
+				return entry.trades[i];
+			}
+		}
+		return null;
+	}
+
+	public void invalidate(int tradeId) {
+
+		stamps.incrementAndGet(stampOf(tradeId));
+		AtomicReferenceArray<Entry> table = slots;
+		int set = setOf(tradeId, table);
+		synchronized (lockOf(set)) {
+
+			for (int i = set * WAYS; i < (set + 1) * WAYS; i++) {
+				Entry e = table.get(i);
+				if (null != e && e.tradeId == tradeId) {
+					table.set(i, null);
+				}
+			}
+		}
+	}
+
+	public void invalidateAll() {
+
+		// loads in flight put into the replaced table
+		resize();
+	}
+
+	public int size() {
+
+		AtomicReferenceArray<Entry> table = slots;
+		int size = 0;
+		for (int i = 0; i < table.length(); i++) {
+			if (null != table.get(i)) {
+				size++;
+			}
+		}
+		return size;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+
+		FunctionCounter.builder("cache.gets", hits, LongAdder::doubleValue).tags("cache", "tradeVersions", "result", "hit")
+				.description("Trade version lookups served from the cache").register(registry);
+		FunctionCounter.builder("cache.gets", misses, LongAdder::doubleValue).tags("cache", "tradeVersions", "result", "miss")
+				.description("Trade version lookups loaded from the database").register(registry);
+		FunctionCounter.builder("cache.evictions", evictions, LongAdder::doubleValue).tags("cache", "tradeVersions")
+				.register(registry);
+		Gauge.builder("cache.size", this, TradeVersionCache::size).tags("cache", "tradeVersions").register(registry);
+	}
+
+	private Entry get(int tradeId) {
+
+		AtomicReferenceArray<Entry> table = slots;
+		int set = setOf(tradeId, table);
+		long now = System.nanoTime();
+
+		for (int i = set * WAYS; i < (set + 1) * WAYS; i++) {
+
+			Entry e = table.get(i);
+			if (null != e && e.tradeId == tradeId && now - e.loadedAt < ttlNanos) {
+
+				e.lastAccess = now;
+				hits.increment();
+				return e;
+			}
+		}
+
+		misses.increment();
+		long stampBeforeLoad = stamps.get(stampOf(tradeId));
+		Entry loaded = load(tradeId, now);
+		put(table, set, loaded, stampBeforeLoad);
+		return loaded;
+	}
+
+	private Entry load(int tradeId, long now) {
+
+		Optional<List<Trade>> storedTrades = tradeDao.findTradesByTradeId(tradeId);
+		List<Trade> trades = storedTrades.isPresent() ? storedTrades.get() : null;
+		int size = null == trades ? 0 : trades.size();
+
+		int[] versions = new int[size];
+		Trade[] copies = new Trade[size];
+		int latestVersion = NO_VERSION;
+
+		for (int i = 0; i < size; i++) {
+
+			Trade t = trades.get(i);
+			versions[i] = t.getTradeVersion();
+			copies[i] = copyOf(t);
+			latestVersion = Math.max(latestVersion, versions[i]);
+		}
+		return new Entry(tradeId, latestVersion, versions, copies, now);
+	}
+
+	private void put(AtomicReferenceArray<Entry> table, int set, Entry entry, long stampBeforeLoad) {
+
+		synchronized (lockOf(set)) {
+
+			if (stamps.get(stampOf(entry.tradeId)) != stampBeforeLoad) {
+				return;
+			}
+
+			int victim = -1;
+			long oldestAccess = Long.MAX_VALUE;
+
+			for (int i = set * WAYS; i < (set + 1) * WAYS; i++) {
+
+				Entry e = table.get(i);
+				if (null == e || e.tradeId == entry.tradeId) {
+					victim = i;
+					oldestAccess = Long.MIN_VALUE;
+					break;
+				}
+				if (e.lastAccess < oldestAccess) {
+					victim = i;
+					oldestAccess = e.lastAccess;
+				}
+			}
+
+			if (oldestAccess != Long.MIN_VALUE) {
+				evictions.increment();
+			}
+			table.set(victim, entry);
+		}
+	}
+
+	private void resize() {
+
+		int sets = Integer.highestOneBit(Math.max(1, (maxSize + WAYS - 1) / WAYS));
+		slots = new AtomicReferenceArray<>(sets * WAYS);
+	}
+
+	private static int setOf(int tradeId, AtomicReferenceArray<Entry> table) {
+
+		// spread sequential tradeIds over the sets, set count is a power of two
+		int h = tradeId * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & (table.length() / WAYS - 1);
+	}
+
+	private static int stampOf(int tradeId) {
+
+		int h = tradeId * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & (STAMPS - 1);
+	}
+
+	private Object lockOf(int set) {
+
+		return locks[set & (LOCK_STRIPES - 1)];
+	}
+
+	private static Trade copyOf(Trade trade) {
+
+		Trade copy = new Trade(trade.getTradeId(), trade.getTradeVersion(), trade.getCounterpartyId(),
+				trade.getBookId(), trade.getCreatedDate(), trade.getMaturityDate(), trade.getExpired(),
+				trade.getVersion());
+		copy.setId(trade.getId());
+		return copy;
+	}
+
+	private static final class Entry {
+
+		private final int tradeId;
+
+		private final int latestVersion;
+
+		private final int[] versions;
+
+		private final Trade[] trades;
+
+		private final long loadedAt;
+
+		private volatile long lastAccess;
+
+		private Entry(int tradeId, int latestVersion, int[] versions, Trade[] trades, long loadedAt) {
+			this.tradeId = tradeId;
+			this.latestVersion = latestVersion;
+			this.versions = versions;
+			this.trades = trades;
+			this.loadedAt = loadedAt;
+			this.lastAccess = loadedAt;
+		}
+	}
+
+}
@@ -0,0 +1,334 @@
+package com.prototype.trade.store.service.impl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import com.prototype.trade.store.date.util.BusinessClock;
+import com.prototype.trade.store.date.util.DateUtils;
+import com.prototype.trade.store.exception.TradeStoreException;
+import com.prototype.trade.store.model.Trade;
+import com.prototype.trade.store.model.TradeResult;
+import com.prototype.trade.store.model.TradeResult.Status;
+import com.prototype.trade.store.service.TradeService;
+
+/**
+ * Write-behind persistence: a trade is acknowledged once it is appended to the
+ * {@link TradeJournal} and forced to disk, a single flusher thread then applies
+ * the journal through {@link TradeService#processAndSaveTrades} in large batches.
+ * Entries not applied before a shutdown or crash are applied after the next
+ * start; applying one twice updates the same version in place.
+ *
+ * Only missing fields and matured trades are rejected up front, version checks
+ * happen when the trade is applied. A batch failing max-attempts times is
+ * applied one trade at a time, trades the database refuses (e.g. a constraint
+ * violation) are written to the dead-letter file and skipped so they cannot
+ * block the journal. While the database is unavailable nothing is skipped.
+ */
+@Component
+@ConditionalOnProperty(name = "trade.write-behind.enabled", havingValue = "true")
+public class TradeWriteBehind {
+
+	private static final Logger logger = LoggerFactory.getLogger(TradeWriteBehind.class);
+
+	private TradeService tradeService;
+
+	private BusinessClock businessClock = new BusinessClock();
+
+	private String journalFile = "./data/trade-journal.dat";
+
+	private int journalSize = 256 << 20;
+
+	private int batchSize = 1000;
+
+	private long flushIntervalMillis = 50;
+
+	private long appendTimeoutMillis = 5000;
+
+	private int maxAttempts = 3;
+
+	private String deadLetterFile = "./data/trade-dead-letter.log";
+
+	private TradeMetrics tradeMetrics;
+
+	private TradeJournal journal;
+
+	private Thread flusher;
+
+	private volatile boolean running;
+
+	@Autowired
+	public void setTradeService(@Qualifier("tradeServiceImpl") TradeService tradeService) {
+		this.tradeService = tradeService;
+	}
+
+	@Autowired
+	public void setBusinessClock(BusinessClock businessClock) {
+		this.businessClock = businessClock;
+	}
+
+	@Autowired(required = false)
+	public void setTradeMetrics(TradeMetrics tradeMetrics) {
+		this.tradeMetrics = tradeMetrics;
+	}
+
+	@Value("${trade.write-behind.journal-file:./data/trade-journal.dat}")
+	public void setJournalFile(String journalFile) {
+		this.journalFile = journalFile;
+	}
+
+	@Value("${trade.write-behind.journal-size-mb:256}")
+	public void setJournalSizeMb(int journalSizeMb) {
+		this.journalSize = journalSizeMb << 20;
+	}
+
+	@Value("${trade.write-behind.batch-size:1000}")
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	@Value("${trade.write-behind.flush-interval-ms:50}")
+	public void setFlushIntervalMillis(long flushIntervalMillis) {
+		this.flushIntervalMillis = flushIntervalMillis;
+	}
+
+	@Value("${trade.write-behind.append-timeout-ms:5000}")
+	public void setAppendTimeoutMillis(long appendTimeoutMillis) {
+		this.appendTimeoutMillis = appendTimeoutMillis;
+	}
+
+	@Value("${trade.write-behind.max-attempts:3}")
+	public void setMaxAttempts(int maxAttempts) {
+		this.maxAttempts = maxAttempts;
+	}
+
+	@Value("${trade.write-behind.dead-letter-file:./data/trade-dead-letter.log}")
+	public void setDeadLetterFile(String deadLetterFile) {
+		this.deadLetterFile = deadLetterFile;
+	}
+
+	@PostConstruct
+	public void start() throws IOException {
+
+		journal = new TradeJournal(Paths.get(journalFile), journalSize);
+		journal.open();
+
+		running = true;
+		flusher = new Thread(this::flush, "trade-write-behind");
+		flusher.setDaemon(true);
+		flusher.start();
+		logger.info("Write-behind persistence started, journal={}, batch size={}", journalFile, batchSize);
+	}
+
+	@PreDestroy
+	public void stop() throws IOException, InterruptedException {
+
+		running = false;
+		flusher.interrupt();
+		flusher.join(TimeUnit.SECONDS.toMillis(30));
+
+		// whatever is left is applied on the next start
+		journal.close();
+	}
+
+	public String accept(Trade trade) {
+
+		validate(trade);
+		append(Collections.singletonList(trade));
+		return journaledMessage(trade);
+	}
+
+	public List<TradeResult> acceptAll(List<Trade> trades) {
+
+		List<TradeResult> results = new ArrayList<>(trades.size());
+		List<Trade> accepted = new ArrayList<>(trades.size());
+
+		for (Trade trade : trades) {
+
+			try {
+
+				validate(trade);
+				accepted.add(trade);
+				results.add(new TradeResult(trade.getTradeId(), trade.getTradeVersion(), Status.ACCEPTED,
+						journaledMessage(trade)));
+
+			} catch (TradeStoreException e) {
+				results.add(new TradeResult(trade.getTradeId(), trade.getTradeVersion(), Status.REJECTED, e.getMessage()));
+			}
+		}
+
+		if (!accepted.isEmpty()) {
+			append(accepted);
+		}
+		return results;
+	}
+
+	/**
+	 * @return journal bytes not yet applied to the database
+	 */
+	public int backlog() {
+
+		return journal.backlog();
+	}
+
+	private void append(List<Trade> trades) {
+
+		boolean appended;
+		try {
+			appended = journal.append(trades, appendTimeoutMillis);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to append trades to the write-behind journal", e);
+		}
+
+		if (!appended) {
+			throw new TradeStoreException("Write-behind journal is full, retry later");
+		}
+	}
+
+	private void validate(Trade trade) {
+
+		if (null == trade.getTradeId() || null == trade.getTradeVersion() || null == trade.getMaturityDate()) {
+			throw new TradeStoreException("Rejected trade with missing tradeId/tradeVersion/maturityDate");
+		}
+
+		if (DateUtils.isBeforeToday(trade.getMaturityDate(), businessClock)) {
+			throw new TradeStoreException(TradeServiceImpl.maturityDateRejectedMessage(trade.getMaturityDate()));
+		}
+	}
+
+	private void flush() {
+
+		List<Trade> batch = new ArrayList<>(batchSize);
+		int failedAttempts = 0;
+
+		while (running) {
+
+			try {
+
+				int from = journal.appliedPosition();
+				int end = journal.writePosition();
+				if (from == end) {
+
+					TimeUnit.MILLISECONDS.sleep(flushIntervalMillis);
+					continue;
+				}
+
+				int next = journal.read(from, end, batchSize, batch);
+				if (failedAttempts < maxAttempts) {
+					apply(batch);
+				} else {
+					applyOneByOne(batch);
+				}
+				journal.markApplied(next);
+				failedAttempts = 0;
+
+			} catch (InterruptedException e) {
+
+				// a stop drains nothing more, the journal keeps the rest
+				return;
+
+			} catch (IOException | RuntimeException e) {
+
+				failedAttempts++;
+				logger.error("Applying {} journaled trades failed {} times, retrying: {}", batch.size(), failedAttempts,
+						e.getMessage());
+				if (!pause()) {
+					return;
+				}
+
+			} finally {
+				batch.clear();
+			}
+		}
+	}
+
+	private void apply(List<Trade> batch) {
+
+		List<TradeResult> results = tradeService.processAndSaveTrades(batch);
+		for (TradeResult result : results) {
+
+			if (Status.REJECTED == result.getStatus()) {
+				logger.warn("Journaled tradeId/tradeVersion={}/{} rejected when applied: {}", result.getTradeId(),
+						result.getTradeVersion(), result.getMessage());
+			}
+		}
+		logger.debug("Applied {} journaled trades", batch.size());
+	}
+
+	private void applyOneByOne(List<Trade> batch) throws IOException {
+
+		for (Trade trade : batch) {
+
+			try {
+
+				apply(Collections.singletonList(trade));
+
+			} catch (DataIntegrityViolationException e) {
+
+				deadLetter(trade, e);
+
+			} catch (DataAccessException e) {
+
+				// database unavailable rather than a bad trade, the batch is retried as a whole
+				throw e;
+
+			} catch (RuntimeException e) {
+
+				deadLetter(trade, e);
+			}
+		}
+	}
+
+	private void deadLetter(Trade trade, RuntimeException e) throws IOException {
+
+		String line = LocalDateTime.now() + " " + trade + " " + e + System.lineSeparator();
+		Path path = Paths.get(deadLetterFile).toAbsolutePath();
+		Files.createDirectories(path.getParent());
+		Files.write(path, line.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+		if (null != tradeMetrics) {
+			tradeMetrics.recordDeadLettered();
+		}
+		logger.error("Journaled tradeId/tradeVersion={}/{} could not be applied, moved to {}: {}", trade.getTradeId(),
+				trade.getTradeVersion(), deadLetterFile, e.getMessage());
+	}
+
+	private boolean pause() {
+
+		try {
+			TimeUnit.MILLISECONDS.sleep(flushIntervalMillis);
+			return true;
+		} catch (InterruptedException e) {
+			return false;
+		}
+	}
+
+	private static String journaledMessage(Trade trade) {
+
+		return "Accepted tradeId=" + trade.getTradeId() + ", tradeVersion=" + trade.getTradeVersion()
+				+ " for write-behind persistence";
+	}
+
+}
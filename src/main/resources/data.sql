@@ -14,12 +14,52 @@ CREATE TABLE TRADE (
 	PRIMARY KEY(ID)
 );
 
+-- version checks & single trade lookups, also serves max(TRADE_VERSION) per TRADE_ID
+CREATE UNIQUE INDEX UX_TRADE_ID_VERSION ON TRADE (TRADE_ID, TRADE_VERSION);
+
+-- expiry sweeps (EXPIRED = FALSE AND MATURITY_DATE < ?), H2 has no partial index so EXPIRED leads the key
+CREATE INDEX IX_TRADE_ACTIVE_MATURITY ON TRADE (EXPIRED, MATURITY_DATE);
+
+
+DROP TABLE IF EXISTS TRADE_LATEST;
+
+-- latest version per TRADE_ID (read model), ID is the TRADE row of that version, older versions stay in TRADE
+CREATE TABLE TRADE_LATEST (
+
+	TRADE_ID NUMERIC(10, 0) NOT NULL,
+	TRADE_VERSION NUMERIC(3, 0) NOT NULL,
+	ID BIGINT NOT NULL,
+	PRIMARY KEY(TRADE_ID)
+);
+
+
+DROP TABLE IF EXISTS TRADE_ARCHIVE;
+
+-- expired trades past trade.archive.retention-days, moved out of TRADE by TradeArchiver
+CREATE TABLE TRADE_ARCHIVE (
+
+	ID BIGINT NOT NULL,
+	TRADE_ID NUMERIC(10, 0) NOT NULL,
+	TRADE_VERSION NUMERIC(3, 0) NOT NULL,
+	COUNTERPARTY_ID VARCHAR(100),
+	BOOK_ID VARCHAR(100),
+	MATURITY_DATE TIMESTAMP NOT NULL,
+	CREATED_DATE TIMESTAMP NOT NULL,
+	EXPIRED BOOLEAN NOT NULL,
+	VERSION NUMERIC(10, 0) DEFAULT 1,
+	ARCHIVED_DATE TIMESTAMP NOT NULL,
+	PRIMARY KEY(ID)
+);
+
+CREATE UNIQUE INDEX UX_TRADE_ARCHIVE_ID_VERSION ON TRADE_ARCHIVE (TRADE_ID, TRADE_VERSION);
+
 
 DROP SEQUENCE IF EXISTS SEQ_TRADE_STORE;
 
+-- every NEXTVAL reserves a block of trade.id.block-size ids (pooled-lo), increment is re-aligned at startup
 CREATE SEQUENCE SEQ_TRADE_STORE 
 	START WITH 1
-	INCREMENT BY 1
+	INCREMENT BY 50
 	NOMINVALUE NOMAXVALUE NOCACHE;  
 	
 INSERT INTO TRADE (ID, TRADE_ID, TRADE_VERSION,  COUNTERPARTY_ID, BOOK_ID, MATURITY_DATE, CREATED_DATE, EXPIRED) VALUES (SEQ_TRADE_STORE.NEXTVAL, 1, 1, 'CPTY-1', 'BOOK-1', current_date +10 + time '23:00', sysdate(), 0);	
@@ -27,5 +67,8 @@ INSERT INTO TRADE (ID, TRADE_ID, TRADE_VERSION,  COUNTERPARTY_ID, BOOK_ID, MATUR
 INSERT INTO TRADE (ID, TRADE_ID, TRADE_VERSION,  COUNTERPARTY_ID, BOOK_ID, MATURITY_DATE, CREATED_DATE, EXPIRED) VALUES (SEQ_TRADE_STORE.NEXTVAL, 1, 3, 'CPTY-3', 'BOOk-3', current_date +12 + time '23:00', sysdate(), 0);	
 INSERT INTO TRADE (ID, TRADE_ID, TRADE_VERSION,  COUNTERPARTY_ID, BOOK_ID, MATURITY_DATE, CREATED_DATE, EXPIRED) VALUES (SEQ_TRADE_STORE.NEXTVAL, 2, 1, 'CPTY-1', 'BOOK-1', sysdate(), sysdate(), 0);	
 
+INSERT INTO TRADE_LATEST (TRADE_ID, TRADE_VERSION, ID) SELECT T.TRADE_ID, T.TRADE_VERSION, T.ID FROM TRADE T
+	WHERE T.TRADE_VERSION = (SELECT MAX(M.TRADE_VERSION) FROM TRADE M WHERE M.TRADE_ID = T.TRADE_ID);
+
 COMMIT;
 	
\ No newline at end of file
@@ -0,0 +1,70 @@
+package com.prototype.trade.store.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.prototype.trade.store.TradeStoreServiceApplication;
+
+/**
+ * Boots the service, by default without the web layer, on its own embedded H2
+ * database, with schedulers, async ingestion & INFO logging out of the way of
+ * the measurement.
+ */
+final class BenchmarkContext {
+
+	static final int VERSIONS_PER_TRADE = 4;
+
+	private BenchmarkContext() {
+
+	}
+
+	static ConfigurableApplicationContext start(Map<String, Object> properties) {
+
+		return start(properties, WebApplicationType.NONE);
+	}
+
+	static ConfigurableApplicationContext start(Map<String, Object> properties, WebApplicationType webApplicationType) {
+
+		Map<String, Object> defaults = new HashMap<>();
+		defaults.put("spring.datasource.url", "jdbc:h2:mem:bench_" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+		defaults.put("spring.jpa.show-sql", "false");
+		defaults.put("spring.h2.console.enabled", "false");
+		defaults.put("logging.level.root", "WARN");
+		defaults.put("fixedDelay.in.milliseconds", Long.toString(Long.MAX_VALUE / 2));
+		defaults.put("fixedDelay.initial.milliseconds", Long.toString(Long.MAX_VALUE / 2));
+		defaults.put("trade.expiry.index.enabled", "false");
+		defaults.put("trade.ingest.async.enabled", "false");
+		defaults.putAll(properties);
+
+		return new SpringApplicationBuilder(TradeStoreServiceApplication.class).web(webApplicationType)
+				.properties(defaults).run();
+	}
+
+	/**
+	 * Replaces the seed data by rows trades, {@link #VERSIONS_PER_TRADE} versions
+	 * per tradeId, of which maturedPercent are matured and active, with their
+	 * TRADE_LATEST pointers rebuilt.
+	 */
+	static void seed(ConfigurableApplicationContext context, int rows, int maturedPercent) {
+
+		JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+		jdbcTemplate.execute("DELETE FROM TRADE_LATEST");
+		jdbcTemplate.execute("DELETE FROM TRADE");
+		jdbcTemplate.execute("INSERT INTO TRADE SELECT X, X / " + VERSIONS_PER_TRADE + ", MOD(X, " + VERSIONS_PER_TRADE
+				+ ") + 1, 'CPTY-' || MOD(X, 100), 'BOOK-' || MOD(X, 50), CASE WHEN MOD(X, 100) < " + maturedPercent
+				+ " THEN DATEADD('DAY', -1 - MOD(X, 30), CURRENT_DATE) ELSE DATEADD('DAY', 1 + MOD(X, 3650), CURRENT_DATE) END, "
+				+ "CURRENT_TIMESTAMP, FALSE, 1 FROM SYSTEM_RANGE(1, " + rows + ")");
+		jdbcTemplate.execute("INSERT INTO TRADE_LATEST (TRADE_ID, TRADE_VERSION, ID) SELECT T.TRADE_ID, T.TRADE_VERSION, T.ID "
+				+ "FROM TRADE T WHERE T.TRADE_VERSION = (SELECT MAX(M.TRADE_VERSION) FROM TRADE M WHERE M.TRADE_ID = T.TRADE_ID)");
+		jdbcTemplate.execute("ALTER SEQUENCE SEQ_TRADE_STORE RESTART WITH " + (rows + 1000));
+		jdbcTemplate.execute("ANALYZE");
+	}
+
+}
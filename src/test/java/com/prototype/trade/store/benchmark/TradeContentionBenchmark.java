@@ -0,0 +1,128 @@
+package com.prototype.trade.store.benchmark;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.prototype.trade.store.model.Trade;
+import com.prototype.trade.store.model.TradePage;
+import com.prototype.trade.store.model.TradeResult;
+import com.prototype.trade.store.service.TradeService;
+import com.prototype.trade.store.service.impl.StripedLockTradeService;
+
+/**
+ * Write throughput through the per-tradeId lock stripes at 1..N threads. The
+ * delegate burns a fixed amount of CPU in place of the transaction, so the
+ * numbers show the locking alone: spread tradeIds should scale with the cores,
+ * a single hot tradeId or a single stripe (a global lock) must not.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TradeContentionBenchmark {
+
+	private static final LocalDateTime MATURITY_DATE = LocalDateTime.now().plusYears(1);
+
+	@Param({ "1024", "1" })
+	private int lockStripes;
+
+	@Param({ "100000", "1" })
+	private int distinctTradeIds;
+
+	@Param({ "2000" })
+	private int workTokens;
+
+	private StripedLockTradeService tradeService;
+
+	@Setup(Level.Trial)
+	public void setup() {
+
+		tradeService = new StripedLockTradeService();
+		tradeService.setLockStripes(lockStripes);
+		tradeService.setTradeService(new TradeService() {
+
+			@Override
+			public String processAndSaveTrade(Trade trade) {
+
+				Blackhole.consumeCPU(workTokens);
+				return "saved";
+			}
+
+			@Override
+			public List<TradeResult> processAndSaveTrades(List<Trade> trades) {
+
+				Blackhole.consumeCPU(workTokens * (long) trades.size());
+				return Collections.emptyList();
+			}
+
+			@Override
+			public Optional<Trade> getTradeWithIdTradeVersion(Integer tradeId, Integer tradeVersion) {
+				return Optional.empty();
+			}
+
+			@Override
+			public Optional<Trade> getLatestTrade(Integer tradeId) {
+				return Optional.empty();
+			}
+
+			@Override
+			public int markMaturedTradeExpired() {
+				return 0;
+			}
+
+			@Override
+			public TradePage getTrades(String cursor, Boolean expired, LocalDate maturityFrom, LocalDate maturityTo,
+					int limit) {
+				return new TradePage(Collections.emptyList(), null);
+			}
+
+			@Override
+			public int streamTrades(String bookId, String counterpartyId, boolean activeOnly, Consumer<Trade> consumer) {
+				return 0;
+			}
+		});
+	}
+
+	@Benchmark
+	public String processAndSaveTrade() {
+
+		int tradeId = 1 + ThreadLocalRandom.current().nextInt(distinctTradeIds);
+		return tradeService.processAndSaveTrade(new Trade(tradeId, 1, "CPTY-1", "BOOK-1", null, MATURITY_DATE, false, 1));
+	}
+
+	public static void main(String[] args) throws RunnerException {
+
+		int cores = Runtime.getRuntime().availableProcessors();
+		for (int threads = 1; threads <= cores; threads <<= 1) {
+
+			new Runner(new OptionsBuilder().include(TradeContentionBenchmark.class.getSimpleName()).threads(threads)
+					.build()).run();
+		}
+	}
+
+}
@@ -0,0 +1,91 @@
+package com.prototype.trade.store.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.prototype.trade.store.service.TradeService;
+
+/**
+ * One expiry sweep (markMaturedTradeExpired) over 10k/100k/1M rows on the
+ * embedded H2 database, 10% of them matured; every invocation starts from the
+ * same unexpired table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TradeExpiryBenchmark {
+
+	private static final int MATURED_PERCENT = 10;
+
+	@Param({ "10000", "100000", "1000000" })
+	private int rows;
+
+	@Param({ "PER_ROW", "SET_BASED", "PARTITIONED" })
+	private String mode;
+
+	private ConfigurableApplicationContext context;
+
+	private TradeService tradeService;
+
+	private JdbcTemplate jdbcTemplate;
+
+	@Setup(Level.Trial)
+	public void setup() {
+
+		Map<String, Object> properties = new HashMap<>();
+		properties.put("trade.expiry.mode", mode);
+		properties.put("trade.cache.enabled", "false");
+
+		context = BenchmarkContext.start(properties);
+		BenchmarkContext.seed(context, rows, MATURED_PERCENT);
+
+		tradeService = context.getBean("tradeServiceImpl", TradeService.class);
+		jdbcTemplate = context.getBean(JdbcTemplate.class);
+	}
+
+	@Setup(Level.Invocation)
+	public void resetExpired() {
+
+		jdbcTemplate.execute("UPDATE TRADE SET EXPIRED = FALSE WHERE EXPIRED = TRUE");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public int markMaturedTradeExpired() {
+
+		return tradeService.markMaturedTradeExpired();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+
+		new Runner(new OptionsBuilder().include(TradeExpiryBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
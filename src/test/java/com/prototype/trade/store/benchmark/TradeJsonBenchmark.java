@@ -0,0 +1,153 @@
+package com.prototype.trade.store.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.prototype.trade.store.codec.TradeBinaryCodec;
+import com.prototype.trade.store.model.Trade;
+
+/**
+ * JSON (de)serialization cost of a Trade and of a 1000 trade batch, with the
+ * mapper configured as Spring Boot configures the MVC one, against the
+ * application/x-trade-binary wire format of {@link TradeBinaryCodec}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TradeJsonBenchmark {
+
+	private static final int BATCH_SIZE = 1000;
+
+	private ObjectWriter tradeWriter;
+
+	private ObjectReader tradeReader;
+
+	private ObjectWriter batchWriter;
+
+	private ObjectReader batchReader;
+
+	private Trade trade;
+
+	private List<Trade> batch;
+
+	private byte[] tradeJson;
+
+	private byte[] batchJson;
+
+	private byte[] tradeBinary;
+
+	private byte[] batchBinary;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+
+		ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+				.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+		TypeReference<List<Trade>> batchType = new TypeReference<List<Trade>>() {
+		};
+
+		tradeWriter = objectMapper.writerFor(Trade.class);
+		tradeReader = objectMapper.readerFor(Trade.class);
+		batchWriter = objectMapper.writerFor(batchType);
+		batchReader = objectMapper.readerFor(batchType);
+
+		LocalDateTime now = LocalDateTime.now();
+		batch = new ArrayList<>(BATCH_SIZE);
+		for (int i = 0; i < BATCH_SIZE; i++) {
+
+			Trade t = new Trade(i, 1 + i % 4, "CPTY-" + i % 100, "BOOK-" + i % 50, now, now.plusDays(1 + i % 3650),
+					false, 1);
+			t.setId(i);
+			batch.add(t);
+		}
+		trade = batch.get(0);
+
+		tradeJson = tradeWriter.writeValueAsBytes(trade);
+		batchJson = batchWriter.writeValueAsBytes(batch);
+		tradeBinary = encodeTrade();
+		batchBinary = encodeBatch();
+	}
+
+	@Benchmark
+	public byte[] serializeTrade() throws IOException {
+		return tradeWriter.writeValueAsBytes(trade);
+	}
+
+	@Benchmark
+	public Trade deserializeTrade() throws IOException {
+		return tradeReader.readValue(tradeJson);
+	}
+
+	@Benchmark
+	public byte[] serializeBatch() throws IOException {
+		return batchWriter.writeValueAsBytes(batch);
+	}
+
+	@Benchmark
+	public List<Trade> deserializeBatch() throws IOException {
+		return batchReader.readValue(batchJson);
+	}
+
+	@Benchmark
+	public byte[] encodeTrade() throws IOException {
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+		TradeBinaryCodec.write(new DataOutputStream(bytes), trade);
+		return bytes.toByteArray();
+	}
+
+	@Benchmark
+	public Trade decodeTrade() throws IOException {
+		return TradeBinaryCodec.read(new DataInputStream(new ByteArrayInputStream(tradeBinary)));
+	}
+
+	@Benchmark
+	public byte[] encodeBatch() throws IOException {
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * BATCH_SIZE);
+		TradeBinaryCodec.writeAll(new DataOutputStream(bytes), batch);
+		return bytes.toByteArray();
+	}
+
+	@Benchmark
+	public List<Trade> decodeBatch() throws IOException {
+		return TradeBinaryCodec.readAll(new DataInputStream(new ByteArrayInputStream(batchBinary)));
+	}
+
+	public static void main(String[] args) throws RunnerException {
+
+		new Runner(new OptionsBuilder().include(TradeJsonBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
@@ -0,0 +1,143 @@
+package com.prototype.trade.store.benchmark;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Lookup latency of the version check & single trade queries on a TRADE table
+ * of 1M+ rows (4 versions per tradeId), with and without the composite index
+ * on (TRADE_ID, TRADE_VERSION).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TradeLookupBenchmark {
+
+	private static final int VERSIONS_PER_TRADE = 4;
+
+	@Param({ "1000000" })
+	private int rows;
+
+	@Param({ "true", "false" })
+	private boolean indexed;
+
+	private Connection connection;
+
+	private PreparedStatement byTradeIdTradeVersion;
+
+	private PreparedStatement latestTradeVersion;
+
+	private PreparedStatement byTradeId;
+
+	@Setup(Level.Trial)
+	public void setup() throws SQLException {
+
+		connection = DriverManager.getConnection("jdbc:h2:mem:lookup_" + indexed + ";DB_CLOSE_DELAY=-1", "sa", "sa");
+
+		try (Statement statement = connection.createStatement()) {
+
+			statement.execute("DROP TABLE IF EXISTS TRADE");
+			statement.execute("CREATE TABLE TRADE (ID BIGINT NOT NULL, TRADE_ID NUMERIC(10, 0) NOT NULL, "
+					+ "TRADE_VERSION NUMERIC(3, 0) NOT NULL, COUNTERPARTY_ID VARCHAR(100), BOOK_ID VARCHAR(100), "
+					+ "MATURITY_DATE TIMESTAMP NOT NULL, CREATED_DATE TIMESTAMP NOT NULL, EXPIRED BOOLEAN NOT NULL, "
+					+ "VERSION NUMERIC(10, 0) DEFAULT 1, PRIMARY KEY(ID))");
+
+			statement.execute("INSERT INTO TRADE SELECT X, X / " + VERSIONS_PER_TRADE + ", MOD(X, "
+					+ VERSIONS_PER_TRADE + ") + 1, 'CPTY-' || MOD(X, 100), 'BOOK-' || MOD(X, 50), "
+					+ "DATEADD('DAY', MOD(X, 3650), CURRENT_TIMESTAMP), CURRENT_TIMESTAMP, FALSE, 1 "
+					+ "FROM SYSTEM_RANGE(1, " + rows + ")");
+
+			if (indexed) {
+				statement.execute("CREATE UNIQUE INDEX UX_TRADE_ID_VERSION ON TRADE (TRADE_ID, TRADE_VERSION)");
+				statement.execute("CREATE INDEX IX_TRADE_ACTIVE_MATURITY ON TRADE (EXPIRED, MATURITY_DATE)");
+			}
+			statement.execute("ANALYZE");
+		}
+
+		byTradeIdTradeVersion = connection
+				.prepareStatement("SELECT * FROM TRADE WHERE TRADE_ID = ? AND TRADE_VERSION = ?");
+		latestTradeVersion = connection.prepareStatement("SELECT MAX(TRADE_VERSION) FROM TRADE WHERE TRADE_ID = ?");
+		byTradeId = connection.prepareStatement("SELECT * FROM TRADE WHERE TRADE_ID = ?");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws SQLException {
+
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("DROP ALL OBJECTS");
+		}
+		connection.close();
+	}
+
+	@Benchmark
+	public int findTradeByTradeIdTradeVersion() throws SQLException {
+
+		byTradeIdTradeVersion.setInt(1, randomTradeId());
+		byTradeIdTradeVersion.setInt(2, 1 + ThreadLocalRandom.current().nextInt(VERSIONS_PER_TRADE));
+		return count(byTradeIdTradeVersion);
+	}
+
+	@Benchmark
+	public int findLatestTradeVersion() throws SQLException {
+
+		latestTradeVersion.setInt(1, randomTradeId());
+		try (ResultSet rs = latestTradeVersion.executeQuery()) {
+			return rs.next() ? rs.getInt(1) : 0;
+		}
+	}
+
+	@Benchmark
+	public int findTradesByTradeId() throws SQLException {
+
+		byTradeId.setInt(1, randomTradeId());
+		return count(byTradeId);
+	}
+
+	private int randomTradeId() {
+
+		return 1 + ThreadLocalRandom.current().nextInt(rows / VERSIONS_PER_TRADE - 1);
+	}
+
+	private static int count(PreparedStatement statement) throws SQLException {
+
+		int count = 0;
+		try (ResultSet rs = statement.executeQuery()) {
+			while (rs.next()) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+
+		new Runner(new OptionsBuilder().include(TradeLookupBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
@@ -0,0 +1,61 @@
+package com.prototype.trade.store.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.prototype.trade.store.model.TradeResult.Status;
+import com.prototype.trade.store.service.impl.TradeMetrics;
+import com.prototype.trade.store.service.impl.TradeMetrics.Reason;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Per-call cost of the hot path meters (histogram timer & result counter), must
+ * stay well under a microsecond.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TradeMetricsBenchmark {
+
+	private TradeMetrics tradeMetrics;
+
+	@Setup(Level.Trial)
+	public void setup() {
+
+		tradeMetrics = new TradeMetrics();
+		tradeMetrics.setMeterRegistry(new SimpleMeterRegistry());
+		tradeMetrics.register();
+	}
+
+	@Benchmark
+	public void recordProcessAndResult() {
+
+		long start = System.nanoTime();
+		tradeMetrics.recordResult(Status.ACCEPTED, Reason.NONE);
+		tradeMetrics.recordProcess(false, start);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+
+		new Runner(new OptionsBuilder().include(TradeMetricsBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
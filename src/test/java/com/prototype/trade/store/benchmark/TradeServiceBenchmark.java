@@ -0,0 +1,126 @@
+package com.prototype.trade.store.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.prototype.trade.store.exception.TradeStoreException;
+import com.prototype.trade.store.model.Trade;
+import com.prototype.trade.store.service.TradeService;
+
+/**
+ * Latency of the single trade paths of TradeServiceImpl on the embedded H2
+ * database: a fresh trade, a same-version update, a lower-version reject and a
+ * lookup by tradeId & tradeVersion, with and without the version cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TradeServiceBenchmark {
+
+	private static final LocalDateTime MATURITY_DATE = LocalDateTime.now().plusYears(1);
+
+	@Param({ "100000" })
+	private int rows;
+
+	@Param({ "false", "true" })
+	private boolean cache;
+
+	@Param({ "ENTITY", "TARGETED" })
+	private String updateMode;
+
+	private ConfigurableApplicationContext context;
+
+	private TradeService tradeService;
+
+	private final AtomicInteger nextTradeId = new AtomicInteger();
+
+	@Setup(Level.Trial)
+	public void setup() {
+
+		Map<String, Object> properties = new HashMap<>();
+		properties.put("trade.cache.enabled", Boolean.toString(cache));
+		properties.put("trade.update.mode", updateMode);
+
+		context = BenchmarkContext.start(properties);
+		BenchmarkContext.seed(context, rows, 0);
+
+		tradeService = context.getBean("tradeServiceImpl", TradeService.class);
+		nextTradeId.set(rows);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public String processAndSaveNewTrade() {
+
+		return tradeService.processAndSaveTrade(newTrade(nextTradeId.incrementAndGet(), 1));
+	}
+
+	@Benchmark
+	public String processAndSaveSameVersion() {
+
+		return tradeService.processAndSaveTrade(newTrade(randomTradeId(), BenchmarkContext.VERSIONS_PER_TRADE));
+	}
+
+	@Benchmark
+	public String processAndSaveLowerVersion() {
+
+		try {
+			return tradeService.processAndSaveTrade(newTrade(randomTradeId(), 1));
+		} catch (TradeStoreException e) {
+			return e.getMessage();
+		}
+	}
+
+	@Benchmark
+	public Optional<Trade> getTradeWithIdTradeVersion() {
+
+		return tradeService.getTradeWithIdTradeVersion(randomTradeId(),
+				1 + ThreadLocalRandom.current().nextInt(BenchmarkContext.VERSIONS_PER_TRADE));
+	}
+
+	private int randomTradeId() {
+
+		return 1 + ThreadLocalRandom.current().nextInt(rows / BenchmarkContext.VERSIONS_PER_TRADE - 1);
+	}
+
+	private static Trade newTrade(int tradeId, int tradeVersion) {
+
+		return new Trade(tradeId, tradeVersion, "CPTY-1", "BOOK-1", LocalDateTime.now(), MATURITY_DATE, false, 1);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+
+		new Runner(new OptionsBuilder().include(TradeServiceBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
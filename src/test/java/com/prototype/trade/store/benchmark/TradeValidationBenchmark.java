@@ -0,0 +1,211 @@
+package com.prototype.trade.store.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.data.domain.Pageable;
+
+import com.prototype.trade.store.date.util.BusinessClock;
+import com.prototype.trade.store.date.util.DateUtils;
+import com.prototype.trade.store.model.Trade;
+import com.prototype.trade.store.model.TradeMaturityView;
+import com.prototype.trade.store.model.TradeResult;
+import com.prototype.trade.store.model.TradeResult.Status;
+import com.prototype.trade.store.model.TradeVersionView;
+import com.prototype.trade.store.repository.TradeStoreDao;
+import com.prototype.trade.store.service.impl.TradeServiceImpl;
+
+/**
+ * Allocation of the accept path of a single trade: the former Period & stream
+ * based checks with an eagerly built message (kept here as the baseline)
+ * against {@link TradeServiceImpl#processAndSaveTrade} with metrics, cache &
+ * event feed off. The DAO is a hand-written stub, a Mockito mock would record
+ * every invocation on the heap. Run with the gc profiler (see main) and compare
+ * gc.alloc.rate.norm (bytes/op).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TradeValidationBenchmark {
+
+	private Trade trade;
+
+	private List<Trade> storedTrades;
+
+	private final TradeServiceImpl tradeService = new TradeServiceImpl();
+
+	@Setup(Level.Trial)
+	public void setup() {
+
+		LocalDateTime now = LocalDateTime.now();
+		trade = new Trade(1, 5, "CPTY-1", "BOOK-1", now, now.plusYears(1), false, 1);
+
+		storedTrades = new ArrayList<>();
+		for (int version = 1; version <= BenchmarkContext.VERSIONS_PER_TRADE; version++) {
+			storedTrades.add(new Trade(1, version, "CPTY-1", "BOOK-1", now, now.plusYears(1), false, 1));
+		}
+
+		tradeService.setTradeDao(new StoredVersionDao(BenchmarkContext.VERSIONS_PER_TRADE));
+		tradeService.setBusinessClock(new BusinessClock());
+
+		// no Spring context configures logging here, the debug line of every save would be measured
+		LoggingSystem.get(getClass().getClassLoader()).setLogLevel(TradeServiceImpl.class.getName(), LogLevel.INFO);
+	}
+
+	@Benchmark
+	public TradeResult legacyValidation() {
+
+		if (DateUtils.differenceBetweenDates(LocalDateTime.now(), trade.getMaturityDate()).isNegative()) {
+			return null;
+		}
+
+		Trade higherVersionTrade = storedTrades.stream().filter(t -> t.getTradeVersion() > trade.getTradeVersion())
+				.findAny().orElse(null);
+		Trade sameVersionTrade = storedTrades.stream()
+				.filter(t -> t.getTradeVersion().equals(trade.getTradeVersion())).findAny().orElse(null);
+		if (null != higherVersionTrade || null != sameVersionTrade) {
+			return null;
+		}
+
+		return new TradeResult(trade.getTradeId(), trade.getTradeVersion(), Status.ACCEPTED,
+				"Successfully processed & saved tradeId=" + trade.getTradeId() + ", tradeVersion="
+						+ trade.getTradeVersion());
+	}
+
+	@Benchmark
+	public String acceptPath() {
+		return tradeService.processAndSaveTrade(trade);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+
+		new Runner(new OptionsBuilder().include(TradeValidationBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class).build()).run();
+	}
+
+	/**
+	 * Answers the accept path's version lookup & save, everything else is off it.
+	 */
+	private static final class StoredVersionDao implements TradeStoreDao<Trade> {
+
+		private final Optional<Integer> latestVersion;
+
+		StoredVersionDao(int latestVersion) {
+			this.latestVersion = Optional.of(latestVersion);
+		}
+
+		@Override
+		public Optional<Integer> findLatestTradeVersion(Integer tradeId) {
+			return latestVersion;
+		}
+
+		@Override
+		public <S extends Trade> S saveAndFlush(S entity) {
+			return entity;
+		}
+
+		@Override
+		public Optional<List<Trade>> findTradesByTradeId(Integer tradeId) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public List<TradeVersionView> findLatestTradeVersions(Collection<Integer> tradeIds) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Optional<List<Trade>> findAllActiveTrades() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Optional<List<Trade>> findActiveTradesMaturedBefore(LocalDateTime cutoff) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void expireTrade(Integer tradeId, Integer tradeVersion) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Optional<Trade> findTradeByTradeIdTradeVersion(Integer tradeId, Integer tradeVersion) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public List<TradeMaturityView> findMaturedActiveTrades(LocalDateTime cutoff, Pageable pageable) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public List<TradeMaturityView> findActiveTradeMaturities(Integer afterId, Pageable pageable) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public int expireTradesByIds(Collection<Integer> ids) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public List<Trade> findTradesAfterKey(Integer afterTradeId, Integer afterTradeVersion, Boolean expired,
+				LocalDateTime maturityFrom, LocalDateTime maturityTo, Pageable pageable) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Optional<Integer> findMinId() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Optional<Integer> findMaxId() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public int expireMaturedTradesInRange(Integer fromId, Integer toId, LocalDateTime cutoff) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public List<TradeMaturityView> findMaturedActiveTradesInRange(Integer afterId, Integer toId,
+				LocalDateTime cutoff, Pageable pageable) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Stream<Trade> streamTrades(String bookId, String counterpartyId, boolean activeOnly) {
+			throw new UnsupportedOperationException();
+		}
+
+	}
+
+}
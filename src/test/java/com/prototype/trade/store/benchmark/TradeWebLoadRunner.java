@@ -0,0 +1,237 @@
+package com.prototype.trade.store.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Closed-loop HTTP load test of POST /trade & GET /trade/{tradeId}/{tradeVersion}
+ * on Tomcat, once per trade.web.execution mode: every client thread posts a new
+ * trade and reads it back in a loop. Prints throughput and p50/p99 latency of
+ * the measured window; warm-up requests are not recorded.
+ *
+ * Not a JMH benchmark, the server under concurrent load is measured, not one
+ * invocation. Run with (clients & measured seconds optional):
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.prototype.trade.store.benchmark.TradeWebLoadRunner -Dexec.args="10000 30"
+ */
+public final class TradeWebLoadRunner {
+
+	private static final int CLIENT_STACK_SIZE = 256 * 1024;
+
+	private static final int WARMUP_SECONDS = 10;
+
+	private static volatile boolean measuring;
+
+	private static volatile boolean stopped;
+
+	private TradeWebLoadRunner() {
+
+	}
+
+	public static void main(String[] args) throws Exception {
+
+		int clients = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+
+		// idle keep-alive connections cached per destination, one per client
+		System.setProperty("http.maxConnections", Integer.toString(clients));
+
+		for (String mode : new String[] { "BLOCKING", "OFFLOAD" }) {
+			run(mode, clients, seconds);
+		}
+	}
+
+	private static void run(String mode, int clients, int seconds) throws Exception {
+
+		Map<String, Object> properties = new HashMap<>();
+		properties.put("server.port", "0");
+		properties.put("trade.web.execution", mode);
+		properties.put("server.tomcat.max-connections", Integer.toString(clients + 1000));
+		properties.put("server.tomcat.accept-count", Integer.toString(clients));
+
+		try (ConfigurableApplicationContext context = BenchmarkContext.start(properties, WebApplicationType.SERVLET)) {
+
+			int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+			String baseUrl = "http://localhost:" + port;
+
+			measuring = false;
+			stopped = false;
+
+			Client[] workers = new Client[clients];
+			Thread[] threads = new Thread[clients];
+			for (int i = 0; i < clients; i++) {
+
+				workers[i] = new Client(baseUrl, i, clients);
+				threads[i] = new Thread(null, workers[i], "load-client-" + i, CLIENT_STACK_SIZE);
+				threads[i].setDaemon(true);
+				threads[i].start();
+			}
+
+			TimeUnit.SECONDS.sleep(WARMUP_SECONDS);
+			measuring = true;
+			TimeUnit.SECONDS.sleep(seconds);
+			measuring = false;
+			stopped = true;
+
+			for (Thread thread : threads) {
+				thread.join(TimeUnit.SECONDS.toMillis(60));
+			}
+
+			report(mode, clients, seconds, workers);
+		}
+	}
+
+	private static void report(String mode, int clients, int seconds, Client[] workers) {
+
+		int total = 0;
+		int errors = 0;
+		int throttled = 0;
+		for (Client worker : workers) {
+			total += worker.count;
+			errors += worker.errors;
+			throttled += worker.throttled;
+		}
+
+		long[] latencies = new long[total];
+		int offset = 0;
+		for (Client worker : workers) {
+			System.arraycopy(worker.latencies, 0, latencies, offset, worker.count);
+			offset += worker.count;
+		}
+		Arrays.sort(latencies);
+
+		System.out.printf("%s, %d clients: %.0f requests/s, p50=%.2f ms, p99=%.2f ms, errors=%d, throttled=%d%n", mode,
+				clients, (double) total / seconds, percentileMillis(latencies, 0.50),
+				percentileMillis(latencies, 0.99), errors, throttled);
+	}
+
+	private static double percentileMillis(long[] sortedLatencies, double percentile) {
+
+		if (0 == sortedLatencies.length) {
+			return Double.NaN;
+		}
+		int index = (int) Math.min(sortedLatencies.length - 1L, (long) Math.ceil(percentile * sortedLatencies.length) - 1);
+		return sortedLatencies[Math.max(index, 0)] / 1e6;
+	}
+
+	private static final class Client implements Runnable {
+
+		private final String baseUrl;
+
+		private final int clientId;
+
+		private final int clients;
+
+		private long[] latencies = new long[256];
+
+		private int count;
+
+		private int errors;
+
+		private int throttled;
+
+		private Client(String baseUrl, int clientId, int clients) {
+			this.baseUrl = baseUrl;
+			this.clientId = clientId;
+			this.clients = clients;
+		}
+
+		@Override
+		public void run() {
+
+			LocalDateTime now = LocalDateTime.now();
+
+			for (int iteration = 0; !stopped; iteration++) {
+
+				// unique per client & iteration, tradeIds of the seed data are below 10
+				int tradeId = 10 + iteration * clients + clientId;
+				String trade = "{\"tradeId\":" + tradeId + ",\"tradeVersion\":1,\"counterpartyId\":\"CPTY-" + clientId
+						+ "\",\"bookId\":\"BOOK-1\",\"createdDate\":\"" + now + "\",\"maturityDate\":\""
+						+ now.plusDays(30) + "\",\"expired\":false,\"version\":1}";
+
+				if (request("POST", baseUrl + "/trade", trade.getBytes(StandardCharsets.UTF_8))) {
+					request("GET", baseUrl + "/trade/" + tradeId + "/1", null);
+				}
+			}
+		}
+
+		private boolean request(String method, String url, byte[] body) {
+
+			long start = System.nanoTime();
+			int status;
+
+			try {
+
+				HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+				connection.setRequestMethod(method);
+				connection.setConnectTimeout(60000);
+				connection.setReadTimeout(60000);
+
+				if (null != body) {
+
+					connection.setDoOutput(true);
+					connection.setRequestProperty("Content-Type", "application/json");
+					connection.setFixedLengthStreamingMode(body.length);
+					try (OutputStream out = connection.getOutputStream()) {
+						out.write(body);
+					}
+				}
+
+				status = connection.getResponseCode();
+				drain(status < 400 ? connection.getInputStream() : connection.getErrorStream());
+
+			} catch (IOException e) {
+				status = -1;
+			}
+
+			if (!measuring) {
+				return status < 400;
+			}
+
+			if (429 == status) {
+				throttled++;
+			} else if (status < 200 || status >= 400) {
+				errors++;
+			} else {
+				record(System.nanoTime() - start);
+			}
+			return status < 400;
+		}
+
+		private void record(long latency) {
+
+			if (count == latencies.length) {
+				latencies = Arrays.copyOf(latencies, count << 1);
+			}
+			latencies[count++] = latency;
+		}
+
+		// the connection is only reused for keep-alive once the body is fully read
+		private static void drain(InputStream in) throws IOException {
+
+			if (null == in) {
+				return;
+			}
+			try (InputStream body = in) {
+				byte[] buffer = new byte[1024];
+				while (body.read(buffer) >= 0) {
+					// discard
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,82 @@
+package com.prototype.trade.store.controller;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
+import com.prototype.trade.store.model.Trade;
+import com.prototype.trade.store.repository.TradeArchiveDao;
+import com.prototype.trade.store.repository.TradeDao;
+import com.prototype.trade.store.repository.TradeLatestDao;
+import com.prototype.trade.store.service.impl.TradeArchiver;
+
+@SpringBootTest(properties = "trade.archive.enabled=true")
+@AutoConfigureMockMvc
+public class TradeArchiveRoundTripTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private TradeDao tradeDao;
+
+	@Autowired
+	private TradeLatestDao tradeLatestDao;
+
+	@Autowired
+	private TradeArchiveDao tradeArchiveDao;
+
+	@Autowired
+	private TradeArchiver tradeArchiver;
+
+	@DisplayName("JUnit test for re-sending in bulk the latest version of an archived trade")
+	@Test
+	public void shouldStoreBulkReSendOfArchivedTrade() throws Exception {
+
+		final LocalDateTime today = LocalDateTime.now();
+		final Integer tradeId = 9001;
+
+		// both versions expired & matured past the retention window
+		tradeDao.saveAndFlush(new Trade(tradeId, 1, "CPTY-1", "BOOK-1", today, today.minusDays(60), true, 1));
+		Trade latestVersion = tradeDao
+				.saveAndFlush(new Trade(tradeId, 2, "CPTY-1", "BOOK-1", today, today.minusDays(60), true, 1));
+		tradeLatestDao.saveLatest(latestVersion);
+
+		tradeArchiver.archiveExpiredTrades(LocalDate.now());
+
+		// the latest version stays in TRADE
+		assertAll(() -> assertEquals(tradeArchiveDao.findArchivedTrade(tradeId, 1).isPresent(), true),
+				() -> assertEquals(tradeArchiveDao.findArchivedTrade(tradeId, 2), Optional.empty()));
+
+		Trade reSent = new Trade(tradeId, 2, "CPTY-2", "BOOK-1", today, today.plusDays(5), false, 1);
+		mockMvc.perform(post("/trades").contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(Lists.newArrayList(reSent)))).andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].status").value("UPDATED"));
+
+		mockMvc.perform(get("/trade/" + tradeId + "/2")).andExpect(jsonPath("$.counterpartyId").value("CPTY-2"))
+				.andExpect(jsonPath("$.expired").value(false));
+		mockMvc.perform(get("/trade/" + tradeId + "/latest")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.counterpartyId").value("CPTY-2"));
+	}
+
+}
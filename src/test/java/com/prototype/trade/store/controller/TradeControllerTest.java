@@ -3,21 +3,29 @@ package com.prototype.trade.store.controller;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -32,12 +40,19 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
-import com.google.common.collect.Lists;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.prototype.trade.store.codec.TradeBinaryCodec;
+import com.prototype.trade.store.codec.TradeBinaryHttpMessageConverter;
 import com.prototype.trade.store.exception.TradeStoreException;
 import com.prototype.trade.store.model.Trade;
+import com.prototype.trade.store.repository.TradeBatchDao;
 import com.prototype.trade.store.repository.TradeDao;
 import com.prototype.trade.store.service.impl.TradeServiceImpl;
 
@@ -49,6 +64,9 @@ public class TradeControllerTest {
 	@Autowired
 	private MockMvc mockMvc;
 
+	@Autowired
+	private ObjectMapper objectMapper;
+
 	@InjectMocks
 	private TradeController tradeController;
 
@@ -58,12 +76,19 @@ public class TradeControllerTest {
 	@Mock
 	private TradeDao tradeDao;
 
+	@Mock
+	private TradeBatchDao tradeBatchDao;
+
+	private TradeBlockingEndpoints blockingEndpoints;
+
 	@BeforeEach
 	public void initEach() {
 
 		tradeService.setTradeDao(tradeDao);
 		tradeController.setTradeService(tradeService);
-		mockMvc = MockMvcBuilders.standaloneSetup(tradeController).build();
+		blockingEndpoints = new TradeBlockingEndpoints();
+		blockingEndpoints.setTradeController(tradeController);
+		mockMvc = MockMvcBuilders.standaloneSetup(tradeController, blockingEndpoints).build();
 	}
 	
 	@DisplayName("JUnit test for default hello message")
@@ -106,11 +131,8 @@ public class TradeControllerTest {
 		
 		final String expectedErrorMessage = "Rejected tradeId/tradeVerssion=" + tradeId + "/" + tradeVersion_1 + " as lower trade version is received";
 		
-		Trade higerVersionTrade_v2 = new Trade(tradeId, tradeVersion_2, "CPTY-2", "BOOK-2", todayDateTime, maturityDateTime, false, 1);
-		Trade higerVersionTrade_v3 = new Trade(tradeId, tradeVersion_3, "CPTY-3", "BOOK-3", todayDateTime, maturityDateTime, false, 1);
-		
-		Optional<List<Trade>> optional =  Optional.ofNullable(Lists.newArrayList(higerVersionTrade_v2, higerVersionTrade_v3));
-		Mockito.when(tradeDao.findTradesByTradeId(any(Integer.class))).thenReturn(optional);  
+		// tradeVersion_2 & tradeVersion_3 are stored, latest version projection returns the highest
+		Mockito.when(tradeDao.findLatestTradeVersion(any(Integer.class))).thenReturn(Optional.of(tradeVersion_3));
 		
 		// start processing/saving lower trade version
 		Trade lowerVersionTrade = new Trade(tradeId, tradeVersion_1, "CPTY-1", "BOOK-1", todayDateTime, maturityDateTime, true, 1);
@@ -121,7 +143,7 @@ public class TradeControllerTest {
 		
 		String actualErrorMessage = exception.getMessage();
 		assertEquals(actualErrorMessage, expectedErrorMessage);
-		verify(tradeDao, times(1)).findTradesByTradeId(any(Integer.class));
+		verify(tradeDao, times(1)).findLatestTradeVersion(any(Integer.class));
 
 	}
 	
@@ -138,7 +160,7 @@ public class TradeControllerTest {
 		
 		Trade trade = new Trade(tradeId, tradeVersion, "CPTY-100", "BOOK-100", todayDateTime, maturityDateTime, true, 1);
 		
-		Mockito.when(tradeDao.findTradesByTradeId(any(Integer.class))).thenReturn(Optional.ofNullable(null));
+		Mockito.when(tradeDao.findLatestTradeVersion(any(Integer.class))).thenReturn(Optional.empty());
 		Mockito.when(tradeDao.saveAndFlush(any(Trade.class))).thenReturn(trade);
 	    
 		// process & save fresh trade
@@ -150,7 +172,7 @@ public class TradeControllerTest {
 				() -> assertEquals(response.getBody(), expectedMessage)
         );
 		
-		verify(tradeDao, times(1)).findTradesByTradeId(any(Integer.class));
+		verify(tradeDao, times(1)).findLatestTradeVersion(any(Integer.class));
 		verify(tradeDao, times(1)).saveAndFlush(any(Trade.class));
 	}
 	
@@ -167,7 +189,7 @@ public class TradeControllerTest {
 		
 		Trade trade = new Trade(tradeId, tradeVersion, "CPTY-100", "BOOK-100", todayDateTime, maturityDateTime, true, 1);
 		
-		Mockito.when(tradeDao.findTradesByTradeId(any(Integer.class))).thenReturn(Optional.ofNullable(null));
+		Mockito.when(tradeDao.findLatestTradeVersion(any(Integer.class))).thenReturn(Optional.empty());
 		Mockito.when(tradeDao.saveAndFlush(any(Trade.class))).thenReturn(trade);
 	    
 		// process & save fresh trade
@@ -181,7 +203,8 @@ public class TradeControllerTest {
 		
 		// trade with same tradeId/tradeVesrion but updated counterpart & book details
 		Trade tradeWithSameTradeIdTradeVersion = new Trade(tradeId, tradeVersion, "CPTY-200", "BOOK-200", todayDateTime, maturityDateTime, true, 1);
-		Mockito.when(tradeDao.findTradesByTradeId(any(Integer.class))).thenReturn(Optional.ofNullable(Lists.newArrayList(trade)));
+		Mockito.when(tradeDao.findLatestTradeVersion(any(Integer.class))).thenReturn(Optional.of(tradeVersion));
+		Mockito.when(tradeDao.findTradeByTradeIdTradeVersion(any(Integer.class), any(Integer.class))).thenReturn(Optional.of(trade));
 		Mockito.when(tradeDao.saveAndFlush(any(Trade.class))).thenReturn(tradeWithSameTradeIdTradeVersion);
 		
 		// trade with same tradeId/tradeVesrion arrived again
@@ -192,7 +215,8 @@ public class TradeControllerTest {
 				() -> assertEquals(response.getBody(), expectedMessage)
         );
 		
-		verify(tradeDao, times(2)).findTradesByTradeId(any(Integer.class));
+		verify(tradeDao, times(2)).findLatestTradeVersion(any(Integer.class));
+		verify(tradeDao, times(1)).findTradeByTradeIdTradeVersion(any(Integer.class), any(Integer.class));
 		verify(tradeDao, times(2)).saveAndFlush(any(Trade.class));
 	}
 	
@@ -238,4 +262,100 @@ public class TradeControllerTest {
 		verify(tradeDao, times(1)).findTradeByTradeIdTradeVersion(any(Integer.class), any(Integer.class));
 	}
 
+	@DisplayName("JUnit test for saving a trade on the offload pool")
+	@Test
+	public void shouldSaveTradeOnOffloadPool() throws Exception {
+
+		final LocalDateTime todayDateTime = LocalDateTime.now();
+		Trade trade = new Trade(100, 1, "CPTY-100", "BOOK-100", todayDateTime, todayDateTime.plusDays(1), false, 1);
+
+		Mockito.when(tradeDao.findLatestTradeVersion(any(Integer.class))).thenReturn(Optional.empty());
+		Mockito.when(tradeDao.saveAndFlush(any(Trade.class))).thenReturn(trade);
+
+		Mockito.when(tradeDao.findTradeByTradeIdTradeVersion(any(Integer.class), any(Integer.class)))
+				.thenReturn(Optional.of(trade));
+
+		TradeOffloadEndpoints offloadEndpoints = new TradeOffloadEndpoints();
+		offloadEndpoints.setTradeController(tradeController);
+		MockMvc offloadMockMvc = MockMvcBuilders.standaloneSetup(offloadEndpoints).build();
+
+		MvcResult saved = offloadMockMvc.perform(post("/trade").contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(trade)))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		offloadMockMvc.perform(asyncDispatch(saved))
+				.andExpect(status().isCreated())
+				.andExpect(content().string("Successfully processed & saved tradeId=100, tradeVersion=1"));
+
+		// the location is built from the request bound to the pool thread
+		MvcResult fetched = offloadMockMvc.perform(get("/trade/100/1"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		offloadMockMvc.perform(asyncDispatch(fetched))
+				.andExpect(status().isCreated())
+				.andExpect(header().string("Location", startsWith("http://localhost/trade/100/1/")))
+				.andExpect(jsonPath("$.tradeId", is(100)));
+
+		ResponseEntity<Void> throttled = offloadEndpoints.throttled(new MockHttpServletRequest());
+		assertAll(
+				() -> assertEquals(throttled.getStatusCode(), HttpStatus.TOO_MANY_REQUESTS),
+				() -> assertEquals(throttled.getHeaders().getFirst("Retry-After"), "1")
+		);
+	}
+
+	@DisplayName("JUnit test for ingesting single & bulk trades posted in the binary wire format")
+	@Test
+	public void shouldSaveTradesPostedAsBinary() throws Exception {
+
+		final LocalDateTime todayDateTime = LocalDateTime.now();
+		final LocalDateTime maturityDateTime = todayDateTime.plusDays(1);
+
+		Trade trade = new Trade(100, 1, "CPTY-100", "BOOK-100", todayDateTime, maturityDateTime, false, 1);
+		Trade otherTrade = new Trade(101, 1, "CPTY-101", "BOOK-101", todayDateTime, maturityDateTime, false, 1);
+
+		Mockito.when(tradeDao.findLatestTradeVersion(any(Integer.class))).thenReturn(Optional.empty());
+		Mockito.when(tradeDao.saveAndFlush(any(Trade.class))).thenReturn(trade);
+		Mockito.when(tradeBatchDao.insertTrades(anyCollection())).thenReturn(new int[] { 1, 1 });
+		tradeService.setTradeBatchDao(tradeBatchDao);
+
+		MockMvc binaryMockMvc = MockMvcBuilders.standaloneSetup(tradeController, blockingEndpoints)
+				.setMessageConverters(new TradeBinaryHttpMessageConverter(), new StringHttpMessageConverter(),
+						new MappingJackson2HttpMessageConverter())
+				.build();
+
+		ByteArrayOutputStream single = new ByteArrayOutputStream();
+		TradeBinaryCodec.write(new DataOutputStream(single), trade);
+
+		binaryMockMvc.perform(post("/trade").contentType(TradeBinaryHttpMessageConverter.TRADE_BINARY_TYPE)
+				.content(single.toByteArray()))
+				.andExpect(status().isCreated())
+				.andExpect(content().string("Successfully processed & saved tradeId=100, tradeVersion=1"));
+
+		ByteArrayOutputStream bulk = new ByteArrayOutputStream();
+		TradeBinaryCodec.writeAll(new DataOutputStream(bulk), Arrays.asList(trade, otherTrade));
+
+		binaryMockMvc.perform(post("/trades").contentType(TradeBinaryHttpMessageConverter.TRADE_BINARY_TYPE)
+				.content(bulk.toByteArray()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(2)))
+				.andExpect(jsonPath("$[1].tradeId", is(101)))
+				.andExpect(jsonPath("$[1].status", is("ACCEPTED")));
+
+		// a truncated body is a bad request
+		binaryMockMvc.perform(post("/trade").contentType(TradeBinaryHttpMessageConverter.TRADE_BINARY_TYPE)
+				.content(Arrays.copyOf(single.toByteArray(), 6)))
+				.andExpect(status().isBadRequest());
+
+		// so is a maturity date out of range: presence bits of the maturity date only, then its epoch second & nano
+		ByteArrayOutputStream outOfRange = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(outOfRange);
+		out.writeShort(1 << 5);
+		out.writeLong(Long.MAX_VALUE);
+		out.writeInt(0);
+
+		binaryMockMvc.perform(post("/trade").contentType(TradeBinaryHttpMessageConverter.TRADE_BINARY_TYPE)
+				.content(outOfRange.toByteArray()))
+				.andExpect(status().isBadRequest());
+	}
+
 }
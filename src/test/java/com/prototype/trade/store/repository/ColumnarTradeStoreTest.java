@@ -0,0 +1,88 @@
+package com.prototype.trade.store.repository;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DuplicateKeyException;
+
+import com.prototype.trade.store.model.Trade;
+import com.prototype.trade.store.model.TradeMaturityView;
+import com.prototype.trade.store.repository.columnar.ColumnarTradeStore;
+
+public class ColumnarTradeStoreTest {
+
+	@TempDir
+	Path tempDir;
+
+	@DisplayName("Junit for columnar store, writes survive a restart through the write-ahead log")
+	@Test
+	public void shouldReplayTradesFromWriteAheadLog() throws IOException {
+
+		final LocalDateTime maturityDate = LocalDate.now().plusDays(5).atTime(10, 30);
+		Path logFile = tempDir.resolve("trade-store.wal");
+
+		ColumnarTradeStore store = new ColumnarTradeStore(16, logFile, true);
+		store.open();
+		store.save(new Trade(1, 1, "CPTY-1", "BOOK-1", LocalDateTime.now(), maturityDate, false, 1));
+		store.save(new Trade(1, 2, "CPTY-1", "BOOK-2", LocalDateTime.now(), maturityDate, false, 1));
+
+		Trade amended = store.find(1, 2);
+		amended.setCounterpartyId("CPTY-2");
+		store.save(amended);
+		store.expire(1, 1);
+		store.close();
+
+		ColumnarTradeStore replayed = new ColumnarTradeStore(16, logFile, true);
+		replayed.open();
+
+		assertAll(
+				() -> assertEquals(replayed.count(), 2),
+				() -> assertEquals(replayed.latestVersion(1), 2),
+				() -> assertEquals(replayed.find(1, 2).getCounterpartyId(), "CPTY-2"),
+				() -> assertEquals(replayed.find(1, 2).getMaturityDate(), maturityDate),
+				() -> assertTrue(replayed.find(1, 1).getExpired()),
+				() -> assertNull(replayed.find(2, 1)),
+				() -> assertThrows(DuplicateKeyException.class,
+						() -> replayed.save(new Trade(1, 1, "CPTY-1", "BOOK-1", null, maturityDate, false, 1)))
+		);
+		replayed.close();
+	}
+
+	@DisplayName("Junit for columnar store, only active trades matured before the cutoff are due")
+	@Test
+	public void shouldExpireMaturedActiveTrades() {
+
+		final LocalDateTime todayDateTime = LocalDate.now().atStartOfDay();
+		ColumnarTradeStore store = new ColumnarTradeStore(16, null, false);
+
+		store.save(new Trade(1, 1, "CPTY-1", "BOOK-1", todayDateTime, todayDateTime.minusDays(1), false, 1));
+		store.save(new Trade(2, 1, "CPTY-1", "BOOK-1", todayDateTime, todayDateTime, false, 1));
+		store.save(new Trade(3, 1, "CPTY-1", "BOOK-1", todayDateTime, todayDateTime.minusDays(2), true, 1));
+
+		List<TradeMaturityView> due = store.findMaturedActive(todayDateTime, 100);
+		List<Integer> ids = due.stream().map(TradeMaturityView::getId).collect(Collectors.toList());
+
+		assertAll(
+				() -> assertEquals(due.size(), 1),
+				() -> assertEquals(due.get(0).getTradeId(), 1),
+				() -> assertEquals(store.expireByIds(ids), 1),
+				() -> assertEquals(store.expireByIds(ids), 0),
+				() -> assertFalse(store.find(2, 1).getExpired())
+		);
+	}
+
+}
@@ -4,9 +4,12 @@ import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
@@ -16,9 +19,14 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import com.google.common.collect.Lists;
 import com.prototype.trade.store.model.Trade;
+import com.prototype.trade.store.model.TradeKey;
+import com.prototype.trade.store.model.TradeMaturityView;
+import com.prototype.trade.store.repository.impl.JdbcTradeArchiveDao;
 
 @DataJpaTest
 public class TradeDaoTest {
@@ -26,6 +34,9 @@ public class TradeDaoTest {
 	@Autowired
 	private TradeDao tradeDao;
 
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
 	@BeforeAll // This is class level
 	public static void init() {
 		System.out.println("BeforeAll init() method called");
@@ -158,6 +169,178 @@ public class TradeDaoTest {
 
 	}
 
+	@DisplayName("JUnit test for fetching only the active trades matured before today")
+	@Test
+	public void shouldFetchOnlyMaturedActiveTrades() {
+
+		LocalDateTime today = LocalDateTime.now();
+
+		// persist matured, far-dated & already expired trades
+		Trade maturedTrade = getTrade(1, 1, "CPTY-1", "BOOK-1", today, today.minusDays(1), false, 1);
+		Trade farDatedTrade = getTrade(2, 1, "CPTY-2", "BOOK-2", today, today.plusYears(5), false, 1);
+		Trade expiredTrade = getTrade(3, 1, "CPTY-3", "BOOK-3", today, today.minusDays(2), true, 1);
+
+		tradeDao.saveAll(Lists.newArrayList(maturedTrade, farDatedTrade, expiredTrade));
+
+		List<Trade> maturedTrades = tradeDao.findActiveTradesMaturedBefore(LocalDate.now().atStartOfDay())
+				.orElse(null);
+
+		assertAll(
+				() -> assertEquals(maturedTrades.size(), 1),
+				() -> assertEquals(maturedTrades.get(0).getTradeId(), 1)
+		);
+
+	}
+
+	@DisplayName("JUnit test for expiring active trades matured before today in bulk")
+	@Test
+	public void shouldExpireMaturedActiveTradesInBulk() {
+
+		LocalDateTime today = LocalDateTime.now();
+		LocalDateTime startOfToday = LocalDate.now().atStartOfDay();
+
+		// persist matured, active & already expired trades
+		Trade maturedTrade1 = getTrade(1, 1, "CPTY-1", "BOOK-1", today, today.minusDays(1), false, 1);
+		Trade maturedTrade2 = getTrade(2, 1, "CPTY-2", "BOOK-2", today, today.minusDays(3), false, 1);
+		Trade activeTrade = getTrade(3, 1, "CPTY-3", "BOOK-3", today, today.plusDays(1), false, 1);
+		Trade expiredTrade = getTrade(4, 1, "CPTY-4", "BOOK-4", today, today.minusDays(2), true, 1);
+
+		tradeDao.saveAll(Lists.newArrayList(maturedTrade1, maturedTrade2, activeTrade, expiredTrade));
+
+		List<TradeMaturityView> maturedTrades = tradeDao.findMaturedActiveTrades(startOfToday, PageRequest.of(0, 10));
+		assertEquals(maturedTrades.size(), 2);
+
+		int expired = tradeDao
+				.expireTradesByIds(maturedTrades.stream().map(TradeMaturityView::getId).collect(Collectors.toList()));
+		assertEquals(expired, 2);
+
+		// nothing left to expire
+		assertEquals(tradeDao.findMaturedActiveTrades(startOfToday, PageRequest.of(0, 10)).size(), 0);
+	}
+
+	@DisplayName("JUnit test for expiring matured active trades within an id range")
+	@Test
+	public void shouldExpireMaturedTradesInIdRange() {
+
+		LocalDateTime today = LocalDateTime.now();
+		LocalDateTime startOfToday = LocalDate.now().atStartOfDay();
+
+		List<Trade> trades = tradeDao.saveAll(Lists.newArrayList(
+				getTrade(1, 1, "CPTY-1", "BOOK-1", today, today.minusDays(1), false, 1),
+				getTrade(2, 1, "CPTY-1", "BOOK-1", today, today.minusDays(1), false, 1),
+				getTrade(3, 1, "CPTY-1", "BOOK-1", today, today.plusDays(1), false, 1)));
+
+		int minId = tradeDao.findMinId().get();
+		int maxId = tradeDao.findMaxId().get();
+		assertEquals(minId, trades.get(0).getId().intValue());
+		assertEquals(maxId, trades.get(2).getId().intValue());
+
+		// the range ends before the second matured trade
+		assertEquals(tradeDao.expireMaturedTradesInRange(minId, trades.get(1).getId(), startOfToday), 1);
+		assertEquals(tradeDao.expireMaturedTradesInRange(minId, maxId + 1, startOfToday), 1);
+	}
+
+	@DisplayName("JUnit test for streaming active trades of a book & counterparty")
+	@Test
+	public void shouldStreamActiveTradesByBookAndCounterparty() {
+
+		LocalDateTime today = LocalDateTime.now();
+
+		Trade bookTrade1 = getTrade(1, 1, "CPTY-1", "BOOK-1", today, today.plusDays(5), false, 1);
+		Trade bookTrade2 = getTrade(2, 1, "CPTY-1", "BOOK-1", today, today.plusDays(1), false, 1);
+		Trade expiredBookTrade = getTrade(3, 1, "CPTY-1", "BOOK-1", today, today, true, 1);
+		Trade otherCptyTrade = getTrade(4, 1, "CPTY-2", "BOOK-1", today, today.plusDays(1), false, 1);
+		Trade otherBookTrade = getTrade(5, 1, "CPTY-1", "BOOK-2", today, today.plusDays(1), false, 1);
+
+		tradeDao.saveAll(
+				Lists.newArrayList(bookTrade1, bookTrade2, expiredBookTrade, otherCptyTrade, otherBookTrade));
+
+		try (Stream<Trade> trades = tradeDao.streamTrades("BOOK-1", "CPTY-1", true)) {
+			assertEquals(trades.map(Trade::getTradeId).collect(Collectors.toList()), Lists.newArrayList(1, 2));
+		}
+
+		try (Stream<Trade> trades = tradeDao.streamTrades("BOOK-1", null, false)) {
+			assertEquals(trades.count(), 4);
+		}
+	}
+
+	@DisplayName("JUnit test for keyset paging of trades by tradeId & tradeVersion")
+	@Test
+	public void shouldPageTradesAfterKey() {
+
+		LocalDateTime today = LocalDateTime.now();
+		LocalDateTime startOfToday = LocalDate.now().atStartOfDay();
+
+		tradeDao.saveAll(Lists.newArrayList(
+				getTrade(2, 1, "CPTY-1", "BOOK-1", today, today.plusDays(5), false, 1),
+				getTrade(1, 2, "CPTY-1", "BOOK-1", today, today.plusDays(5), false, 1),
+				getTrade(1, 1, "CPTY-1", "BOOK-1", today, today.plusDays(5), false, 1),
+				getTrade(3, 1, "CPTY-1", "BOOK-1", today, today.plusDays(5), true, 1),
+				getTrade(4, 1, "CPTY-1", "BOOK-1", today, today.plusDays(40), false, 1)));
+
+		List<Trade> firstPage = tradeDao.findTradesAfterKey(Integer.MIN_VALUE, Integer.MIN_VALUE, false, null,
+				startOfToday.plusDays(30), PageRequest.of(0, 2));
+		assertEquals(firstPage.stream().map(TradeKey::of).collect(Collectors.toList()),
+				Lists.newArrayList(TradeKey.of(1, 1), TradeKey.of(1, 2)));
+
+		List<Trade> secondPage = tradeDao.findTradesAfterKey(1, 2, false, null, startOfToday.plusDays(30),
+				PageRequest.of(0, 2));
+		assertEquals(secondPage.stream().map(TradeKey::of).collect(Collectors.toList()),
+				Lists.newArrayList(TradeKey.of(2, 1)));
+	}
+
+	@DisplayName("JUnit test for moving expired trades past the retention window to the archive")
+	@Test
+	public void shouldArchiveExpiredTradesPastRetention() {
+
+		LocalDateTime today = LocalDateTime.now();
+		LocalDateTime cutoff = LocalDate.now().minusDays(30).atStartOfDay();
+
+		Trade oldVersion = tradeDao.save(getTrade(1, 1, "CPTY-1", "BOOK-1", today, today.minusDays(60), true, 1));
+		Trade latestVersion = tradeDao.save(getTrade(1, 2, "CPTY-1", "BOOK-1", today, today.minusDays(60), true, 1));
+		tradeDao.save(getTrade(2, 1, "CPTY-1", "BOOK-1", today, today.minusDays(5), true, 1));
+		tradeDao.save(getTrade(3, 1, "CPTY-1", "BOOK-1", today, today.minusDays(60), false, 1));
+		tradeDao.flush();
+
+		JdbcTradeArchiveDao tradeArchiveDao = new JdbcTradeArchiveDao();
+		tradeArchiveDao.setJdbcTemplate(jdbcTemplate);
+
+		assertEquals(tradeArchiveDao.findArchivableIds(cutoff, true, 10), Lists.newArrayList(oldVersion.getId()));
+
+		List<Integer> ids = tradeArchiveDao.findArchivableIds(cutoff, false, 10);
+		assertEquals(ids.size(), 2);
+		assertEquals(tradeArchiveDao.archiveTrades(ids), 2);
+
+		assertAll(() -> assertEquals(tradeDao.findTradeByTradeIdTradeVersion(1, 1), Optional.empty()),
+				() -> assertEquals(tradeDao.findTradeByTradeIdTradeVersion(1, 2), Optional.empty()),
+				() -> assertEquals(tradeArchiveDao.findArchivedTrade(1, 2).get().getId(), latestVersion.getId()),
+				() -> assertEquals(tradeDao.count(), 2));
+	}
+
+	@DisplayName("JUnit test for archiving a same-version re-send of an already archived trade")
+	@Test
+	public void shouldReplaceArchivedTradeByItsReSend() {
+
+		LocalDateTime today = LocalDateTime.now();
+		LocalDateTime cutoff = LocalDate.now().minusDays(30).atStartOfDay();
+
+		JdbcTradeArchiveDao tradeArchiveDao = new JdbcTradeArchiveDao();
+		tradeArchiveDao.setJdbcTemplate(jdbcTemplate);
+
+		tradeDao.save(getTrade(1, 1, "CPTY-1", "BOOK-1", today, today.minusDays(60), true, 1));
+		tradeDao.flush();
+		assertEquals(tradeArchiveDao.archiveTrades(tradeArchiveDao.findArchivableIds(cutoff, false, 10)), 1);
+
+		Trade reSent = tradeDao.save(getTrade(1, 1, "CPTY-2", "BOOK-1", today, today.minusDays(60), true, 1));
+		tradeDao.flush();
+		assertEquals(tradeArchiveDao.archiveTrades(tradeArchiveDao.findArchivableIds(cutoff, false, 10)), 1);
+
+		Trade archived = tradeArchiveDao.findArchivedTrade(1, 1).get();
+		assertAll(() -> assertEquals(archived.getId(), reSent.getId()),
+				() -> assertEquals(archived.getCounterpartyId(), "CPTY-2"),
+				() -> assertEquals(tradeDao.count(), 0));
+	}
+
 	private Trade getTrade(final Integer tradeId, final Integer tradeVersion, final String counterParty,
 			final String book, final LocalDateTime createdDateTime, final LocalDateTime maturityDateTime,
 			final Boolean expired, final Integer version) {
@@ -0,0 +1,85 @@
+package com.prototype.trade.store.repository;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.prototype.trade.store.model.Trade;
+import com.prototype.trade.store.repository.impl.JdbcTradeBatchDao;
+import com.prototype.trade.store.repository.impl.TradeIdAllocator;
+
+@DataJpaTest(properties = "trade.id.block-size=20")
+@Import({ JdbcTradeBatchDao.class, TradeIdAllocator.class })
+public class TradeIdAllocationTest {
+
+	private static final int BLOCK_SIZE = 20;
+
+	@Autowired
+	private TradeDao tradeDao;
+
+	@Autowired
+	private JdbcTradeBatchDao tradeBatchDao;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@DisplayName("JUnit test for the sequence increment following trade.id.block-size")
+	@Test
+	public void shouldAlignSequenceIncrementToBlockSize() {
+
+		Long first = nextSequenceValue();
+		Long second = nextSequenceValue();
+
+		assertEquals(second - first, BLOCK_SIZE);
+	}
+
+	@DisplayName("JUnit test for distinct ids of interleaved JPA saves & JDBC batch inserts")
+	@Test
+	public void shouldAllocateDistinctIdsAcrossJpaAndBatchInserts() {
+
+		LocalDateTime today = LocalDateTime.now();
+		Set<Integer> ids = new HashSet<>();
+		int tradeId = 1000;
+
+		// several blocks of both allocators, each taking its next block while the other is mid-block
+		for (int i = 0; i < 30; i++) {
+
+			ids.add(tradeDao.saveAndFlush(trade(tradeId++, today)).getId());
+
+			List<Trade> batch = new ArrayList<>();
+			for (int b = 0; b < 3; b++) {
+				batch.add(trade(tradeId++, today));
+			}
+			tradeBatchDao.insertTrades(batch);
+			batch.forEach(t -> ids.add(t.getId()));
+		}
+
+		assertAll(() -> assertEquals(ids.size(), 120),
+				() -> assertEquals(jdbcTemplate.queryForObject(
+						"SELECT COUNT(DISTINCT ID) FROM TRADE WHERE TRADE_ID >= 1000", Integer.class),
+						Integer.valueOf(120)));
+	}
+
+	private Long nextSequenceValue() {
+
+		return jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + TradeIdGenerator.SEQUENCE_NAME, Long.class);
+	}
+
+	private static Trade trade(int tradeId, LocalDateTime today) {
+
+		return new Trade(tradeId, 1, "CPTY-1", "BOOK-1", today, today.plusDays(5), false, 1);
+	}
+
+}
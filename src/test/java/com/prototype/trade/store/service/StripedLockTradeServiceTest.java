@@ -0,0 +1,136 @@
+package com.prototype.trade.store.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.google.common.collect.Lists;
+import com.prototype.trade.store.model.Trade;
+import com.prototype.trade.store.service.impl.StripedLockTradeService;
+import com.prototype.trade.store.service.impl.TradeDedupWindow;
+
+@ExtendWith(MockitoExtension.class)
+public class StripedLockTradeServiceTest {
+
+	@Mock
+	private TradeService tradeService;
+
+	@InjectMocks
+	private StripedLockTradeService stripedLockTradeService;
+
+	@DisplayName("Junit for concurrent writes of one tradeId, the delegate never runs them in parallel")
+	@Test
+	public void shouldSerializeWritesOfSameTradeId() throws Exception {
+
+		final LocalDateTime todayDateTime = LocalDateTime.now();
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+
+		Mockito.when(tradeService.processAndSaveTrade(any(Trade.class))).thenAnswer(invocation -> {
+
+			maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+			Thread.sleep(5);
+			running.decrementAndGet();
+			return "saved";
+		});
+		Mockito.when(tradeService.processAndSaveTrades(anyList())).thenAnswer(invocation -> {
+
+			maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+			Thread.sleep(5);
+			running.decrementAndGet();
+			return new ArrayList<>();
+		});
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < 32; i++) {
+
+			Trade trade = new Trade(1, i, "CPTY-1", "BOOK-1", todayDateTime, todayDateTime.plusDays(1), false, 1);
+			Trade other = new Trade(1000 + i, 1, "CPTY-1", "BOOK-1", todayDateTime, todayDateTime.plusDays(1), false, 1);
+			futures.add(i % 4 == 0 ? executor.submit(() -> stripedLockTradeService.processAndSaveTrades(Lists.newArrayList(other, trade)))
+					: executor.submit(() -> stripedLockTradeService.processAndSaveTrade(trade)));
+		}
+		for (Future<?> future : futures) {
+			future.get(10, TimeUnit.SECONDS);
+		}
+		executor.shutdown();
+
+		assertEquals(maxRunning.get(), 1);
+		verify(tradeService, times(24)).processAndSaveTrade(any(Trade.class));
+		verify(tradeService, times(8)).processAndSaveTrades(anyList());
+	}
+
+	@DisplayName("Junit for replayed trades acknowledged from the dedup window")
+	@Test
+	public void shouldAcknowledgeIdenticalReplayFromDedupWindow() {
+
+		final LocalDateTime todayDateTime = LocalDateTime.now();
+		final LocalDateTime maturityDateTime = todayDateTime.plusDays(1);
+		TradeDedupWindow tradeDedupWindow = new TradeDedupWindow();
+		stripedLockTradeService.setTradeDedupWindow(tradeDedupWindow);
+
+		Mockito.when(tradeService.processAndSaveTrade(any(Trade.class))).thenReturn("saved");
+		Mockito.when(tradeService.processAndSaveTrades(anyList())).thenReturn(new ArrayList<>());
+
+		Trade trade = new Trade(1, 1, "CPTY-1", "BOOK-1", todayDateTime, maturityDateTime, false, 1);
+		Trade replay = new Trade(1, 1, "CPTY-1", "BOOK-1", todayDateTime, maturityDateTime, false, 1);
+		Trade amended = new Trade(1, 1, "CPTY-2", "BOOK-1", todayDateTime, maturityDateTime, false, 1);
+
+		assertEquals(stripedLockTradeService.processAndSaveTrade(trade), "saved");
+		assertEquals(stripedLockTradeService.processAndSaveTrade(replay), "saved");
+		verify(tradeService, times(1)).processAndSaveTrade(any(Trade.class));
+
+		// different content is written again
+		stripedLockTradeService.processAndSaveTrade(amended);
+		verify(tradeService, times(2)).processAndSaveTrade(any(Trade.class));
+
+		// a batch may have written the tradeId meanwhile
+		stripedLockTradeService.processAndSaveTrades(Lists.newArrayList(trade));
+		stripedLockTradeService.processAndSaveTrade(amended);
+		verify(tradeService, times(3)).processAndSaveTrade(any(Trade.class));
+	}
+
+	@DisplayName("Junit for replays deduplicated although the write set the id & version of the trade")
+	@Test
+	public void shouldKeepTradeAsReceivedInDedupWindow() {
+
+		final LocalDateTime todayDateTime = LocalDateTime.now();
+		final LocalDateTime maturityDateTime = todayDateTime.plusDays(1);
+		stripedLockTradeService.setTradeDedupWindow(new TradeDedupWindow());
+
+		Mockito.when(tradeService.processAndSaveTrade(any(Trade.class))).thenAnswer(invocation -> {
+
+			Trade saved = invocation.getArgument(0);
+			saved.setId(10);
+			saved.setVersion(2);
+			return "saved";
+		});
+
+		Trade trade = new Trade(1, 1, "CPTY-1", "BOOK-1", todayDateTime, maturityDateTime, false, 1);
+		Trade replay = new Trade(1, 1, "CPTY-1", "BOOK-1", todayDateTime, maturityDateTime, false, 1);
+
+		stripedLockTradeService.processAndSaveTrade(trade);
+		assertEquals(stripedLockTradeService.processAndSaveTrade(replay), "saved");
+		verify(tradeService, times(1)).processAndSaveTrade(any(Trade.class));
+	}
+
+}
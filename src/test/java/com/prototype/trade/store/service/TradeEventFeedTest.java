@@ -0,0 +1,83 @@
+package com.prototype.trade.store.service;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.prototype.trade.store.model.TradeEvent.Type;
+import com.prototype.trade.store.model.TradeEventPage;
+import com.prototype.trade.store.service.impl.TradeEventFeed;
+
+public class TradeEventFeedTest {
+
+	@DisplayName("Junit for resuming the event feed from the last read sequence")
+	@Test
+	public void shouldResumeFromLastSequence() {
+
+		TradeEventFeed tradeEventFeed = new TradeEventFeed();
+		tradeEventFeed.publishAfterCommit(Type.ACCEPTED, 1, 1);
+		tradeEventFeed.publish(Type.REJECTED, 1, 0, "Rejected lower version");
+		tradeEventFeed.publishAfterCommit(Type.EXPIRED, 1, 1);
+
+		TradeEventPage first = tradeEventFeed.read(0, 2);
+		TradeEventPage next = tradeEventFeed.read(first.getLastSequence(), 2);
+
+		assertAll(
+				() -> assertEquals(first.getEvents().size(), 2),
+				() -> assertEquals(first.getLastSequence(), 2),
+				() -> assertEquals(first.getEvents().get(1).getType(), Type.REJECTED),
+				() -> assertEquals(next.getEvents().size(), 1),
+				() -> assertEquals(next.getEvents().get(0).getType(), Type.EXPIRED),
+				() -> assertEquals(next.getLastSequence(), 3),
+				() -> assertFalse(next.isTruncated())
+		);
+	}
+
+	@DisplayName("Junit for a consumer that fell behind the ring of retained events")
+	@Test
+	public void shouldTruncateWhenEventsWereOverwritten() {
+
+		TradeEventFeed tradeEventFeed = new TradeEventFeed();
+		tradeEventFeed.setCapacity(4);
+		for (int tradeId = 1; tradeId <= 10; tradeId++) {
+			tradeEventFeed.publishAfterCommit(Type.ACCEPTED, tradeId, 1);
+		}
+
+		TradeEventPage page = tradeEventFeed.read(2, 100);
+
+		assertAll(
+				() -> assertTrue(page.isTruncated()),
+				() -> assertEquals(page.getEvents().size(), 4),
+				() -> assertEquals(page.getEvents().get(0).getSequence(), 7),
+				() -> assertEquals(page.getEvents().get(0).getTradeId(), 7),
+				() -> assertEquals(page.getLastSequence(), 10)
+		);
+	}
+
+	@DisplayName("Junit for a long poll completed by the next published event")
+	@Test
+	public void shouldCompletePollWithNextEvent() {
+
+		TradeEventFeed tradeEventFeed = new TradeEventFeed();
+		tradeEventFeed.publishAfterCommit(Type.ACCEPTED, 1, 1);
+
+		CompletableFuture<TradeEventPage> next = tradeEventFeed.poll(1, 10);
+		assertFalse(next.isDone());
+
+		tradeEventFeed.publishAfterCommit(Type.UPDATED, 1, 1);
+
+		assertAll(
+				() -> assertTrue(next.isDone()),
+				() -> assertEquals(next.join().getEvents().size(), 1),
+				() -> assertEquals(next.join().getEvents().get(0).getType(), Type.UPDATED),
+				() -> assertEquals(next.join().getLastSequence(), 2)
+		);
+	}
+
+}
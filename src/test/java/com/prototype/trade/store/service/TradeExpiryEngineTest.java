@@ -0,0 +1,164 @@
+package com.prototype.trade.store.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.LongConsumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.google.common.collect.Lists;
+import com.prototype.trade.store.model.TradeEvent;
+import com.prototype.trade.store.model.TradeKey;
+import com.prototype.trade.store.model.TradeMaturityView;
+import com.prototype.trade.store.repository.TradeBatchDao;
+import com.prototype.trade.store.repository.TradeDao;
+import com.prototype.trade.store.service.impl.TradeEventFeed;
+import com.prototype.trade.store.service.impl.TradeExpiryEngine;
+
+@ExtendWith(MockitoExtension.class)
+public class TradeExpiryEngineTest {
+
+	@Mock
+	private TradeDao tradeDao;
+
+	@Mock
+	private TradeBatchDao tradeBatchDao;
+
+	@Mock
+	private PlatformTransactionManager transactionManager;
+
+	private TradeExpiryEngine tradeExpiryEngine;
+
+	@BeforeEach
+	public void setup() {
+
+		tradeExpiryEngine = new TradeExpiryEngine();
+		tradeExpiryEngine.setTradeDao(tradeDao);
+		tradeExpiryEngine.setTradeBatchDao(tradeBatchDao);
+		tradeExpiryEngine.setTransactionManager(transactionManager);
+		tradeExpiryEngine.setPartitionSize(100);
+		tradeExpiryEngine.setParallelism(2);
+	}
+
+	@AfterEach
+	public void teardown() {
+		tradeExpiryEngine.shutdown();
+	}
+
+	@DisplayName("Junit for method 'expireMaturedTradesPartitioned' when one partition fails")
+	@Test
+	public void shouldKeepOtherPartitionsWhenOnePartitionFails() {
+
+		final LocalDate today = LocalDate.now();
+		final LocalDateTime cutoff = today.atStartOfDay();
+
+		Mockito.when(tradeDao.findMinId()).thenReturn(Optional.of(1));
+		Mockito.when(tradeDao.findMaxId()).thenReturn(Optional.of(250));
+		Mockito.when(tradeDao.expireMaturedTradesInRange(1, 101, cutoff)).thenReturn(10);
+		Mockito.when(tradeDao.expireMaturedTradesInRange(101, 201, cutoff))
+				.thenThrow(new CannotAcquireLockException("lock timeout"));
+		Mockito.when(tradeDao.expireMaturedTradesInRange(201, 251, cutoff)).thenReturn(5);
+
+		int expiredTrades = tradeExpiryEngine.expireMaturedTradesPartitioned(today);
+
+		assertEquals(expiredTrades, 15);
+		verify(tradeDao, times(3)).expireMaturedTradesInRange(any(Integer.class), any(Integer.class), eq(cutoff));
+		// each partition commits or rolls back on its own
+		verify(transactionManager, times(2)).commit(any());
+		verify(transactionManager, times(1)).rollback(any());
+
+	}
+
+	@DisplayName("Junit for method 'expireMaturedTrades' publishing only the trades its chunk expired")
+	@Test
+	public void shouldPublishOnlyTradesExpiredByTheChunk() {
+
+		final LocalDate today = LocalDate.now();
+		final LocalDateTime cutoff = today.atStartOfDay();
+		TradeEventFeed tradeEventFeed = new TradeEventFeed();
+		tradeExpiryEngine.setTradeEventFeed(tradeEventFeed);
+
+		TradeMaturityView matured_1 = Mockito.mock(TradeMaturityView.class);
+		Mockito.when(matured_1.getTradeId()).thenReturn(1);
+		Mockito.when(matured_1.getTradeVersion()).thenReturn(1);
+		TradeMaturityView matured_2 = Mockito.mock(TradeMaturityView.class);
+		Mockito.when(matured_2.getTradeId()).thenReturn(2);
+		Mockito.when(matured_2.getTradeVersion()).thenReturn(1);
+		Mockito.when(tradeDao.findMaturedActiveTrades(eq(cutoff), any(Pageable.class)))
+				.thenReturn(Lists.newArrayList(matured_1, matured_2));
+
+		// tradeId=2 was expired concurrently, only tradeId=1 is flipped by this chunk
+		Mockito.when(tradeBatchDao.expireTrades(anyCollection(), eq(cutoff), any(LongConsumer.class)))
+				.thenAnswer(invocation -> {
+					Collection<Long> keys = invocation.getArgument(0);
+					LongConsumer expiredKeys = invocation.getArgument(2);
+					expiredKeys.accept(TradeKey.of(1, 1));
+					return keys.size() - 1;
+				});
+
+		int expiredTrades = tradeExpiryEngine.expireMaturedTrades(today);
+
+		List<TradeEvent> events = tradeEventFeed.read(0, 10).getEvents();
+		assertEquals(expiredTrades, 1);
+		assertEquals(events.size(), 1);
+		assertEquals(events.get(0).getTradeId(), Integer.valueOf(1));
+		verify(tradeDao, times(0)).expireTradesByIds(anyCollection());
+	}
+
+	@DisplayName("Junit for method 'expireMaturedTradesPartitioned' publishing the trades its ranges expired")
+	@Test
+	public void shouldPublishTradesExpiredByPartition() {
+
+		final LocalDate today = LocalDate.now();
+		final LocalDateTime cutoff = today.atStartOfDay();
+		TradeEventFeed tradeEventFeed = new TradeEventFeed();
+		tradeExpiryEngine.setTradeEventFeed(tradeEventFeed);
+
+		TradeMaturityView matured = Mockito.mock(TradeMaturityView.class);
+		Mockito.when(matured.getId()).thenReturn(7);
+		Mockito.when(matured.getTradeId()).thenReturn(3);
+		Mockito.when(matured.getTradeVersion()).thenReturn(2);
+
+		Mockito.when(tradeDao.findMinId()).thenReturn(Optional.of(1));
+		Mockito.when(tradeDao.findMaxId()).thenReturn(Optional.of(50));
+		Mockito.when(tradeDao.findMaturedActiveTradesInRange(eq(0), eq(51), eq(cutoff), any(Pageable.class)))
+				.thenReturn(Lists.newArrayList(matured));
+		Mockito.when(tradeBatchDao.expireTrades(anyCollection(), eq(cutoff), any(LongConsumer.class)))
+				.thenAnswer(invocation -> {
+					Collection<Long> keys = invocation.getArgument(0);
+					LongConsumer expiredKeys = invocation.getArgument(2);
+					keys.forEach(expiredKeys::accept);
+					return keys.size();
+				});
+
+		int expiredTrades = tradeExpiryEngine.expireMaturedTradesPartitioned(today);
+
+		List<TradeEvent> events = tradeEventFeed.read(0, 10).getEvents();
+		assertEquals(expiredTrades, 1);
+		assertEquals(events.size(), 1);
+		assertEquals(events.get(0).getType(), TradeEvent.Type.EXPIRED);
+		assertEquals(events.get(0).getTradeId(), Integer.valueOf(3));
+		verify(tradeDao, times(0)).expireMaturedTradesInRange(any(Integer.class), any(Integer.class), eq(cutoff));
+	}
+
+}
@@ -0,0 +1,155 @@
+package com.prototype.trade.store.service;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.google.common.collect.Lists;
+import com.prototype.trade.store.exception.TradeStoreException;
+import com.prototype.trade.store.model.IngestTicket;
+import com.prototype.trade.store.model.Trade;
+import com.prototype.trade.store.model.TradeResult;
+import com.prototype.trade.store.model.TradeResult.Status;
+import com.prototype.trade.store.service.impl.TradeIngestPipeline;
+
+@ExtendWith(MockitoExtension.class)
+public class TradeIngestPipelineTest {
+
+	@Mock
+	private TradeService tradeService;
+
+	@DisplayName("Junit for async ingestion, a queued trade is processed by a worker and its ticket completed")
+	@Test
+	public void shouldProcessQueuedTradeAndCompleteTicket() throws Exception {
+
+		final LocalDateTime todayDateTime = LocalDateTime.now();
+		Trade trade = new Trade(1, 1, "CPTY-1", "BOOK-1", todayDateTime, todayDateTime.plusDays(1), false, 1);
+
+		Mockito.when(tradeService.processAndSaveTrades(anyList()))
+				.thenReturn(Lists.newArrayList(new TradeResult(1, 1, Status.ACCEPTED, "saved")));
+
+		TradeIngestPipeline pipeline = newPipeline(10, 1);
+		IngestTicket ticket = pipeline.submit(trade, null).get();
+
+		IngestTicket processed = null;
+		for (int i = 0; i < 500 && null == processed; i++) {
+
+			Thread.sleep(10);
+			processed = pipeline.getTicket(ticket.getTicket()).filter(t -> IngestTicket.Status.QUEUED != t.getStatus())
+					.orElse(null);
+		}
+		pipeline.stop();
+
+		final IngestTicket processedTicket = processed;
+		assertAll(
+				() -> assertEquals(processedTicket.getStatus(), IngestTicket.Status.PROCESSED),
+				() -> assertEquals(processedTicket.getResult().getStatus(), Status.ACCEPTED)
+		);
+	}
+
+	@DisplayName("Junit for async ingestion, a full queue or an invalid trade is rejected at submit")
+	@Test
+	public void shouldRejectWhenQueueFullOrTradeInvalid() throws Exception {
+
+		final LocalDateTime todayDateTime = LocalDateTime.now();
+		TradeIngestPipeline pipeline = newPipeline(1, 0);
+
+		Trade trade = new Trade(1, 1, "CPTY-1", "BOOK-1", todayDateTime, todayDateTime.plusDays(1), false, 1);
+		Trade maturedTrade = new Trade(2, 1, "CPTY-1", "BOOK-1", todayDateTime, todayDateTime.minusDays(1), false, 1);
+
+		assertAll(
+				() -> assertTrue(pipeline.submit(trade, null).isPresent()),
+				() -> assertFalse(pipeline.submit(trade, null).isPresent()),
+				() -> assertThrows(TradeStoreException.class, () -> pipeline.submit(maturedTrade, null))
+		);
+	}
+
+	@DisplayName("Junit for async ingestion, callbacks are only accepted below the configured url prefixes")
+	@Test
+	public void shouldRejectCallbackOutsideConfiguredPrefixes() throws Exception {
+
+		final LocalDateTime todayDateTime = LocalDateTime.now();
+		TradeIngestPipeline pipeline = newPipeline(10, 0);
+		pipeline.setCallbackUrlPrefixes(
+				new String[] { "https://risk.example.com/callbacks/", "https://hooks.example.com/hooks" });
+
+		Trade trade = new Trade(1, 1, "CPTY-1", "BOOK-1", todayDateTime, todayDateTime.plusDays(1), false, 1);
+
+		assertAll(
+				() -> assertTrue(pipeline.isCallbackAllowed("https://risk.example.com/callbacks/trades")),
+				() -> assertTrue(pipeline.isCallbackAllowed("https://RISK.example.com:443/callbacks/1")),
+				() -> assertFalse(pipeline.isCallbackAllowed("https://risk.example.com/callbacks/../admin")),
+				() -> assertFalse(pipeline.isCallbackAllowed("https://risk.example.com/callbacks/%2e%2e/admin")),
+				() -> assertFalse(pipeline.isCallbackAllowed("https://risk.example.com/callbacks/%2E.%2Fadmin")),
+				() -> assertFalse(pipeline.isCallbackAllowed("https://risk.example.com/callbacks%2F..%2Fadmin")),
+				() -> assertTrue(pipeline.isCallbackAllowed("https://hooks.example.com/hooks")),
+				() -> assertTrue(pipeline.isCallbackAllowed("https://hooks.example.com/hooks/trades")),
+				() -> assertFalse(pipeline.isCallbackAllowed("https://hooks.example.com/hooks-evil")),
+				() -> assertFalse(pipeline.isCallbackAllowed("https://risk.example.com.evil.io/callbacks/")),
+				() -> assertFalse(pipeline.isCallbackAllowed("https://user@risk.example.com/callbacks/")),
+				() -> assertFalse(pipeline.isCallbackAllowed("http://169.254.169.254/latest/meta-data")),
+				() -> assertFalse(pipeline.isCallbackAllowed("file:///etc/passwd")),
+				() -> assertThrows(TradeStoreException.class,
+						() -> pipeline.submit(trade, "http://localhost:8080/actuator/shutdown")),
+				() -> assertTrue(pipeline.submit(trade, "https://risk.example.com/callbacks/t").isPresent())
+		);
+	}
+
+	@DisplayName("Junit for async ingestion, completed tickets beyond max-tickets are dropped oldest first")
+	@Test
+	public void shouldCapRetainedTickets() throws Exception {
+
+		final LocalDateTime todayDateTime = LocalDateTime.now();
+		Mockito.when(tradeService.processAndSaveTrades(anyList())).thenAnswer(invocation -> {
+
+			List<TradeResult> results = new ArrayList<>();
+			for (Trade t : invocation.<List<Trade>>getArgument(0)) {
+				results.add(new TradeResult(t.getTradeId(), t.getTradeVersion(), Status.ACCEPTED, "saved"));
+			}
+			return results;
+		});
+
+		TradeIngestPipeline pipeline = newPipeline(10, 0);
+		pipeline.setMaxTickets(2);
+
+		long[] ticketIds = new long[3];
+		for (int i = 0; i < 3; i++) {
+			Trade trade = new Trade(i + 1, 1, "CPTY-1", "BOOK-1", todayDateTime, todayDateTime.plusDays(1), false, 1);
+			ticketIds[i] = pipeline.submit(trade, null).get().getTicket();
+		}
+
+		// no workers, stop processes the queued trades
+		pipeline.stop();
+
+		assertAll(
+				() -> assertFalse(pipeline.getTicket(ticketIds[0]).isPresent()),
+				() -> assertTrue(pipeline.getTicket(ticketIds[1]).isPresent()),
+				() -> assertTrue(pipeline.getTicket(ticketIds[2]).isPresent())
+		);
+	}
+
+	private TradeIngestPipeline newPipeline(int queueCapacity, int workers) {
+
+		TradeIngestPipeline pipeline = new TradeIngestPipeline();
+		pipeline.setTradeService(tradeService);
+		pipeline.setQueueCapacity(queueCapacity);
+		pipeline.setWorkers(workers);
+		pipeline.start();
+		return pipeline;
+	}
+
+}
@@ -0,0 +1,102 @@
+package com.prototype.trade.store.service;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.prototype.trade.store.model.TradeKey;
+import com.prototype.trade.store.repository.TradeBatchDao;
+import com.prototype.trade.store.repository.TradeDao;
+import com.prototype.trade.store.service.impl.TradeMaturityIndex;
+
+@ExtendWith(MockitoExtension.class)
+public class TradeMaturityIndexTest {
+
+	@Mock
+	private TradeDao tradeDao;
+
+	@Mock
+	private TradeBatchDao tradeBatchDao;
+
+	@InjectMocks
+	private TradeMaturityIndex tradeMaturityIndex;
+
+	@SuppressWarnings("unchecked")
+	@DisplayName("Junit for method 'expireDueTrades' when only some indexed trades crossed maturity")
+	@Test
+	public void shouldExpireOnlyTradesMaturedBeforeToday() {
+
+		final LocalDate today = LocalDate.now();
+		final LocalDateTime now = LocalDateTime.now();
+
+		tradeMaturityIndex.add(1, 1, now.plusDays(10));
+		tradeMaturityIndex.add(2, 1, now.minusDays(2));
+		tradeMaturityIndex.add(3, 1, now);
+		tradeMaturityIndex.add(4, 2, now.minusDays(1));
+		tradeMaturityIndex.add(5, 1, now.plusDays(1));
+
+		ArgumentCaptor<Collection<Long>> dueKeys = ArgumentCaptor.forClass(Collection.class);
+		Mockito.when(tradeBatchDao.expireTrades(anyCollection(), any(LocalDateTime.class))).thenReturn(2);
+
+		int expiredTrades = tradeMaturityIndex.expireDueTrades(today);
+
+		verify(tradeBatchDao, times(1)).expireTrades(dueKeys.capture(), any(LocalDateTime.class));
+		assertAll(
+				() -> assertEquals(expiredTrades, 2),
+				() -> assertEquals(dueKeys.getValue().size(), 2),
+				() -> assertTrue(dueKeys.getValue().contains(TradeKey.of(2, 1))),
+				() -> assertTrue(dueKeys.getValue().contains(TradeKey.of(4, 2))),
+				() -> assertEquals(tradeMaturityIndex.size(), 3)
+		);
+
+		// trades maturing today become due once the day boundary is crossed
+		tradeMaturityIndex.expireDueTrades(today.plusDays(1));
+		assertEquals(tradeMaturityIndex.size(), 2);
+	}
+
+	@SuppressWarnings("unchecked")
+	@DisplayName("Junit for amended maturity dates, one entry per trade moved to the latest date")
+	@Test
+	public void shouldKeepOneEntryPerTrade() {
+
+		final LocalDate today = LocalDate.now();
+		final LocalDateTime now = LocalDateTime.now();
+
+		tradeMaturityIndex.add(1, 1, now.plusDays(10));
+		tradeMaturityIndex.add(1, 1, now.plusDays(10));
+		tradeMaturityIndex.add(1, 1, now.minusDays(1));
+		tradeMaturityIndex.add(2, 1, now.minusDays(3));
+		tradeMaturityIndex.add(2, 1, now.plusDays(5));
+		assertEquals(tradeMaturityIndex.size(), 2);
+
+		ArgumentCaptor<Collection<Long>> dueKeys = ArgumentCaptor.forClass(Collection.class);
+		Mockito.when(tradeBatchDao.expireTrades(anyCollection(), any(LocalDateTime.class))).thenReturn(1);
+
+		tradeMaturityIndex.expireDueTrades(today);
+
+		verify(tradeBatchDao, times(1)).expireTrades(dueKeys.capture(), any(LocalDateTime.class));
+		assertAll(
+				() -> assertEquals(dueKeys.getValue().size(), 1),
+				() -> assertTrue(dueKeys.getValue().contains(TradeKey.of(1, 1))),
+				() -> assertEquals(tradeMaturityIndex.size(), 1)
+		);
+	}
+
+}
@@ -0,0 +1,42 @@
+package com.prototype.trade.store.service;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.prototype.trade.store.model.TradeResult.Status;
+import com.prototype.trade.store.service.impl.TradeMetrics;
+import com.prototype.trade.store.service.impl.TradeMetrics.Reason;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class TradeMetricsTest {
+
+	@DisplayName("Junit for trade metrics, results are counted by status & reason and sweeps timed")
+	@Test
+	public void shouldCountResultsByStatusAndReason() {
+
+		MeterRegistry registry = new SimpleMeterRegistry();
+		TradeMetrics tradeMetrics = new TradeMetrics();
+		tradeMetrics.setMeterRegistry(registry);
+		tradeMetrics.setExpiryMode(ExpiryMode.SET_BASED);
+		tradeMetrics.register();
+
+		tradeMetrics.recordResult(Status.ACCEPTED, Reason.NONE);
+		tradeMetrics.recordResult(Status.REJECTED, Reason.MATURED);
+		tradeMetrics.recordResult(Status.REJECTED, Reason.MATURED);
+		tradeMetrics.recordExpirySweep(false, System.nanoTime(), 42);
+
+		assertAll(
+				() -> assertEquals(registry.get("trade.results").tags("status", "accepted", "reason", "none").counter().count(), 1.0),
+				() -> assertEquals(registry.get("trade.results").tags("status", "rejected", "reason", "matured").counter().count(), 2.0),
+				() -> assertEquals(registry.get("trade.results").tags("status", "rejected", "reason", "lower_version").counter().count(), 0.0),
+				() -> assertEquals(registry.get("trade.expiry.sweep").tags("trigger", "reconciliation", "mode", "set_based").timer().count(), 1L),
+				() -> assertEquals(registry.get("trade.expiry.expired").counter().count(), 42.0)
+		);
+	}
+
+}
@@ -2,11 +2,22 @@ package com.prototype.trade.store.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import java.time.Clock;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,11 +30,23 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import com.google.common.collect.Lists;
+import com.prototype.trade.store.date.util.BusinessClock;
 import com.prototype.trade.store.exception.TradeStoreException;
 import com.prototype.trade.store.model.Trade;
+import com.prototype.trade.store.model.TradeCursor;
+import com.prototype.trade.store.model.TradeKey;
+import com.prototype.trade.store.model.TradePage;
+import com.prototype.trade.store.model.TradeResult;
+import com.prototype.trade.store.model.TradeResult.Status;
+import com.prototype.trade.store.model.TradeVersionView;
+import com.prototype.trade.store.repository.TradeBatchDao;
+import com.prototype.trade.store.repository.TradeBatchDao.Column;
 import com.prototype.trade.store.repository.TradeDao;
+import com.prototype.trade.store.repository.TradeLatestDao;
+import com.prototype.trade.store.service.impl.TradeExpiryEngine;
 import com.prototype.trade.store.service.impl.TradeServiceImpl;
 
 @SpringBootTest
@@ -33,6 +56,12 @@ public class TradeServiceTest {
 	@Mock
 	private TradeDao tradeDao;
 
+	@Mock
+	private TradeBatchDao tradeBatchDao;
+
+	@Mock
+	private TradeExpiryEngine tradeExpiryEngine;
+
 	@InjectMocks
 	private TradeServiceImpl tradeService;
 
@@ -80,11 +109,8 @@ public class TradeServiceTest {
 		final Integer version = 1;
 		final String expectedErrorMessage = "Rejected tradeId/tradeVerssion=" + tradeId + "/" + lowerTradeVersion + " as lower trade version is received";
 		
-		Trade higerVersionTrade1 = new Trade(tradeId, higherTradeVersion_1, counterParty, book, todayDateTime, maturityDateTime, expired, version);
-		Trade higerVersionTrade2 = new Trade(tradeId, higherTradeVersion_2, counterParty, book, todayDateTime, maturityDateTime, expired, version);
-		
-		Optional<List<Trade>> optional =  Optional.ofNullable(Lists.newArrayList(higerVersionTrade1, higerVersionTrade2));
-		Mockito.when(tradeDao.findTradesByTradeId(any(Integer.class))).thenReturn(optional);   
+		// higherTradeVersion_1 & higherTradeVersion_2 are stored, latest version projection returns the highest
+		Mockito.when(tradeDao.findLatestTradeVersion(any(Integer.class))).thenReturn(Optional.of(higherTradeVersion_2));
 		
 		// start processing/saving lower trade version
 		Trade lowerVersionTrade = new Trade(tradeId, lowerTradeVersion, counterParty, book, todayDateTime, maturityDateTime, expired, version);
@@ -95,7 +121,8 @@ public class TradeServiceTest {
 		String actualErrorMessage = exception.getMessage();
 
 		assertEquals(actualErrorMessage, expectedErrorMessage);
-		verify(tradeDao, times(1)).findTradesByTradeId(any(Integer.class));
+		verify(tradeDao, times(1)).findLatestTradeVersion(any(Integer.class));
+		verify(tradeDao, times(0)).saveAndFlush(any(Trade.class));
 
 	}
 	
@@ -116,20 +143,56 @@ public class TradeServiceTest {
 		final Boolean expired = false;
 		final Integer version = 1;
 		
-		Trade trade1 = new Trade(tradeId, tradeVersion_1, counterParty_1, book_1, todayDateTime, maturityDateTime, expired, version);
-		Trade trade2 = new Trade(tradeId, tradeVersion_2, counterParty_1, book_1, todayDateTime, maturityDateTime.plusDays(1), expired, version);
+		// tradeVersion_1, tradeVersion_2 & tradeVersion_3 are stored, tradeVersion_3 is the latest
 		Trade trade3 = new Trade(tradeId, tradeVersion_3, counterParty_1, book_1, todayDateTime, maturityDateTime.plusDays(2), expired, version);
 		
-		Optional<List<Trade>> optional =  Optional.ofNullable(Lists.newArrayList(trade1, trade2, trade3));
-		Mockito.when(tradeDao.findTradesByTradeId(any(Integer.class))).thenReturn(optional);   
+		Mockito.when(tradeDao.findLatestTradeVersion(any(Integer.class))).thenReturn(Optional.of(tradeVersion_3));
+		Mockito.when(tradeDao.findTradeByTradeIdTradeVersion(any(Integer.class), any(Integer.class))).thenReturn(Optional.of(trade3));
 		
 		// start processing/saving trade3 again with same tradeId & tradeVersion
 		Trade trade3_withUpdates = new Trade(tradeId, tradeVersion_3, counterParty_2, book_2, todayDateTime, maturityDateTime, expired, version);
 		tradeService.processAndSaveTrade(trade3_withUpdates);
 		
-		verify(tradeDao, times(1)).findTradesByTradeId(any(Integer.class));
+		verify(tradeDao, times(1)).findLatestTradeVersion(any(Integer.class));
+		verify(tradeDao, times(1)).findTradeByTradeIdTradeVersion(any(Integer.class), any(Integer.class));
 		verify(tradeDao, times(1)).saveAndFlush(any(Trade.class));
+		assertAll(
+				() -> assertEquals(trade3.getCounterpartyId(), counterParty_2),
+				() -> assertEquals(trade3.getBookId(), book_2)
+		);
+
+	}
+
+	@DisplayName("Junit for method 'processAndSaveTrade' when same version is received in targeted update mode")
+	@Test
+	public void shouldWriteOnlyChangedColumnsOfSameVersionInTargetedMode() {
+
+		final LocalDateTime todayDateTime = LocalDateTime.now();
+		final LocalDateTime maturityDateTime = todayDateTime.plusDays(1);
+		final Integer tradeId = 1;
+		final Integer tradeVersion = 30;
+
+		tradeService.setUpdateMode(UpdateMode.TARGETED);
+
+		Trade stored = new Trade(tradeId, tradeVersion, "CPTY-1", "BOOK-1", todayDateTime, maturityDateTime, false, 3);
+		Mockito.when(tradeDao.findLatestTradeVersion(any(Integer.class))).thenReturn(Optional.of(tradeVersion));
+		Mockito.when(tradeDao.findTradeByTradeIdTradeVersion(tradeId, tradeVersion)).thenReturn(Optional.of(stored));
+
+		// identical replay, nothing written
+		Trade replay = new Trade(tradeId, tradeVersion, "CPTY-1", "BOOK-1", todayDateTime, maturityDateTime, false, 3);
+		tradeService.processAndSaveTrade(replay);
+		verify(tradeBatchDao, times(0)).updateTradeColumns(any(Trade.class), anyInt(), any());
+
+		// counterparty changed, only its column is written against the stored version
+		Trade changed = new Trade(tradeId, tradeVersion, "CPTY-2", "BOOK-1", todayDateTime, maturityDateTime, false, 3);
+		Mockito.when(tradeBatchDao.updateTradeColumns(changed, 3, EnumSet.of(Column.COUNTERPARTY_ID))).thenReturn(1, 0);
+		tradeService.processAndSaveTrade(changed);
+
+		// the row moved on meanwhile
+		assertThrows(TradeStoreException.class, () -> tradeService.processAndSaveTrade(changed));
 
+		verify(tradeBatchDao, times(2)).updateTradeColumns(any(Trade.class), eq(3), any());
+		verify(tradeDao, times(0)).saveAndFlush(any(Trade.class));
 	}
 	
 	@DisplayName("Junit for method 'markMaturedTradeExpired' when trade maturity date has been crossed")
@@ -142,13 +205,215 @@ public class TradeServiceTest {
 		Trade trade2 = new Trade(4, 1, "CPTY-4", "BOOK-4", todayDateTime, todayDateTime.minusDays(2), true, 1);
 
 		Optional<List<Trade>> optional = Optional.ofNullable(Lists.newArrayList(trade1, trade2));
-		Mockito.when(tradeDao.findAllActiveTrades()).thenReturn(optional);
+		Mockito.when(tradeDao.findActiveTradesMaturedBefore(any(LocalDateTime.class))).thenReturn(optional);
 
 		tradeService.markMaturedTradeExpired();
 
-		verify(tradeDao, times(1)).findAllActiveTrades();
+		verify(tradeDao, times(1)).findActiveTradesMaturedBefore(LocalDate.now().atStartOfDay());
+		verify(tradeDao, times(0)).findAllActiveTrades();
 		verify(tradeDao, times(2)).expireTrade(any(Integer.class), any(Integer.class));
 
 	}
 
+	@DisplayName("Junit for method 'markMaturedTradeExpired' in set-based expiry mode")
+	@Test
+	public void shouldExpireMaturedTradesInBulkWhenSetBasedExpiryModeIsConfigured() {
+
+		tradeService.setExpiryMode(ExpiryMode.SET_BASED);
+		Mockito.when(tradeExpiryEngine.expireMaturedTrades(any(LocalDate.class))).thenReturn(2);
+
+		int expiredTrades = tradeService.markMaturedTradeExpired();
+
+		assertEquals(expiredTrades, 2);
+		verify(tradeExpiryEngine, times(1)).expireMaturedTrades(any(LocalDate.class));
+		verify(tradeDao, times(0)).findActiveTradesMaturedBefore(any(LocalDateTime.class));
+		verify(tradeDao, times(0)).expireTrade(any(Integer.class), any(Integer.class));
+
+	}
+
+	@DisplayName("Junit for method 'processAndSaveTrades' when a batch mixes new, same, lower & matured trades")
+	@Test
+	public void shouldReturnResultPerTradeWhenBatchOfTradesIsProcessed() {
+
+		final LocalDateTime todayDateTime = LocalDateTime.now();
+		final LocalDateTime maturityDateTime = todayDateTime.plusDays(1);
+
+		// tradeId=1 is stored with versions 2 & 3
+		TradeVersionView latestVersion = Mockito.mock(TradeVersionView.class);
+		Mockito.when(latestVersion.getTradeId()).thenReturn(1);
+		Mockito.when(latestVersion.getTradeVersion()).thenReturn(3);
+		Mockito.when(tradeDao.findLatestTradeVersions(anyCollection())).thenReturn(Lists.newArrayList(latestVersion));
+
+		List<Trade> batch = Lists.newArrayList(
+				new Trade(1, 1, "CPTY-1", "BOOK-1", todayDateTime, maturityDateTime, false, 1),
+				new Trade(1, 3, "CPTY-2", "BOOK-2", todayDateTime, maturityDateTime, false, 1),
+				new Trade(1, 4, "CPTY-1", "BOOK-1", todayDateTime, maturityDateTime, false, 1),
+				new Trade(2, 1, "CPTY-1", "BOOK-1", todayDateTime, maturityDateTime, false, 1),
+				new Trade(3, 1, "CPTY-1", "BOOK-1", todayDateTime, todayDateTime.minusDays(1), false, 1));
+
+		Mockito.when(tradeBatchDao.insertTrades(anyCollection())).thenAnswer(invocation -> written(invocation.getArgument(0)));
+		Mockito.when(tradeBatchDao.updateTrades(anyCollection())).thenAnswer(invocation -> written(invocation.getArgument(0)));
+
+		List<TradeResult> results = tradeService.processAndSaveTrades(batch);
+
+		assertAll(
+				() -> assertEquals(results.size(), 5),
+				() -> assertEquals(results.get(0).getStatus(), Status.REJECTED),
+				() -> assertEquals(results.get(1).getStatus(), Status.UPDATED),
+				() -> assertEquals(results.get(2).getStatus(), Status.ACCEPTED),
+				() -> assertEquals(results.get(2).getMessage(), "Successfully processed & saved tradeId=1, tradeVersion=4"),
+				() -> assertEquals(results.get(3).getStatus(), Status.ACCEPTED),
+				() -> assertEquals(results.get(4).getStatus(), Status.REJECTED)
+		);
+
+		verify(tradeDao, times(1)).findLatestTradeVersions(anyCollection());
+		verify(tradeBatchDao, times(1)).insertTrades(anyCollection());
+		verify(tradeBatchDao, times(1)).updateTrades(anyCollection());
+		verify(tradeDao, times(0)).saveAndFlush(any(Trade.class));
+
+	}
+
+	@DisplayName("Junit for method 'processAndSaveTrades' when the store refuses one row of the batch")
+	@Test
+	public void shouldRejectOnlyTradesRefusedByStore() {
+
+		final LocalDateTime todayDateTime = LocalDateTime.now();
+		final LocalDateTime maturityDateTime = todayDateTime.plusDays(1);
+
+		// tradeId=2 breaks a constraint, alone or within the batch
+		Mockito.when(tradeBatchDao.insertTrades(anyCollection())).thenAnswer(invocation -> {
+
+			Collection<Trade> inserts = invocation.getArgument(0);
+			if (inserts.stream().anyMatch(t -> 2 == t.getTradeId())) {
+				throw new DataIntegrityViolationException("UX_TRADE_ID_VERSION");
+			}
+			return written(inserts);
+		});
+
+		List<Trade> batch = Lists.newArrayList(
+				new Trade(1, 1, "CPTY-1", "BOOK-1", todayDateTime, maturityDateTime, false, 1),
+				new Trade(2, 1, "CPTY-1", "BOOK-1", todayDateTime, maturityDateTime, false, 1),
+				new Trade(3, 1, "CPTY-1", "BOOK-1", todayDateTime, maturityDateTime, false, 1));
+
+		List<TradeResult> results = tradeService.processAndSaveTrades(batch);
+
+		assertAll(
+				() -> assertEquals(results.get(0).getStatus(), Status.ACCEPTED),
+				() -> assertEquals(results.get(1).getStatus(), Status.REJECTED),
+				() -> assertEquals(results.get(1).getMessage(), "Rejected tradeId/tradeVersion=2/1 as the trade store refused it"),
+				() -> assertEquals(results.get(2).getStatus(), Status.ACCEPTED)
+		);
+
+		// the batch, then each trade on its own
+		verify(tradeBatchDao, times(4)).insertTrades(anyCollection());
+	}
+
+	@DisplayName("Junit for method 'processAndSaveTrades' when a same-version update matches no stored row")
+	@Test
+	public void shouldRejectUpdateMatchingNoRow() {
+
+		final LocalDateTime todayDateTime = LocalDateTime.now();
+		final LocalDateTime maturityDateTime = todayDateTime.plusDays(1);
+
+		// tradeId=1 is stored with version 1, its row is gone by the time the update runs
+		TradeVersionView latestVersion = Mockito.mock(TradeVersionView.class);
+		Mockito.when(latestVersion.getTradeId()).thenReturn(1);
+		Mockito.when(latestVersion.getTradeVersion()).thenReturn(1);
+		Mockito.when(tradeDao.findLatestTradeVersions(anyCollection())).thenReturn(Lists.newArrayList(latestVersion));
+		Mockito.when(tradeBatchDao.updateTrades(anyCollection())).thenReturn(new int[] { 0 });
+
+		List<TradeResult> results = tradeService.processAndSaveTrades(Lists.newArrayList(
+				new Trade(1, 1, "CPTY-2", "BOOK-1", todayDateTime, maturityDateTime, false, 1)));
+
+		assertAll(
+				() -> assertEquals(results.get(0).getStatus(), Status.REJECTED),
+				() -> assertEquals(results.get(0).getMessage(), "Rejected tradeId/tradeVersion=1/1 as the trade store refused it")
+		);
+
+		verify(tradeBatchDao, times(1)).updateTrades(anyCollection());
+	}
+
+	@DisplayName("Junit for method 'getTrades' continuing from a cursor")
+	@Test
+	public void shouldReturnNextCursorWhenMoreTradesFollow() {
+
+		final LocalDateTime todayDateTime = LocalDateTime.now();
+		final LocalDateTime maturityDateTime = todayDateTime.plusDays(1);
+
+		Mockito.when(tradeDao.findTradesAfterKey(eq(1), eq(1), eq(false), isNull(), isNull(), any()))
+				.thenReturn(Lists.newArrayList(
+						new Trade(1, 2, "CPTY-1", "BOOK-1", todayDateTime, maturityDateTime, false, 1),
+						new Trade(2, 1, "CPTY-1", "BOOK-1", todayDateTime, maturityDateTime, false, 1),
+						new Trade(3, 1, "CPTY-1", "BOOK-1", todayDateTime, maturityDateTime, false, 1)));
+
+		TradePage page = tradeService.getTrades(TradeCursor.encode(TradeKey.of(1, 1)), false, null, null, 2);
+
+		assertAll(
+				() -> assertEquals(page.getTrades().size(), 2),
+				() -> assertEquals(TradeCursor.decode(page.getNextCursor()), TradeKey.of(2, 1))
+		);
+
+		assertThrows(TradeStoreException.class, () -> tradeService.getTrades("not-a-cursor", null, null, null, 2));
+
+	}
+
+	@DisplayName("Junit for maturity checks against an injected business date")
+	@Test
+	public void shouldRejectTradeOnceBusinessDateMovesPastMaturity() {
+
+		final ZoneId zone = ZoneId.of("Asia/Kolkata");
+		final LocalDate maturityDate = LocalDate.of(2022, 7, 18);
+		final BusinessClock businessClock = new BusinessClock(
+				Clock.fixed(maturityDate.atTime(23, 59).atZone(zone).toInstant(), zone));
+		tradeService.setBusinessClock(businessClock);
+
+		Trade trade = new Trade(1, 1, "CPTY-1", "BOOK-1", maturityDate.atStartOfDay(), maturityDate.atTime(12, 0),
+				false, 1);
+		Mockito.when(tradeBatchDao.insertTrades(anyCollection())).thenAnswer(invocation -> written(invocation.getArgument(0)));
+
+		assertEquals(tradeService.processAndSaveTrades(Lists.newArrayList(trade)).get(0).getStatus(), Status.ACCEPTED);
+
+		// one minute later it is the next business day in that zone
+		businessClock.setClock(Clock.fixed(maturityDate.plusDays(1).atStartOfDay(zone).toInstant(), zone));
+
+		assertEquals(tradeService.processAndSaveTrades(Lists.newArrayList(trade)).get(0).getStatus(), Status.REJECTED);
+		assertThrows(TradeStoreException.class, () -> tradeService.processAndSaveTrade(trade));
+
+	}
+
+	@DisplayName("Junit for version checks & latest trade served by the latest version read model")
+	@Test
+	public void shouldCheckVersionAgainstLatestReadModel() {
+
+		final LocalDateTime todayDateTime = LocalDateTime.now();
+		final LocalDateTime maturityDateTime = todayDateTime.plusDays(1);
+		final TradeLatestDao tradeLatestDao = Mockito.mock(TradeLatestDao.class);
+		tradeService.setTradeLatestDao(tradeLatestDao);
+
+		Trade newVersion = new Trade(1, 4, "CPTY-1", "BOOK-1", todayDateTime, maturityDateTime, false, 1);
+		Mockito.when(tradeLatestDao.findLatestVersion(1)).thenReturn(Optional.of(3));
+		Mockito.when(tradeDao.saveAndFlush(newVersion)).thenReturn(newVersion);
+
+		tradeService.processAndSaveTrade(newVersion);
+
+		// the stored history is not read, the new version becomes the latest one
+		verify(tradeDao, times(0)).findLatestTradeVersion(any(Integer.class));
+		verify(tradeLatestDao, times(1)).saveLatest(newVersion);
+
+		Trade lowerVersion = new Trade(1, 2, "CPTY-1", "BOOK-1", todayDateTime, maturityDateTime, false, 1);
+		assertThrows(TradeStoreException.class, () -> tradeService.processAndSaveTrade(lowerVersion));
+
+		Mockito.when(tradeLatestDao.findLatestTrade(1)).thenReturn(Optional.of(newVersion));
+		assertEquals(tradeService.getLatestTrade(1).get().getTradeVersion().intValue(), 4);
+
+	}
+
+	// one written row per trade
+	private static int[] written(Collection<Trade> trades) {
+
+		int[] counts = new int[trades.size()];
+		Arrays.fill(counts, 1);
+		return counts;
+	}
+
 }
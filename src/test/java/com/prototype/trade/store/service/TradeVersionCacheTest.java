@@ -0,0 +1,96 @@
+package com.prototype.trade.store.service;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.google.common.collect.Lists;
+import com.prototype.trade.store.model.Trade;
+import com.prototype.trade.store.repository.TradeDao;
+import com.prototype.trade.store.service.impl.TradeVersionCache;
+
+@ExtendWith(MockitoExtension.class)
+public class TradeVersionCacheTest {
+
+	@Mock
+	private TradeDao tradeDao;
+
+	@InjectMocks
+	private TradeVersionCache tradeVersionCache;
+
+	@DisplayName("Junit for read-through of trade versions, served from memory until invalidated")
+	@Test
+	public void shouldLoadTradeVersionsOnceUntilInvalidated() {
+
+		final LocalDateTime todayDateTime = LocalDateTime.now();
+		Trade trade_v1 = new Trade(1, 1, "CPTY-1", "BOOK-1", todayDateTime, todayDateTime.plusDays(1), false, 1);
+		Trade trade_v2 = new Trade(1, 2, "CPTY-2", "BOOK-2", todayDateTime, todayDateTime.plusDays(2), false, 1);
+
+		Mockito.when(tradeDao.findTradesByTradeId(any(Integer.class)))
+				.thenReturn(Optional.of(Lists.newArrayList(trade_v1, trade_v2)));
+
+		assertAll(
+				() -> assertEquals(tradeVersionCache.getLatestVersion(1), 2),
+				() -> assertEquals(tradeVersionCache.getTrade(1, 1).getCounterpartyId(), "CPTY-1"),
+				() -> assertNull(tradeVersionCache.getTrade(1, 3))
+		);
+		verify(tradeDao, times(1)).findTradesByTradeId(any(Integer.class));
+
+		tradeVersionCache.invalidate(1);
+		assertEquals(tradeVersionCache.getLatestVersion(1), 2);
+		verify(tradeDao, times(2)).findTradesByTradeId(any(Integer.class));
+	}
+
+	@DisplayName("Junit for unknown tradeId, no stored version is cached as well")
+	@Test
+	public void shouldReturnNoVersionForUnknownTrade() {
+
+		Mockito.when(tradeDao.findTradesByTradeId(any(Integer.class))).thenReturn(Optional.empty());
+
+		assertEquals(tradeVersionCache.getLatestVersion(42), TradeVersionCache.NO_VERSION);
+		assertEquals(tradeVersionCache.getLatestVersion(42), TradeVersionCache.NO_VERSION);
+		verify(tradeDao, times(1)).findTradesByTradeId(any(Integer.class));
+	}
+
+	@DisplayName("Junit for loads racing an invalidation, only the invalidated tradeId is not cached")
+	@Test
+	public void shouldDiscardOnlyLoadsOfInvalidatedTrade() {
+
+		final LocalDateTime todayDateTime = LocalDateTime.now();
+		Trade trade_1 = new Trade(1, 1, "CPTY-1", "BOOK-1", todayDateTime, todayDateTime.plusDays(1), false, 1);
+		Trade trade_2 = new Trade(2, 1, "CPTY-1", "BOOK-1", todayDateTime, todayDateTime.plusDays(1), false, 1);
+
+		// a write of tradeId 2 invalidates it while tradeId 1 & then tradeId 2 are loaded
+		Mockito.when(tradeDao.findTradesByTradeId(1)).thenAnswer(invocation -> {
+			tradeVersionCache.invalidate(2);
+			return Optional.of(Lists.newArrayList(trade_1));
+		});
+		Mockito.when(tradeDao.findTradesByTradeId(2)).thenAnswer(invocation -> {
+			tradeVersionCache.invalidate(2);
+			return Optional.of(Lists.newArrayList(trade_2));
+		});
+
+		tradeVersionCache.getLatestVersion(1);
+		tradeVersionCache.getLatestVersion(1);
+		verify(tradeDao, times(1)).findTradesByTradeId(1);
+
+		tradeVersionCache.getLatestVersion(2);
+		tradeVersionCache.getLatestVersion(2);
+		verify(tradeDao, times(2)).findTradesByTradeId(2);
+	}
+
+}
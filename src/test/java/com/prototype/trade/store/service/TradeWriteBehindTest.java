@@ -0,0 +1,188 @@
+package com.prototype.trade.store.service;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import com.google.common.collect.Lists;
+import com.prototype.trade.store.model.Trade;
+import com.prototype.trade.store.model.TradeResult;
+import com.prototype.trade.store.model.TradeResult.Status;
+import com.prototype.trade.store.service.impl.TradeWriteBehind;
+
+@ExtendWith(MockitoExtension.class)
+public class TradeWriteBehindTest {
+
+	@TempDir
+	Path tempDir;
+
+	@SuppressWarnings("unchecked")
+	@DisplayName("Junit for write-behind, journaled trades not applied before a restart are applied after it")
+	@Test
+	public void shouldApplyJournaledTradesAfterRestart() throws Exception {
+
+		final LocalDateTime todayDateTime = LocalDateTime.now();
+		Trade trade = new Trade(1, 1, "CPTY-1", "BOOK-1", todayDateTime, todayDateTime.plusDays(1), false, 1);
+		Trade maturedTrade = new Trade(2, 1, "CPTY-1", "BOOK-1", todayDateTime, todayDateTime.minusDays(1), false, 1);
+
+		// database unavailable, nothing gets applied
+		TradeService unavailableService = Mockito.mock(TradeService.class);
+		Mockito.when(unavailableService.processAndSaveTrades(anyList()))
+				.thenThrow(new DataAccessResourceFailureException("database down"));
+
+		TradeWriteBehind writeBehind = newWriteBehind(unavailableService);
+		List<TradeResult> results = writeBehind.acceptAll(Lists.newArrayList(trade, maturedTrade));
+
+		verify(unavailableService, timeout(2000).atLeastOnce()).processAndSaveTrades(anyList());
+		writeBehind.stop();
+
+		assertAll(
+				() -> assertEquals(results.get(0).getStatus(), Status.ACCEPTED),
+				() -> assertEquals(results.get(1).getStatus(), Status.REJECTED)
+		);
+
+		// after the restart the journaled trade is applied
+		TradeService tradeService = Mockito.mock(TradeService.class);
+		Mockito.when(tradeService.processAndSaveTrades(anyList()))
+				.thenReturn(Lists.newArrayList(new TradeResult(1, 1, Status.ACCEPTED, null)));
+
+		writeBehind = newWriteBehind(tradeService);
+		ArgumentCaptor<List<Trade>> applied = ArgumentCaptor.forClass(List.class);
+		verify(tradeService, timeout(2000)).processAndSaveTrades(applied.capture());
+
+		for (int i = 0; i < 200 && writeBehind.backlog() > 0; i++) {
+			Thread.sleep(10);
+		}
+		final int backlog = writeBehind.backlog();
+		writeBehind.stop();
+
+		assertAll(
+				() -> assertEquals(applied.getValue().size(), 1),
+				() -> assertEquals(applied.getValue().get(0).getTradeId(), 1),
+				() -> assertEquals(applied.getValue().get(0).getMaturityDate(), trade.getMaturityDate()),
+				() -> assertEquals(backlog, 0)
+		);
+	}
+
+	@DisplayName("Junit for write-behind, a trade the database refuses is dead-lettered instead of blocking the journal")
+	@Test
+	public void shouldDeadLetterPoisonTradeAndApplyTheRest() throws Exception {
+
+		final LocalDateTime todayDateTime = LocalDateTime.now();
+		Trade trade = new Trade(1, 1, "CPTY-1", "BOOK-1", todayDateTime, todayDateTime.plusDays(1), false, 1);
+		Trade poisonTrade = new Trade(2, 1, "CPTY-2", "BOOK-2", todayDateTime, todayDateTime.plusDays(1), false, 1);
+
+		// any batch holding the poison trade violates a constraint
+		TradeService tradeService = Mockito.mock(TradeService.class);
+		Mockito.when(tradeService.processAndSaveTrades(anyList())).thenAnswer(invocation -> {
+
+			List<Trade> batch = invocation.getArgument(0);
+			if (batch.stream().anyMatch(t -> 2 == t.getTradeId())) {
+				throw new DataIntegrityViolationException("value too long for COUNTERPARTY_ID");
+			}
+			return Lists.newArrayList(new TradeResult(1, 1, Status.ACCEPTED, null));
+		});
+
+		TradeWriteBehind writeBehind = newWriteBehind(tradeService);
+		writeBehind.acceptAll(Lists.newArrayList(poisonTrade, trade));
+
+		for (int i = 0; i < 200 && writeBehind.backlog() > 0; i++) {
+			Thread.sleep(10);
+		}
+		final int backlog = writeBehind.backlog();
+		writeBehind.stop();
+
+		Path deadLetterFile = tempDir.resolve("trade-dead-letter.log");
+		final List<String> deadLetters = Files.readAllLines(deadLetterFile);
+
+		assertAll(
+				() -> assertEquals(backlog, 0),
+				() -> assertEquals(deadLetters.size(), 1),
+				() -> assertTrue(deadLetters.get(0).contains("tradeId=2"))
+		);
+		verify(tradeService).processAndSaveTrades(Mockito.argThat(
+				(List<Trade> batch) -> 1 == batch.size() && 1 == batch.get(0).getTradeId()));
+	}
+
+	@DisplayName("Junit for write-behind, a small journal keeps taking trades while the flusher applies them")
+	@Test
+	public void shouldReuseAppliedJournalSpaceWhileFlusherApplies() throws Exception {
+
+		final LocalDateTime todayDateTime = LocalDateTime.now();
+		final AtomicInteger appliedTrades = new AtomicInteger();
+
+		// every batch takes a while, appends keep arriving while one is applied
+		TradeService tradeService = Mockito.mock(TradeService.class);
+		Mockito.when(tradeService.processAndSaveTrades(anyList())).thenAnswer(invocation -> {
+
+			List<Trade> batch = invocation.getArgument(0);
+			Thread.sleep(2);
+			appliedTrades.addAndGet(batch.size());
+			return new ArrayList<TradeResult>();
+		});
+
+		// a full drain of the journal takes longer than the append timeout
+		TradeWriteBehind writeBehind = new TradeWriteBehind();
+		writeBehind.setTradeService(tradeService);
+		writeBehind.setJournalFile(tempDir.resolve("trade-journal.dat").toString());
+		writeBehind.setJournalSizeMb(1);
+		writeBehind.setBatchSize(50);
+		writeBehind.setAppendTimeoutMillis(500);
+		writeBehind.setFlushIntervalMillis(10);
+		writeBehind.start();
+
+		// about 2.5 MB of records through the 1 MB journal, a refused append throws
+		int appendedTrades = 0;
+		for (int i = 0; i < 400; i++) {
+
+			List<Trade> trades = new ArrayList<>(100);
+			for (int j = 0; j < 100; j++) {
+				trades.add(new Trade(++appendedTrades, 1, "CPTY-1", "BOOK-1", todayDateTime, todayDateTime.plusDays(1),
+						false, 1));
+			}
+			writeBehind.acceptAll(trades);
+		}
+
+		for (int i = 0; i < 1000 && writeBehind.backlog() > 0; i++) {
+			Thread.sleep(10);
+		}
+		final int backlog = writeBehind.backlog();
+		writeBehind.stop();
+
+		assertEquals(backlog, 0);
+		assertEquals(appliedTrades.get(), appendedTrades);
+	}
+
+	private TradeWriteBehind newWriteBehind(TradeService tradeService) throws Exception {
+
+		TradeWriteBehind writeBehind = new TradeWriteBehind();
+		writeBehind.setTradeService(tradeService);
+		writeBehind.setJournalFile(tempDir.resolve("trade-journal.dat").toString());
+		writeBehind.setJournalSizeMb(1);
+		writeBehind.setFlushIntervalMillis(10);
+		writeBehind.setDeadLetterFile(tempDir.resolve("trade-dead-letter.log").toString());
+		writeBehind.start();
+		return writeBehind;
+	}
+
+}